@@ -15,50 +15,31 @@
  * specific language governing permissions and limitations under the License.
  */
 
+
 package com.newisys.juno.runtime;
 
 import java.util.Iterator;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
- * Base implementation of associative arrays.
+ * Base class of associative arrays. This class defines the operations common
+ * to all associative arrays, leaving the storage of the entries to
+ * subclasses.
+ * <P>
+ * Keys may be visited in ascending order using {@link #first} and
+ * {@link #next}, or using {@link #keyIterator}, which keeps its position
+ * between calls and remains valid when keys are added or removed during the
+ * iteration.
  *
  * @param <K> key type
  * @param <V> value type
  * @author Trevor Robinson
+ * @see MapAssocArray
  */
-public class AssocArray<K, V>
+public abstract class AssocArray<K, V>
     implements Cloneable
 {
-    private final SortedMap<K, V> map;
     private final ValueFactory< ? extends V> nullValueFactory;
 
-    // cached key iterator
-    private transient Iterator<K> keyIter;
-    private transient K cachedPrevKey;
-
-    /**
-     * Creates an AssocArray with a default value of null.
-     */
-    public AssocArray()
-    {
-        this((V) null);
-    }
-
-    /**
-     * Creates an AssocArray with the specified default value. If a key is
-     * requested that does not exist in this array, the default value will be
-     * returned.
-     *
-     * @param nullValue the default value for this array
-     */
-    public AssocArray(V nullValue)
-    {
-        this.map = new TreeMap<K, V>();
-        this.nullValueFactory = new ImmutableValueFactory<V>(nullValue);
-    }
-
     /**
      * Creates an AssocArray with the specified default value factory. If a key
      * is requested that does not exist in this array, the factory will be used
@@ -66,46 +47,30 @@ public class AssocArray<K, V>
      *
      * @param nullValueFactory the value factory used to create default values
      */
-    public AssocArray(ValueFactory< ? extends V> nullValueFactory)
+    protected AssocArray(ValueFactory< ? extends V> nullValueFactory)
     {
-        this.map = new TreeMap<K, V>();
         this.nullValueFactory = nullValueFactory;
     }
 
     /**
-     * Creates a new AssocArray which is a copy of the specified array.
+     * Creates a new AssocArray with the same default value factory as the
+     * specified array.
      *
      * @param other the array to copy
      */
-    public AssocArray(AssocArray< ? extends K, ? extends V> other)
+    protected AssocArray(AssocArray< ? extends K, ? extends V> other)
     {
-        this.map = new TreeMap<K, V>(other.map);
         this.nullValueFactory = other.nullValueFactory;
     }
 
     /**
-     * Gets the value for the specified key from this associative array.
+     * Returns the factory used to create default values for this array.
      *
-     * @param key the key whose associated value is to be returned
-     * @param keepNew indicates whether to add a mapping to the default value
-     *      if this associative array contains no mapping for this key
-     * @return the value which maps to the specified key, or the default value
-     *      if this associative array contains no mapping for this key
+     * @return the default value factory
      */
-    private V getImpl(K key, boolean keepNew)
+    protected final ValueFactory< ? extends V> getNullValueFactory()
     {
-        V value = map.get(key);
-        if (value == null)
-        {
-            value = nullValueFactory.newInstance();
-            if (keepNew)
-            {
-                map.put(key, value);
-                keyIter = null;
-                cachedPrevKey = null;
-            }
-        }
-        return value;
+        return nullValueFactory;
     }
 
     /**
@@ -115,10 +80,7 @@ public class AssocArray<K, V>
      * @return the value which maps to the specified key, or the default value
      *      if this associative array contains no mapping for this key
      */
-    public V get(K key)
-    {
-        return getImpl(key, false);
-    }
+    public abstract V get(K key);
 
     /**
      * Gets the value for the specified key from this associative array. If the
@@ -129,10 +91,7 @@ public class AssocArray<K, V>
      * @return the value which maps to the specified key, or the default value
      *      if this associative array contains no mapping for this key
      */
-    public V getOrCreate(K key)
-    {
-        return getImpl(key, true);
-    }
+    public abstract V getOrCreate(K key);
 
     /**
      * Associates the specified value with the specified key in this
@@ -141,22 +100,14 @@ public class AssocArray<K, V>
      * @param key the key with which the specified value is to be associated
      * @param value the value to be associated with the specified key
      */
-    public void put(K key, V value)
-    {
-        map.put(key, value);
-        keyIter = null;
-        cachedPrevKey = null;
-    }
+    public abstract void put(K key, V value);
 
     /**
      * Checks if there are any entries in this associative array.
      *
      * @return the number of entries in this associative array
      */
-    public int check()
-    {
-        return map.size();
-    }
+    public abstract int check();
 
     /**
      * Checks if there is a mapping in this associative array for the specified
@@ -166,27 +117,14 @@ public class AssocArray<K, V>
      * @return <code>1</code> if there is an entry in this associative array for
      *      <code>key</code>, <code>0</code> otherwise
      */
-    public int check(K key)
-    {
-        if (key == null)
-        {
-            throw new IllegalArgumentException("AssocArray.check: null key");
-        }
-        return map.containsKey(key) ? 1 : 0;
-    }
+    public abstract int check(K key);
 
     /**
      * Remove all entries from this associative array.
      *
      * @return <code>1</code>
      */
-    public int delete()
-    {
-        map.clear();
-        keyIter = null;
-        cachedPrevKey = null;
-        return 1;
-    }
+    public abstract int delete();
 
     /**
      * Deletes the entry in this associative array for the specified key (if
@@ -196,39 +134,16 @@ public class AssocArray<K, V>
      * @return <code>1</code> if the key exists in this associative array and
      *      was deleted, <code>0</code> otherwise
      */
-    public int delete(K key)
-    {
-        if (key == null)
-        {
-            throw new IllegalArgumentException("AssocArray.delete: null key");
-        }
-        if (map.containsKey(key))
-        {
-            map.remove(key);
-            keyIter = null;
-            cachedPrevKey = null;
-            return 1;
-        }
-        return 0;
-    }
+    public abstract int delete(K key);
 
     /**
      * Returns the first key in this associative array. This method can be used
      * with {@link #next} to iterate all keys in the array.
      *
-     * @return the first key in this associative array, or null if this array
-     *      is empty
+     * @return the first key in this associative array, or a null key if this
+     *      array is empty
      */
-    public K first()
-    {
-        if (!map.isEmpty())
-        {
-            keyIter = map.keySet().iterator();
-            cachedPrevKey = keyIter.next();
-            return cachedPrevKey;
-        }
-        return null;
-    }
+    public abstract K first();
 
     /**
      * Returns the key following the given key in this associative array. This
@@ -236,64 +151,24 @@ public class AssocArray<K, V>
      *
      * @param prevKey a previously returned key
      * @return the key following <code>prevKey</code> in this associative
-     *      array, or null if there are no more keys
+     *      array, or a null key if there are no more keys
      */
-    public K next(K prevKey)
-    {
-        // can we use cached iterator?
-        if (keyIter != null && cachedPrevKey.equals(prevKey))
-        {
-            // does cached iterator contain more keys?
-            if (keyIter.hasNext())
-            {
-                cachedPrevKey = keyIter.next();
-                return cachedPrevKey;
-            }
-            // fall through to no more keys
-        }
-        else
-        {
-            // create new key iterator using given key
-            keyIter = map.tailMap(prevKey).keySet().iterator();
-            if (keyIter.hasNext())
-            {
-                cachedPrevKey = keyIter.next();
-                // done if first key is greater than given key
-                if (!cachedPrevKey.equals(prevKey))
-                {
-                    return cachedPrevKey;
-                }
-                // skip first key
-                if (keyIter.hasNext())
-                {
-                    cachedPrevKey = keyIter.next();
-                    return cachedPrevKey;
-                }
-                // fall through to no more keys
-            }
-            // fall through to no more keys
-        }
-
-        // clear cached key iterator
-        keyIter = null;
-        cachedPrevKey = null;
+    public abstract K next(K prevKey);
 
-        return null;
-    }
-
-    /* (non-Javadoc)
-     * @see java.lang.Object#clone()
+    /**
+     * Returns an iterator over the keys of this associative array, in
+     * ascending order. Unlike the iterators of the standard collections, the
+     * returned iterator does not fail when keys are added or removed during
+     * the iteration; it simply continues with the first key greater than the
+     * one it last returned, as {@link #next} would. The iterator supports
+     * removal of the last key returned.
+     *
+     * @return an iterator over the keys of this associative array
      */
-    public AssocArray<K, V> clone()
-    {
-        return new AssocArray<K, V>(this);
-    }
+    public abstract Iterator<K> keyIterator();
 
     /* (non-Javadoc)
-     * @see java.lang.Object#toString()
+     * @see java.lang.Object#clone()
      */
-    public String toString()
-    {
-        return map.toString();
-    }
+    public abstract AssocArray<K, V> clone();
 }
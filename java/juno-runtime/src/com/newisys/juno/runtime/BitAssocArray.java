@@ -15,40 +15,26 @@
  * specific language governing permissions and limitations under the License.
  */
 
+
 package com.newisys.juno.runtime;
 
 import com.newisys.verilog.util.BitVector;
 
 /**
- * BitVector-keyed associative array.
+ * Base class of BitVector-keyed associative arrays. Keys containing X/Z
+ * values are rejected, and {@link #first} and {@link #next} return
+ * {@link #NULL_KEY} when there are no more keys.
  *
  * @param <V> value type
  * @author Trevor Robinson
+ * @see SortedBitAssocArray
+ * @see LongAssocArray
  */
-public class BitAssocArray<V>
+public abstract class BitAssocArray<V>
     extends AssocArray<BitVector, V>
 {
     public static final BitVector NULL_KEY = new BitVector(64);
 
-    /**
-     * Creates a BitAssocArray with a default value of null.
-     */
-    public BitAssocArray()
-    {
-    }
-
-    /**
-     * Creates a BitAssocArray with the specified default value. If a key is
-     * requested that does not exist in this array, the default value will be
-     * returned.
-     *
-     * @param nullValue the default value for this array
-     */
-    public BitAssocArray(V nullValue)
-    {
-        super(nullValue);
-    }
-
     /**
      * Creates a BitAssocArray with the specified default value factory. If a
      * key is requested that does not exist in this array, the factory will be
@@ -56,17 +42,18 @@ public class BitAssocArray<V>
      *
      * @param nullValueFactory the value factory used to create default values
      */
-    public BitAssocArray(ValueFactory< ? extends V> nullValueFactory)
+    protected BitAssocArray(ValueFactory< ? extends V> nullValueFactory)
     {
         super(nullValueFactory);
     }
 
     /**
-     * Creates a BitAssocArray which is a copy of the specified array.
+     * Creates a BitAssocArray with the same default value factory as the
+     * specified array.
      *
      * @param other the array to copy
      */
-    public BitAssocArray(BitAssocArray< ? extends V> other)
+    protected BitAssocArray(BitAssocArray< ? extends V> other)
     {
         super(other);
     }
@@ -77,7 +64,7 @@ public class BitAssocArray<V>
      *
      * @param key the BitVector to validate
      */
-    private void validateKey(BitVector key)
+    protected final void validateKey(BitVector key)
     {
         if (key.containsXZ())
         {
@@ -86,81 +73,8 @@ public class BitAssocArray<V>
         }
     }
 
-    /**
-     * Gets the value for the specified key from this associative array.
-     *
-     * @param key the key whose associated value is to be returned
-     * @return the value which maps to the specified key, or the default value
-     *      if this associative array contains no mapping for this key
-     * @throws RuntimeException if key contains X/Z
-     */
-    public V get(BitVector key)
-    {
-        validateKey(key);
-        return super.get(key);
-    }
-
-    /**
-     * Gets the value for the specified key from this associative array. If the
-     * array contains no mapping for the key, a mapping is added to the default
-     * value.
-     *
-     * @param key the key whose associated value is to be returned
-     * @return the value which maps to the specified key, or the default value
-     *      if this associative array contains no mapping for this key
-     * @throws RuntimeException if key contains X/Z
-     */
-    public V getOrCreate(BitVector key)
-    {
-        validateKey(key);
-        return super.getOrCreate(key);
-    }
-
-    /**
-     * Associates the specified value with the specified key in this
-     * associative array.
-     *
-     * @param key the key with which the specified value is to be associated
-     * @param value the value to be associated with the specified key
-     */
-    public void put(BitVector key, V value)
-    {
-        validateKey(key);
-        super.put(key, value);
-    }
-
-    /**
-     * Returns the first key in this associative array. This method can be used
-     * with {@link #next} to iterate all keys in the array.
-     *
-     * @return the first key in this associative array, or X if this array is
-     *      empty
-     */
-    public BitVector first()
-    {
-        BitVector first = super.first();
-        return first != null ? first : NULL_KEY;
-    }
-
-    /**
-     * Returns the key following the given key in this associative array. This
-     * method can be used with {@link #first} to iterate all keys in the array.
-     *
-     * @param prevKey a previously returned key
-     * @return the key following <code>prevKey</code> in this associative
-     *      array, or X if there are no more keys
-     */
-    public BitVector next(BitVector prevKey)
-    {
-        BitVector next = super.next(prevKey);
-        return next != null ? next : NULL_KEY;
-    }
-
     /* (non-Javadoc)
      * @see java.lang.Object#clone()
      */
-    public BitAssocArray<V> clone()
-    {
-        return new BitAssocArray<V>(this);
-    }
+    public abstract BitAssocArray<V> clone();
 }
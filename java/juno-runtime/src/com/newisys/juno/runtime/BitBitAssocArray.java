@@ -25,7 +25,7 @@ import com.newisys.verilog.util.BitVector;
  * @author Trevor Robinson
  */
 public final class BitBitAssocArray
-    extends BitAssocArray<BitVector>
+    extends SortedBitAssocArray<BitVector>
 {
     private final int valueLength;
 
@@ -23,7 +23,7 @@ package com.newisys.juno.runtime;
  * @author Trevor Robinson
  */
 public final class BitObjectAssocArray
-    extends BitAssocArray<Object>
+    extends SortedBitAssocArray<Object>
 {
     /**
      * Creates a BitObjectAssocArray.
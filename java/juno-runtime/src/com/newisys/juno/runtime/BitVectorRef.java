@@ -0,0 +1,77 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.juno.runtime;
+
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Mutable holder for a BitVector passed by reference. Translated code uses
+ * BitVectorRef instead of a one-element BitVector array for by-reference
+ * arguments of runtime methods.
+ *
+ * @author Trevor Robinson
+ */
+public final class BitVectorRef
+{
+    /**
+     * The referenced value.
+     */
+    public BitVector value;
+
+    /**
+     * Creates a BitVectorRef holding null.
+     */
+    public BitVectorRef()
+    {
+    }
+
+    /**
+     * Creates a BitVectorRef holding the given value.
+     *
+     * @param value the initial value
+     */
+    public BitVectorRef(BitVector value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Returns the referenced value.
+     *
+     * @return the referenced value
+     */
+    public BitVector get()
+    {
+        return value;
+    }
+
+    /**
+     * Sets the referenced value.
+     *
+     * @param value the new value
+     */
+    public void set(BitVector value)
+    {
+        this.value = value;
+    }
+
+    public String toString()
+    {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Loader for large constant array initializers that the translator emits as
+ * binary resources rather than as array initializer bytecode, which is
+ * limited to 64 KB per class initializer and is interpreted only once.
+ * Translated code loads each table into a static field of a private nested
+ * holder class, so a table is not read until it is first used, and copies
+ * the table into each array it initializes.
+ * <P>
+ * A table resource is a big-endian element count and element width, each a
+ * 32-bit integer, followed by the elements. Elements up to 32 bits wide are
+ * stored as 32-bit integers; wider elements (up to 64 bits) are stored as
+ * 64-bit integers.
+ *
+ * @author Trevor Robinson
+ */
+public final class ConstantTable
+{
+    private ConstantTable()
+    {
+    }
+
+    /**
+     * Loads a table of integer elements.
+     *
+     * @param cls the class relative to which the resource is located
+     * @param name the name of the table resource
+     * @return a new array containing the table elements
+     * @throws RuntimeException if the resource cannot be read
+     */
+    public static int[] loadIntArray(Class cls, String name)
+    {
+        final ByteBuffer buf = readTable(cls, name);
+        final int count = buf.getInt();
+        checkWidth(name, buf.getInt(), 32);
+        final int[] result = new int[count];
+        buf.asIntBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * Loads a table of integer elements as wrapper objects.
+     *
+     * @param cls the class relative to which the resource is located
+     * @param name the name of the table resource
+     * @return a new array containing the table elements
+     * @throws RuntimeException if the resource cannot be read
+     */
+    public static Integer[] loadIntegerArray(Class cls, String name)
+    {
+        final int[] values = loadIntArray(cls, name);
+        final Integer[] result = new Integer[values.length];
+        for (int i = 0; i < values.length; ++i)
+        {
+            result[i] = Integer.valueOf(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Loads a table of bit vector elements.
+     *
+     * @param cls the class relative to which the resource is located
+     * @param name the name of the table resource
+     * @return a new array containing the table elements
+     * @throws RuntimeException if the resource cannot be read
+     */
+    public static BitVector[] loadBitVectorArray(Class cls, String name)
+    {
+        final ByteBuffer buf = readTable(cls, name);
+        final int count = buf.getInt();
+        final int width = buf.getInt();
+        checkWidth(name, width, 64);
+        final BitVector[] result = new BitVector[count];
+        if (width <= 32)
+        {
+            final int[] values = new int[count];
+            buf.asIntBuffer().get(values);
+            for (int i = 0; i < count; ++i)
+            {
+                result[i] = new BitVector(width, values[i] & 0xFFFFFFFFL);
+            }
+        }
+        else
+        {
+            final long[] values = new long[count];
+            buf.asLongBuffer().get(values);
+            for (int i = 0; i < count; ++i)
+            {
+                result[i] = new BitVector(width, values[i]);
+            }
+        }
+        return result;
+    }
+
+    private static void checkWidth(String name, int width, int maxWidth)
+    {
+        if (width <= 0 || width > maxWidth)
+        {
+            throw new RuntimeException("Invalid element width in constant table "
+                + name + ": " + width);
+        }
+    }
+
+    private static ByteBuffer readTable(Class cls, String name)
+    {
+        final InputStream in = cls.getResourceAsStream(name);
+        if (in == null)
+        {
+            throw new RuntimeException("Constant table resource not found: "
+                + name);
+        }
+        try
+        {
+            try
+            {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    Math.max(in.available(), 8192));
+                final byte[] chunk = new byte[8192];
+                int len;
+                while ((len = in.read(chunk)) > 0)
+                {
+                    out.write(chunk, 0, len);
+                }
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error reading constant table resource "
+                + name, e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+/**
+ * Base class for fixed-size arrays of two-state values stored in a single
+ * flat primitive array. Multi-dimensional indices are mapped to flat indices
+ * in row-major order by the {@link #index} methods, which check each index
+ * against its dimension.
+ * <P>
+ * Elements that hold X are tracked in a side bitset. Like nested Vera fixed
+ * arrays, every element starts out as X, so the bitset is allocated on
+ * creation; it is discarded once every element has been assigned a known
+ * value, and only reallocated if an X value is stored again.
+ *
+ * @author Trevor Robinson
+ */
+public abstract class FlatArray
+{
+    protected final int width;
+    private final int[] dims;
+    protected final int length;
+
+    // bitset of elements holding X; null when no elements are X
+    private long[] xBits;
+    private int xCount;
+
+    /**
+     * Creates a FlatArray with the given element width and dimensions. All
+     * elements are initially X.
+     *
+     * @param width the width of each element in bits
+     * @param dims the size of each dimension
+     */
+    protected FlatArray(int width, int... dims)
+    {
+        if (dims.length == 0)
+        {
+            throw new IllegalArgumentException("At least one dimension required");
+        }
+        int length = 1;
+        for (int i = 0; i < dims.length; ++i)
+        {
+            if (dims[i] < 0)
+            {
+                throw new IllegalArgumentException("Negative dimension: "
+                    + dims[i]);
+            }
+            length *= dims[i];
+        }
+        this.width = width;
+        this.dims = dims.clone();
+        this.length = length;
+
+        if (length > 0)
+        {
+            xBits = new long[(length + 63) >>> 6];
+            for (int i = 0; i < length; i += 64)
+            {
+                final int count = length - i;
+                xBits[i >>> 6] = count >= 64 ? -1L : (1L << count) - 1;
+            }
+            xCount = length;
+        }
+    }
+
+    /**
+     * Creates a FlatArray which is a copy of the specified array.
+     *
+     * @param other the array to copy
+     */
+    protected FlatArray(FlatArray other)
+    {
+        this.width = other.width;
+        this.dims = other.dims;
+        this.length = other.length;
+        this.xBits = other.xBits != null ? other.xBits.clone() : null;
+        this.xCount = other.xCount;
+    }
+
+    /**
+     * Returns the width of each element in bits.
+     *
+     * @return the element width
+     */
+    public final int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the total number of elements in this array.
+     *
+     * @return the element count
+     */
+    public final int length()
+    {
+        return length;
+    }
+
+    /**
+     * Returns the size of each dimension of this array.
+     *
+     * @return a copy of the dimension sizes
+     */
+    public final int[] getDimensions()
+    {
+        return dims.clone();
+    }
+
+    private int checkIndex(int i, int dim)
+    {
+        if (i < 0 || i >= dims[dim])
+        {
+            throw new ArrayIndexOutOfBoundsException(i);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the flat index of the given element of a two-dimensional
+     * array.
+     *
+     * @param i the index in the first dimension
+     * @param j the index in the second dimension
+     * @return the flat index of the element
+     * @throws ArrayIndexOutOfBoundsException if any index is out of range
+     */
+    public final int index(int i, int j)
+    {
+        return checkIndex(i, 0) * dims[1] + checkIndex(j, 1);
+    }
+
+    /**
+     * Returns the flat index of the given element of a three-dimensional
+     * array.
+     *
+     * @param i the index in the first dimension
+     * @param j the index in the second dimension
+     * @param k the index in the third dimension
+     * @return the flat index of the element
+     * @throws ArrayIndexOutOfBoundsException if any index is out of range
+     */
+    public final int index(int i, int j, int k)
+    {
+        return (checkIndex(i, 0) * dims[1] + checkIndex(j, 1)) * dims[2]
+            + checkIndex(k, 2);
+    }
+
+    /**
+     * Returns the flat index of the given element.
+     *
+     * @param indices the index in each dimension
+     * @return the flat index of the element
+     * @throws ArrayIndexOutOfBoundsException if any index is out of range
+     */
+    public final int index(int... indices)
+    {
+        assert (indices.length == dims.length);
+        int result = 0;
+        for (int i = 0; i < indices.length; ++i)
+        {
+            result = result * dims[i] + checkIndex(indices[i], i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the element at the given flat index is X.
+     *
+     * @param index the flat index of the element
+     * @return true if the element is X
+     */
+    public final boolean isX(int index)
+    {
+        return xBits != null && (xBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns whether any element of this array is X.
+     *
+     * @return true if at least one element is X
+     */
+    public final boolean containsX()
+    {
+        return xCount > 0;
+    }
+
+    protected final void markX(int index)
+    {
+        if (xBits == null)
+        {
+            xBits = new long[(length + 63) >>> 6];
+        }
+        final int word = index >>> 6;
+        final long bit = 1L << index;
+        if ((xBits[word] & bit) == 0)
+        {
+            xBits[word] |= bit;
+            ++xCount;
+        }
+    }
+
+    protected final void clearX(int index)
+    {
+        if (xBits != null)
+        {
+            final int word = index >>> 6;
+            final long bit = 1L << index;
+            if ((xBits[word] & bit) != 0)
+            {
+                if (--xCount == 0)
+                {
+                    xBits = null;
+                }
+                else
+                {
+                    xBits[word] &= ~bit;
+                }
+            }
+        }
+    }
+
+    protected abstract void appendValue(StringBuffer buf, int index);
+
+    @Override
+    public String toString()
+    {
+        final StringBuffer buf = new StringBuffer(length * 4 + 2);
+        buf.append('[');
+        for (int i = 0; i < length; ++i)
+        {
+            if (i > 0) buf.append(", ");
+            if (isX(i))
+            {
+                buf.append('X');
+            }
+            else
+            {
+                appendValue(buf, i);
+            }
+        }
+        buf.append(']');
+        return buf.toString();
+    }
+}
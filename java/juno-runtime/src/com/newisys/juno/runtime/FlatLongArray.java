@@ -0,0 +1,134 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Fixed-size array of two-state bit vectors of 33 to 64 bits, stored in a
+ * single long array. Used by translated code in place of nested BitVector
+ * arrays when stores to the array are known not to be X/Z.
+ *
+ * @author Trevor Robinson
+ */
+public final class FlatLongArray
+    extends FlatArray
+{
+    private final long mask;
+    private final long[] values;
+
+    /**
+     * Creates a FlatLongArray with the given element width and dimensions.
+     * All elements are initially X.
+     *
+     * @param width the width of each element in bits (1 to 64)
+     * @param dims the size of each dimension
+     */
+    public FlatLongArray(int width, int... dims)
+    {
+        super(width, dims);
+        if (width < 1 || width > 64)
+        {
+            throw new IllegalArgumentException("Invalid element width: "
+                + width);
+        }
+        this.mask = width < 64 ? (1L << width) - 1 : -1L;
+        this.values = new long[length];
+    }
+
+    /**
+     * Creates a FlatLongArray which is a copy of the specified array.
+     *
+     * @param other the array to copy
+     */
+    public FlatLongArray(FlatLongArray other)
+    {
+        super(other);
+        this.mask = other.mask;
+        this.values = other.values.clone();
+    }
+
+    /**
+     * Returns the element at the given flat index as a BitVector.
+     *
+     * @param index the flat index of the element
+     * @return the element value, which is all X if the element is X
+     */
+    public BitVector getBitVector(int index)
+    {
+        final long value = values[index];
+        if (isX(index)) return new BitVector(width, Bit.X);
+        return new BitVector(width, value);
+    }
+
+    /**
+     * Returns the element at the given flat index as a long, without
+     * allocating. Like the checked conversions of BitVector values to
+     * primitives, this fails for X elements.
+     *
+     * @param index the flat index of the element
+     * @return the element value
+     * @throws IllegalArgumentException if the element is X
+     */
+    public long getLong(int index)
+    {
+        if (isX(index))
+        {
+            throw new IllegalArgumentException("Value contains X/Z");
+        }
+        return values[index];
+    }
+
+    /**
+     * Sets the element at the given flat index from a BitVector. Values
+     * containing X or Z bits make the entire element X.
+     *
+     * @param index the flat index of the element
+     * @param value the new element value
+     */
+    public void setBitVector(int index, BitVector value)
+    {
+        if (value.containsXZ())
+        {
+            values[index] = 0;
+            markX(index);
+        }
+        else
+        {
+            setLong(index, value.longValue());
+        }
+    }
+
+    /**
+     * Sets the element at the given flat index from a long.
+     *
+     * @param index the flat index of the element
+     * @param value the new element value
+     */
+    public void setLong(int index, long value)
+    {
+        values[index] = value & mask;
+        clearX(index);
+    }
+
+    @Override
+    protected void appendValue(StringBuffer buf, int index)
+    {
+        buf.append(Long.toHexString(values[index]));
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.newisys.dv.DV;
+
+/**
+ * Profile data for a single translated Vera function. When the translator is
+ * run with profiling enabled, each generated method calls {@link #enter} on
+ * entry and {@link #exit} on exit, using a profile registered once per
+ * function in a static constant of the generated class.
+ * <P>
+ * For each function, the profile records the number of calls, the total
+ * (inclusive) and self (exclusive of profiled callees) elapsed time, and the
+ * simulation time that elapsed during its calls. Each thread keeps its own
+ * stack of active calls in a thread-local, so time is attributed correctly to
+ * functions running in different threads, and also accumulates the counts of
+ * its completed calls there, so recording a call takes no lock. The counts of
+ * a thread are merged into the profiles when the thread finishes, and those
+ * of running threads are added in when the profile is read. Simulation
+ * threads run one at a time, so the reader sees up-to-date counts.
+ * Blocking operations bracket the time a thread spends blocked with
+ * {@link #pause} and {@link #resume}, so that it is excluded from the elapsed
+ * time of its active calls; it is reflected only in their simulation time.
+ * Inclusive times of recursive functions include their nested calls.
+ * 
+ * @author Trevor Robinson
+ */
+public final class FunctionProfile
+{
+    // registered profiles; also guards the merged counts of all profiles
+    // and the set of live call stacks
+    private static final Map<String, FunctionProfile> profiles = new LinkedHashMap<String, FunctionProfile>();
+
+    private static final ThreadLocal<CallStack> callStack = new ThreadLocal<CallStack>();
+
+    // call stacks of threads whose counts have not been merged yet
+    private static final Set<CallStack> liveStacks = new HashSet<CallStack>();
+
+    // set once any function has been registered, so that pause and resume
+    // cost almost nothing when profiling is disabled
+    private static volatile boolean enabled;
+
+    private final String name;
+
+    // index of the counts of this function in each call stack
+    private final int index;
+
+    // counts merged from finished threads
+    private long callCount;
+    private long totalTime;
+    private long selfTime;
+    private long simTime;
+
+    private FunctionProfile(String name, int index)
+    {
+        this.name = name;
+        this.index = index;
+    }
+
+    /**
+     * Returns the profile for the function with the given name, creating it
+     * if necessary.
+     *
+     * @param name the qualified Vera name of the function
+     * @return the FunctionProfile for the function
+     */
+    public static FunctionProfile register(String name)
+    {
+        synchronized (profiles)
+        {
+            FunctionProfile profile = profiles.get(name);
+            if (profile == null)
+            {
+                profile = new FunctionProfile(name, profiles.size());
+                profiles.put(name, profile);
+                enabled = true;
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * Returns the qualified Vera name of the profiled function.
+     *
+     * @return the function name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getCallCount()
+    {
+        synchronized (profiles)
+        {
+            long result = callCount;
+            for (CallStack stack : liveStacks)
+            {
+                result += stack.get(stack.callCounts, index);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the total elapsed time of all calls, in nanoseconds.
+     *
+     * @return the total (inclusive) time
+     */
+    public long getTotalTime()
+    {
+        synchronized (profiles)
+        {
+            long result = totalTime;
+            for (CallStack stack : liveStacks)
+            {
+                result += stack.get(stack.totalTimes, index);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the elapsed time of all calls, excluding time spent in profiled
+     * callees, in nanoseconds.
+     *
+     * @return the self (exclusive) time
+     */
+    public long getSelfTime()
+    {
+        synchronized (profiles)
+        {
+            long result = selfTime;
+            for (CallStack stack : liveStacks)
+            {
+                result += stack.get(stack.selfTimes, index);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the total simulation time that elapsed during all calls.
+     *
+     * @return the simulation time, in simulation time units
+     */
+    public long getSimTime()
+    {
+        synchronized (profiles)
+        {
+            long result = simTime;
+            for (CallStack stack : liveStacks)
+            {
+                result += stack.get(stack.simTimes, index);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Records entry into a call of this function by the current thread.
+     */
+    public void enter()
+    {
+        getCallStack().push(this, DV.simulation.getSimTime(), System
+            .nanoTime());
+    }
+
+    /**
+     * Records exit from the current call of this function by the current
+     * thread.
+     */
+    public void exit()
+    {
+        final long endTime = System.nanoTime();
+        getCallStack().pop(this, DV.simulation.getSimTime(), endTime);
+    }
+
+    /**
+     * Suspends timing of the active calls of the current thread. This method
+     * is called before the thread blocks, and must be followed by a call to
+     * {@link #resume} once it continues. Calls may be nested.
+     */
+    public static void pause()
+    {
+        if (enabled)
+        {
+            getCallStack().pause(System.nanoTime());
+        }
+    }
+
+    /**
+     * Resumes timing of the active calls of the current thread after a
+     * matching call to {@link #pause}.
+     */
+    public static void resume()
+    {
+        if (enabled)
+        {
+            getCallStack().resume(System.nanoTime());
+        }
+    }
+
+    private static CallStack getCallStack()
+    {
+        CallStack stack = callStack.get();
+        if (stack == null)
+        {
+            stack = new CallStack();
+            callStack.set(stack);
+            synchronized (profiles)
+            {
+                liveStacks.add(stack);
+            }
+        }
+        return stack;
+    }
+
+    /**
+     * Returns whether any function has been registered for profiling.
+     *
+     * @return true if profiling is enabled
+     */
+    static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Merges the counts of the current thread into the profiles and discards
+     * its call stack. This method is called when a forked thread finishes;
+     * the Java thread may go on to run another simulation thread.
+     */
+    static void threadFinished()
+    {
+        final CallStack stack = callStack.get();
+        if (stack != null)
+        {
+            callStack.remove();
+            synchronized (profiles)
+            {
+                liveStacks.remove(stack);
+                for (FunctionProfile profile : profiles.values())
+                {
+                    final int i = profile.index;
+                    profile.callCount += stack.get(stack.callCounts, i);
+                    profile.totalTime += stack.get(stack.totalTimes, i);
+                    profile.selfTime += stack.get(stack.selfTimes, i);
+                    profile.simTime += stack.get(stack.simTimes, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a Runnable that runs <code>r</code> and then merges the profile
+     * counts of its thread.
+     *
+     * @param r the Runnable to be executed by a forked thread
+     * @return the wrapping Runnable
+     */
+    static Runnable newProfiledRunnable(final Runnable r)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    r.run();
+                }
+                finally
+                {
+                    threadFinished();
+                }
+            }
+        };
+    }
+
+    private static int profileCount()
+    {
+        synchronized (profiles)
+        {
+            return profiles.size();
+        }
+    }
+
+    /**
+     * Discards all profile data collected so far.
+     */
+    public static void reset()
+    {
+        synchronized (profiles)
+        {
+            for (FunctionProfile profile : profiles.values())
+            {
+                profile.callCount = 0;
+                profile.totalTime = 0;
+                profile.selfTime = 0;
+                profile.simTime = 0;
+            }
+            for (CallStack stack : liveStacks)
+            {
+                stack.clearCounts();
+            }
+        }
+    }
+
+    /**
+     * Writes a report of all functions that have been called, in descending
+     * order of self time.
+     *
+     * @param out the writer to which the report is written
+     */
+    public static void writeReport(PrintWriter out)
+    {
+        final List<FunctionProfile> called = new ArrayList<FunctionProfile>();
+        synchronized (profiles)
+        {
+            for (FunctionProfile profile : profiles.values())
+            {
+                if (profile.getCallCount() > 0) called.add(profile);
+            }
+        }
+        Collections.sort(called, new Comparator<FunctionProfile>()
+        {
+            public int compare(FunctionProfile p1, FunctionProfile p2)
+            {
+                final long t1 = p1.getSelfTime();
+                final long t2 = p2.getSelfTime();
+                return t1 > t2 ? -1 : (t1 < t2 ? 1 : 0);
+            }
+        });
+
+        out.println(String.format("%12s %12s %12s %14s  %s", "calls",
+            "self ms", "total ms", "sim time", "function"));
+        for (FunctionProfile profile : called)
+        {
+            out.println(String.format("%12d %12.3f %12.3f %14d  %s", profile
+                .getCallCount(), profile.getSelfTime() / 1e6, profile
+                .getTotalTime() / 1e6, profile.getSimTime(), profile.name));
+        }
+    }
+
+    /**
+     * Stack of the active profiled calls of a thread, along with the counts
+     * of its completed calls, indexed by function.
+     */
+    private static final class CallStack
+    {
+        private FunctionProfile[] functions = new FunctionProfile[16];
+        private long[] startSimTimes = new long[16];
+        private long[] startTimes = new long[16];
+        private long[] calleeTimes = new long[16];
+        private long[] startBlockedTimes = new long[16];
+        private int depth;
+
+        // total time spent blocked, and the start of the current blocking
+        // operation if pauseDepth is non-zero
+        private long blockedTime;
+        private long pauseStartTime;
+        private int pauseDepth;
+
+        long[] callCounts = new long[0];
+        long[] totalTimes = new long[0];
+        long[] selfTimes = new long[0];
+        long[] simTimes = new long[0];
+
+        void push(FunctionProfile function, long simTime, long time)
+        {
+            if (depth == functions.length)
+            {
+                grow();
+            }
+            functions[depth] = function;
+            startSimTimes[depth] = simTime;
+            startTimes[depth] = time;
+            calleeTimes[depth] = 0;
+            startBlockedTimes[depth] = blockedTime;
+            ++depth;
+        }
+
+        void pause(long time)
+        {
+            if (pauseDepth++ == 0)
+            {
+                pauseStartTime = time;
+            }
+        }
+
+        void resume(long time)
+        {
+            if (pauseDepth > 0 && --pauseDepth == 0)
+            {
+                blockedTime += time - pauseStartTime;
+            }
+        }
+
+        void pop(FunctionProfile function, long simTime, long time)
+        {
+            // ignore an unmatched exit, such as one following a failed enter
+            if (depth == 0 || functions[depth - 1] != function) return;
+
+            // a call may exit while paused if a blocking operation throws
+            if (pauseDepth > 0)
+            {
+                blockedTime += time - pauseStartTime;
+                pauseDepth = 0;
+            }
+
+            --depth;
+            functions[depth] = null;
+            final long total = time - startTimes[depth]
+                - (blockedTime - startBlockedTimes[depth]);
+            addCall(function.index, total, total - calleeTimes[depth],
+                simTime - startSimTimes[depth]);
+            if (depth > 0)
+            {
+                calleeTimes[depth - 1] += total;
+            }
+        }
+
+        private void addCall(int index, long total, long self, long sim)
+        {
+            if (index >= callCounts.length)
+            {
+                // profiles are registered as classes load, so size the counts
+                // for all functions registered so far
+                final int newLength = Math.max(index + 1, profileCount());
+                callCounts = grow(callCounts, callCounts.length, newLength);
+                totalTimes = grow(totalTimes, totalTimes.length, newLength);
+                selfTimes = grow(selfTimes, selfTimes.length, newLength);
+                simTimes = grow(simTimes, simTimes.length, newLength);
+            }
+            ++callCounts[index];
+            totalTimes[index] += total;
+            selfTimes[index] += self;
+            simTimes[index] += sim;
+        }
+
+        long get(long[] counts, int index)
+        {
+            return index < counts.length ? counts[index] : 0;
+        }
+
+        void clearCounts()
+        {
+            callCounts = new long[0];
+            totalTimes = new long[0];
+            selfTimes = new long[0];
+            simTimes = new long[0];
+        }
+
+        private void grow()
+        {
+            final int newLength = functions.length * 2;
+            final FunctionProfile[] newFunctions = new FunctionProfile[newLength];
+            System.arraycopy(functions, 0, newFunctions, 0, depth);
+            functions = newFunctions;
+            startSimTimes = grow(startSimTimes, depth, newLength);
+            startTimes = grow(startTimes, depth, newLength);
+            calleeTimes = grow(calleeTimes, depth, newLength);
+            startBlockedTimes = grow(startBlockedTimes, depth, newLength);
+        }
+
+        private static long[] grow(long[] array, int length, int newLength)
+        {
+            final long[] newArray = new long[newLength];
+            System.arraycopy(array, 0, newArray, 0, length);
+            return newArray;
+        }
+    }
+}
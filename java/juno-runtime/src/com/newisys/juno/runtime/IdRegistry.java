@@ -0,0 +1,174 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.util.BitSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Dense registry of objects indexed by small non-negative integer IDs, used
+ * by the Juno runtime for semaphores and mailboxes. Lookups index directly
+ * into an array without boxing the ID, and free ranges are found using a
+ * bitmap of the allocated IDs. IDs at or above a fixed limit are kept in a
+ * sorted map instead, so that a single large ID does not allocate a huge
+ * array.
+ *
+ * @param <T> the type of registered object
+ * @author Trevor Robinson
+ */
+final class IdRegistry<T>
+{
+    private static final int DENSE_LIMIT = 1 << 16;
+
+    private Object[] objects = new Object[16];
+    private final BitSet used = new BitSet();
+    private SortedMap<Integer, T> sparse;
+
+    /**
+     * Returns the object registered with the given ID.
+     *
+     * @param id the ID of the object
+     * @return the object with the given ID, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id)
+    {
+        if (id >= 0 && id < objects.length) return (T) objects[id];
+        return (id >= DENSE_LIMIT && sparse != null) ? sparse.get(id) : null;
+    }
+
+    /**
+     * Returns whether an object is registered with the given ID.
+     *
+     * @param id the ID to check
+     * @return true if an object has the given ID
+     */
+    public boolean contains(int id)
+    {
+        if (id < DENSE_LIMIT) return id >= 0 && used.get(id);
+        return sparse != null && sparse.containsKey(id);
+    }
+
+    /**
+     * Registers an object with the given ID, replacing any existing object.
+     *
+     * @param id the ID of the object
+     * @param obj the object to register
+     * @throws IllegalArgumentException if the ID is negative
+     */
+    public void put(int id, T obj)
+    {
+        if (id < 0)
+        {
+            throw new IllegalArgumentException("Invalid ID: " + id);
+        }
+        if (id >= DENSE_LIMIT)
+        {
+            if (sparse == null)
+            {
+                sparse = new TreeMap<Integer, T>();
+            }
+            sparse.put(id, obj);
+            return;
+        }
+        if (id >= objects.length)
+        {
+            long newLength = (long) objects.length * 2;
+            while (newLength <= id)
+            {
+                newLength *= 2;
+            }
+            newLength = Math.min(newLength, DENSE_LIMIT);
+            final Object[] newObjects = new Object[(int) newLength];
+            System.arraycopy(objects, 0, newObjects, 0, objects.length);
+            objects = newObjects;
+        }
+        objects[id] = obj;
+        used.set(id);
+    }
+
+    /**
+     * Returns the lowest registered ID greater than or equal to the given ID.
+     *
+     * @param fromId the ID at which to start searching
+     * @return the next registered ID, or -1 if there is none
+     */
+    public int nextId(int fromId)
+    {
+        if (fromId < DENSE_LIMIT)
+        {
+            final int next = used.nextSetBit(fromId);
+            if (next >= 0) return next;
+        }
+        if (sparse == null) return -1;
+        final SortedMap<Integer, T> tail = sparse.tailMap(Math.max(fromId,
+            DENSE_LIMIT));
+        return tail.isEmpty() ? -1 : tail.firstKey();
+    }
+
+    /**
+     * Returns the lowest ID that begins a range of <code>count</code>
+     * consecutive unused IDs.
+     *
+     * @param count the number of IDs required
+     * @return the first ID of the free range
+     * @throws IllegalStateException if no such range exists
+     */
+    public int findFreeRange(int count)
+    {
+        int start = used.nextClearBit(0);
+        while (true)
+        {
+            if (start < DENSE_LIMIT)
+            {
+                final int next = used.nextSetBit(start);
+                if (next >= 0 && next - start < count)
+                {
+                    start = used.nextClearBit(next);
+                    continue;
+                }
+            }
+            if ((long) start + count > DENSE_LIMIT && sparse != null)
+            {
+                final SortedMap<Integer, T> tail = sparse.tailMap(start);
+                if (!tail.isEmpty() && tail.firstKey() < (long) start + count)
+                {
+                    final int next = tail.firstKey();
+                    if (next == Integer.MAX_VALUE)
+                    {
+                        throw new IllegalStateException("No free range of "
+                            + count + " IDs");
+                    }
+                    start = next + 1;
+                    continue;
+                }
+            }
+            return start;
+        }
+    }
+
+    /**
+     * Removes all registered objects.
+     */
+    public void clear()
+    {
+        objects = new Object[16];
+        used.clear();
+        sparse = null;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.juno.runtime;
+
+/**
+ * Mutable holder for an int passed by reference. Translated code uses
+ * IntRef instead of a one-element int array for by-reference arguments of
+ * runtime methods, so that the holder type documents its purpose and runtime
+ * methods can read and update the value without boxing.
+ *
+ * @author Trevor Robinson
+ */
+public final class IntRef
+{
+    /**
+     * The referenced value.
+     */
+    public int value;
+
+    /**
+     * Creates an IntRef holding 0.
+     */
+    public IntRef()
+    {
+    }
+
+    /**
+     * Creates an IntRef holding the given value.
+     *
+     * @param value the initial value
+     */
+    public IntRef(int value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Returns the referenced value.
+     *
+     * @return the referenced value
+     */
+    public int get()
+    {
+        return value;
+    }
+
+    /**
+     * Sets the referenced value.
+     *
+     * @param value the new value
+     */
+    public void set(int value)
+    {
+        this.value = value;
+    }
+
+    public String toString()
+    {
+        return String.valueOf(value);
+    }
+}
@@ -21,18 +21,22 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -48,9 +52,8 @@ import com.newisys.dv.Signal;
 import com.newisys.eventsim.Event;
 import com.newisys.eventsim.SimulationThread;
 import com.newisys.printf.VeraPrintfFormatter;
-import com.newisys.random.LinearCongruentialFactory;
+import com.newisys.printf.VeraPrintfPlan;
 import com.newisys.random.PRNG;
-import com.newisys.random.PRNGFactoryFactory;
 import com.newisys.util.system.SystemUtil;
 import com.newisys.util.text.TextUtil;
 import com.newisys.verilog.EdgeSet;
@@ -77,12 +80,6 @@ public final class Juno
      */
     public static ClockSignal systemClock;
 
-    /**
-     * Map of SimulationThread objects to the current JunoThreadContext for each
-     * thread.
-     */
-    private static Map<SimulationThread, JunoThreadContext> threadContextMap;
-
     /**
      * Property set representing the plus-args.
      */
@@ -92,7 +89,8 @@ public final class Juno
     {
         systemClock = DV.simulation.getDefaultClockSignal();
 
-        threadContextMap = new HashMap<SimulationThread, JunoThreadContext>();
+        JunoThreadContext.clearCurrent();
+        JunoMetrics.start();
         props = new Properties();
 
         // load default properties from file
@@ -457,19 +455,163 @@ public final class Juno
      */
     public static int assoc_index(int op, AssocArray array, int[] index_ref)
     {
-        // perform manual boxing/unboxing operations and call the Object[]
-        // version of assoc_index.
         if (index_ref == null || index_ref.length != 1)
         {
             throw new IllegalArgumentException(
                 "assoc_index: index reference must be single-element array");
         }
 
-        Integer[] new_index_ref = new Integer[1];
-        new_index_ref[0] = index_ref[0];
-        final int status = assoc_index(op, array, new_index_ref);
-        index_ref[0] = new_index_ref[0];
-        return status;
+        if (op == CHECK || op == DELETE)
+        {
+            return assoc_index_int(op, array, index_ref[0]);
+        }
+        final BitVector bitIndex = assoc_index_bit(op, array,
+            op == NEXT ? toIndexBitVector(index_ref[0]) : null);
+        if (bitIndex == null)
+        {
+            // leave index_ref unchanged if first()/next() fails
+            return 0;
+        }
+        index_ref[0] = bitIndex.intValue();
+        return 1;
+    }
+
+    /**
+     * See {@link #assoc_index(int, AssocArray, Object[])}. This method is
+     * identical except that the index is passed in an {@link IntRef}, which
+     * is read and updated without boxing.
+     *
+     * @param op Either {@link #FIRST}or {@link #NEXT}or {@link #CHECK} or
+     *            {@link #DELETE}
+     * @param array the array on which to perform the operation
+     * @param index_ref a holder for the index of <code>array</code> on which
+     *      to perform <code>op</code>
+     * @return see {@link #assoc_index(int, AssocArray, Object[])}
+     * @throws IllegalArgumentException if index_ref is null
+     */
+    public static int assoc_index(int op, AssocArray array, IntRef index_ref)
+    {
+        if (index_ref == null)
+        {
+            throw new IllegalArgumentException(
+                "assoc_index: index reference cannot be null");
+        }
+
+        if (op == CHECK || op == DELETE)
+        {
+            return assoc_index_int(op, array, index_ref.value);
+        }
+        final BitVector bitIndex = assoc_index_bit(op, array,
+            op == NEXT ? toIndexBitVector(index_ref.value) : null);
+        if (bitIndex == null)
+        {
+            // leave index_ref unchanged if first()/next() fails
+            return 0;
+        }
+        index_ref.value = bitIndex.intValue();
+        return 1;
+    }
+
+    /**
+     * See {@link #assoc_index(int, AssocArray, Object[])}. This method is
+     * identical except that the index is passed in a {@link BitVectorRef}.
+     *
+     * @param op Either {@link #FIRST}or {@link #NEXT}or {@link #CHECK} or
+     *            {@link #DELETE}
+     * @param array the array on which to perform the operation
+     * @param index_ref a holder for the index of <code>array</code> on which
+     *      to perform <code>op</code>
+     * @return see {@link #assoc_index(int, AssocArray, Object[])}
+     * @throws IllegalArgumentException if index_ref is null, or if the index
+     *      is null or contains an X/Z value
+     */
+    public static int assoc_index(
+        int op,
+        AssocArray array,
+        BitVectorRef index_ref)
+    {
+        if (index_ref == null)
+        {
+            throw new IllegalArgumentException(
+                "assoc_index: index reference cannot be null");
+        }
+
+        if (op == CHECK || op == DELETE)
+        {
+            return assoc_index(op, array, (Object) index_ref.value);
+        }
+        if (op == NEXT && index_ref.value == null)
+        {
+            throw new IllegalArgumentException(
+                "assoc_index: index cannot be null");
+        }
+        final BitVector bitIndex = assoc_index_bit(op, array, index_ref.value);
+        if (bitIndex == null)
+        {
+            // leave index_ref unchanged if first()/next() fails
+            return 0;
+        }
+        index_ref.value = bitIndex;
+        return 1;
+    }
+
+    /**
+     * Performs CHECK or DELETE with an int index, avoiding boxing for
+     * long-indexed arrays.
+     */
+    private static int assoc_index_int(int op, AssocArray array, int index)
+    {
+        if (array instanceof LongAssocArray)
+        {
+            final LongAssocArray< ? > longArray = (LongAssocArray) array;
+            return (op == DELETE) ? longArray.delete(index) : longArray
+                .check(index);
+        }
+        return assoc_index(op, array, new Integer(index));
+    }
+
+    /**
+     * Performs FIRST or NEXT on a bit-indexed array. Returns the found index,
+     * or null if there is no first/next index.
+     */
+    private static BitVector assoc_index_bit(
+        int op,
+        AssocArray array,
+        BitVector index)
+    {
+        if (!(array instanceof BitAssocArray))
+        {
+            throw new IllegalArgumentException(
+                "assoc_index: illegal index type for array: "
+                    + array.getClass().getName());
+        }
+
+        final BitAssocArray< ? > bitArray = (BitAssocArray) array;
+        final BitVector result;
+        if (op == FIRST)
+        {
+            result = bitArray.first();
+        }
+        else if (op == NEXT)
+        {
+            if (index.containsXZ())
+            {
+                throw new IllegalArgumentException("assoc_index: index ("
+                    + index + ") cannot contain X/Z");
+            }
+            result = bitArray.next(index);
+        }
+        else
+        {
+            throw new IllegalArgumentException(
+                "assoc_index: op must be CHECK, DELETE, FIRST, or NEXT");
+        }
+        return result.containsXZ() ? null : result;
+    }
+
+    private static BitVector toIndexBitVector(int index)
+    {
+        return new BitVector(32, index & 0xFFFFFFFFL);
     }
 
     /**
@@ -805,21 +947,23 @@ public final class Juno
     public static final int COPY_WAIT = 3;
 
     // internal variables
-    private static final Map<Integer, Semaphore> semaphoreMap = new HashMap<Integer, Semaphore>();
-    private static final Map<Integer, Mailbox<Object>> mailboxMap = new HashMap<Integer, Mailbox<Object>>();
+    private static final IdRegistry<Semaphore> semaphores = new IdRegistry<Semaphore>();
+    private static final IdRegistry<JunoRegion> regions = new IdRegistry<JunoRegion>();
+    private static final IdRegistry<JunoMailbox> mailboxes = new IdRegistry<JunoMailbox>();
 
     private static int alloc_internal(int type, int id, int count, int keyCount)
     {
-        Map<Integer, ? > objectMap;
+        IdRegistry< ? > registry;
         switch (type)
         {
         case SEMAPHORE:
-            objectMap = semaphoreMap;
+            registry = semaphores;
             break;
         case REGION:
-            throw new UnsupportedOperationException("Regions not implemented");
+            registry = regions;
+            break;
         case MAILBOX:
-            objectMap = mailboxMap;
+            registry = mailboxes;
             break;
         default:
             throw new IllegalArgumentException(
@@ -846,29 +990,12 @@ public final class Juno
         if (id == -1)
         {
             // calculate the lowest index that can hold count objects.
-            baseID = -1;
-            SortedSet<Integer> indices = new TreeSet<Integer>(objectMap
-                .keySet());
-            int allocIdx = 0;
-
-            for (int curIdx : indices)
-            {
-                if (allocIdx + count <= curIdx)
-                {
-                    // found an entry with enough capacity
-                    break;
-                }
-                else
-                {
-                    allocIdx = curIdx + 1;
-                }
-            }
-            baseID = allocIdx;
+            baseID = registry.findFreeRange(count);
         }
 
         for (int i = 0; i < count; ++i)
         {
-            if (objectMap.containsKey(baseID + i))
+            if (registry.contains(baseID + i))
             {
                 // Vera doesn't overwrite existing objects
                 continue;
@@ -879,14 +1006,14 @@ public final class Juno
             case SEMAPHORE:
                 final Semaphore semaphore = DV.simulation
                     .createSemaphore(keyCount);
-                semaphoreMap.put(baseID + i, semaphore);
+                semaphores.put(baseID + i, semaphore);
                 break;
             case REGION:
-                throw new UnsupportedOperationException(
-                    "Regions not implemented");
+                regions.put(baseID + i, new JunoRegion());
+                break;
             case MAILBOX:
                 final Mailbox<Object> mailbox = DV.simulation.createMailbox();
-                mailboxMap.put(baseID + i, mailbox);
+                mailboxes.put(baseID + i, new JunoMailbox(mailbox));
                 break;
             }
         }
@@ -965,7 +1092,7 @@ public final class Juno
         assert (keyCount >= 0);
         --semaphore_id; // indexed from 0 internally
 
-        Semaphore sem = semaphoreMap.get(semaphore_id);
+        Semaphore sem = semaphores.get(semaphore_id);
         if (sem == null)
         {
             throw new RuntimeException("Uninitialized semaphore id ["
@@ -973,6 +1100,7 @@ public final class Juno
         }
 
         sem.release(keyCount);
+        JunoMetrics.SEMAPHORE_PUTS.increment();
     }
 
     /**
@@ -995,13 +1123,14 @@ public final class Juno
         assert (op == WAIT || op == NO_WAIT);
         --semaphore_id; // indexed from 0 internally
 
-        Semaphore sem = semaphoreMap.get(semaphore_id);
+        Semaphore sem = semaphores.get(semaphore_id);
         if (sem == null)
         {
             throw new RuntimeException("Uninitialized semaphore id ["
                 + semaphore_id + "] for semaphore_get");
         }
 
+        JunoMetrics.SEMAPHORE_GETS.increment();
         boolean attemptSuccessful = false;
         if (op == NO_WAIT)
         {
@@ -1010,14 +1139,30 @@ public final class Juno
         else
         {
             assert (op == WAIT);
-            sem.acquire(keyCount);
+            // when collecting metrics, try first to detect whether we block
+            if (!JunoMetrics.ENABLED || !sem.attempt(keyCount))
+            {
+                JunoMetrics.SEMAPHORE_WAITS.increment();
+                FunctionProfile.pause();
+                try
+                {
+                    sem.acquire(keyCount);
+                }
+                finally
+                {
+                    FunctionProfile.resume();
+                }
+            }
             attemptSuccessful = true;
         }
         return (attemptSuccessful == true ? 1 : 0);
     }
 
     /**
-     * NOTE: region_enter is currently unsupported.
+     * Enter a given region for a set of values. The values are locked
+     * atomically: either all of them are acquired or none are. While a thread
+     * holds a value, other threads attempting to enter the region for that
+     * value will fail or block until it is released by region_exit.
      * @param op One of {@link #WAIT} or {@link #NO_WAIT}. If op == WAIT, the
      * thread will block until the region can be entered. If op == NO_WAIT, the
      * thread will not block and the return value can be examined to check for
@@ -1028,22 +1173,37 @@ public final class Juno
      */
     public static int region_enter(int op, int region_id, Object[] values)
     {
-        // DEFERRED: region_enter
         assert (op == WAIT || op == NO_WAIT);
         --region_id; // indexed from 0 internally
-        throw new UnsupportedOperationException("region_enter()");
+
+        JunoRegion region = regions.get(region_id);
+        if (region == null)
+        {
+            throw new RuntimeException("Uninitialized region id ["
+                + region_id + "] for region_enter");
+        }
+
+        return region.enter(op == WAIT, values) ? 1 : 0;
     }
 
     /**
-     * NOTE: region_exit is currently unsupported.
+     * Exit a given region for a set of values, waking any threads waiting to
+     * enter the region for those values.
      * @param region_id The Region ID on which to operate.
      * @param values An array of values to release.
      */
     public static void region_exit(int region_id, Object[] values)
     {
-        // DEFERRED: region_exit
         --region_id; // indexed from 0 internally
-        throw new UnsupportedOperationException("region_enter()");
+
+        JunoRegion region = regions.get(region_id);
+        if (region == null)
+        {
+            throw new RuntimeException("Uninitialized region id ["
+                + region_id + "] for region_exit");
+        }
+
+        region.exit(values);
     }
 
     /**
@@ -1055,7 +1215,7 @@ public final class Juno
     {
         --mailbox_id; // indexed from 0 internally
 
-        Mailbox<Object> mbox = mailboxMap.get(mailbox_id);
+        JunoMailbox mbox = mailboxes.get(mailbox_id);
         if (mbox == null)
         {
             throw new RuntimeException("Uninitialized mailbox id ["
@@ -1145,7 +1305,7 @@ public final class Juno
 
         --mailbox_id; // indexed from 0 internally
 
-        Mailbox<Object> mbox = mailboxMap.get(mailbox_id);
+        JunoMailbox mbox = mailboxes.get(mailbox_id);
         if (mbox == null)
         {
             throw new RuntimeException("Uninitialized mailbox id ["
@@ -1495,6 +1655,129 @@ public final class Juno
         return mboxSize;
     }
 
+    /**
+     * Put multiple objects into a given mailbox in a single call.
+     * <P>
+     * This is equivalent to calling mailbox_put(mailbox_id, data[i]) for each
+     * i from 0 to count - 1. If the mailbox has a capacity and becomes full,
+     * the thread will block until space is available for the next object.
+     *
+     * @param mailbox_id The Mailbox ID in which to put the objects.
+     * @param data An array containing the objects to put into the mailbox.
+     * @param count The number of objects from data to put into the mailbox.
+     */
+    public static void mailbox_put_batch(int mailbox_id, Object[] data, int count)
+    {
+        if (count < 0 || count > data.length)
+        {
+            throw new IllegalArgumentException("Illegal count (" + count
+                + ") for mailbox_put_batch");
+        }
+
+        JunoMailbox mbox = getMailbox(mailbox_id, "mailbox_put_batch");
+        for (int i = 0; i < count; ++i)
+        {
+            mbox.put(data[i]);
+        }
+    }
+
+    /**
+     * Retrieve up to max objects from a given mailbox in a single call.
+     * <P>
+     * Objects are removed from the mailbox and stored in data, starting at
+     * data[0], until max objects have been retrieved or the mailbox is empty.
+     * Objects are converted to the component type of data as by
+     * {@link #mailbox_get(int, int, Object[], int)}. If a type mismatch
+     * occurs, the mismatched object is left in the mailbox and the batch ends.
+     *
+     * @param op One of {@link #WAIT} or {@link #NO_WAIT}. If op is WAIT and the
+     * mailbox is empty, the thread will block until data is available in the
+     * mailbox. Otherwise, the thread will not block.
+     * @param mailbox_id The Mailbox ID on which to operate.
+     * @param data An array into which the returned objects will be placed.
+     * @param max The maximum number of objects to retrieve. If greater than
+     * the length of data, the length of data is used.
+     * @return Returns the number of objects retrieved.
+     */
+    public static int mailbox_get_batch(
+        int op,
+        int mailbox_id,
+        Object[] data,
+        int max)
+    {
+        assert (op == WAIT || op == NO_WAIT);
+
+        JunoMailbox mbox = getMailbox(mailbox_id, "mailbox_get_batch");
+        if (max > data.length) max = data.length;
+        if (max <= 0) return 0;
+
+        if (op == WAIT)
+        {
+            // block until the mailbox is non-empty
+            mbox.peekWait();
+        }
+
+        Class destClass = data.getClass().getComponentType();
+        Object[] temp = null;
+        int count = 0;
+        while (count < max && mbox.size() > 0)
+        {
+            Object obj = mbox.peekNoWait();
+            if (destClass.isInstance(obj))
+            {
+                data[count++] = mbox.getNoWait();
+            }
+            else
+            {
+                // let mailbox_get handle type conversion
+                if (temp == null)
+                {
+                    temp = (Object[]) Array.newInstance(destClass, 1);
+                }
+                if (mailbox_get(NO_WAIT, mailbox_id, temp, 1) < 0) break;
+                data[count++] = temp[0];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets the capacity of a given mailbox. A put into a mailbox containing
+     * capacity or more objects will block until another thread retrieves an
+     * object from it. Mailboxes are unbounded by default.
+     *
+     * @param mailbox_id The Mailbox ID on which to operate.
+     * @param capacity The maximum number of objects the mailbox may contain,
+     * or 0 for an unbounded mailbox.
+     */
+    public static void mailbox_set_capacity(int mailbox_id, int capacity)
+    {
+        getMailbox(mailbox_id, "mailbox_set_capacity").setCapacity(capacity);
+    }
+
+    /**
+     * Returns the mailbox with the given ID, which provides access to its
+     * usage statistics.
+     *
+     * @param mailbox_id The Mailbox ID to look up.
+     * @return the JunoMailbox with the given ID
+     */
+    public static JunoMailbox getMailbox(int mailbox_id)
+    {
+        return getMailbox(mailbox_id, "getMailbox");
+    }
+
+    private static JunoMailbox getMailbox(int mailbox_id, String funcName)
+    {
+        JunoMailbox mbox = mailboxes.get(mailbox_id - 1);
+        if (mbox == null)
+        {
+            throw new RuntimeException("Uninitialized mailbox id ["
+                + mailbox_id + "] for " + funcName);
+        }
+        return mbox;
+    }
+
     public static final int OFF = 0;
     public static final int ON = 1;
     public static final int ONE_SHOT = 2;
@@ -1511,6 +1794,17 @@ public final class Juno
         trigger(ONE_SHOT, events);
     }
 
+    /**
+     * Triggers a single JunoEvent in ONE_SHOT mode. Equivalent to
+     * {@link #trigger(JunoEvent...)} without allocating an array.
+     *
+     * @param event the JunoEvent that should be triggered.
+     */
+    public static void trigger(JunoEvent event)
+    {
+        if (event != null) triggerEvent(ONE_SHOT, event);
+    }
+
     /**
      * Triggers one or more JunoEvents.
      *
@@ -1523,30 +1817,49 @@ public final class Juno
         assert (op == OFF || op == ON || op == ONE_SHOT || op == ONE_BLAST || op == HAND_SHAKE);
         for (final JunoEvent e : events)
         {
-            if (e == null) continue;
-            switch (op)
-            {
-            case OFF:
-                e.setOn(false);
-                break;
-            case ON:
-                e.setOn(true);
-                DV.simulation.notifyOf(e);
-                break;
-            case ONE_SHOT:
-                DV.simulation.notifyOf(e);
-                break;
-            case ONE_BLAST:
-                e.setOnDuringTime(DV.simulation.getSimTime());
-                DV.simulation.notifyOf(e);
-                break;
-            case HAND_SHAKE:
-                e.giveHandshake();
-                DV.simulation.notifyOf(e);
-                break;
-            default:
-                throw new UnsupportedOperationException("trigger(" + op + ")");
-            }
+            if (e != null) triggerEvent(op, e);
+        }
+    }
+
+    /**
+     * Triggers a single JunoEvent. Equivalent to
+     * {@link #trigger(int, JunoEvent...)} without allocating an array.
+     *
+     * @param op One of {@link #OFF}, {@link #ON}, {@link #ONE_SHOT},
+     * {@link #ONE_BLAST}, and {@link #HAND_SHAKE}.
+     * @param event the JunoEvent that should be triggered.
+     */
+    public static void trigger(int op, JunoEvent event)
+    {
+        assert (op == OFF || op == ON || op == ONE_SHOT || op == ONE_BLAST || op == HAND_SHAKE);
+        if (event != null) triggerEvent(op, event);
+    }
+
+    private static void triggerEvent(int op, JunoEvent e)
+    {
+        JunoMetrics.EVENT_TRIGGERS.increment();
+        switch (op)
+        {
+        case OFF:
+            e.setOn(false);
+            break;
+        case ON:
+            e.setOn(true);
+            DV.simulation.notifyOf(e);
+            break;
+        case ONE_SHOT:
+            DV.simulation.notifyOf(e);
+            break;
+        case ONE_BLAST:
+            e.setOnDuringTime(DV.simulation.getSimTime());
+            DV.simulation.notifyOf(e);
+            break;
+        case HAND_SHAKE:
+            e.giveHandshake();
+            DV.simulation.notifyOf(e);
+            break;
+        default:
+            throw new UnsupportedOperationException("trigger(" + op + ")");
         }
     }
 
@@ -1580,6 +1893,7 @@ public final class Juno
     {
         int result = 1;
         assert (op == CHECK || op == ALL || op == ANY || op == ORDER);
+        JunoMetrics.EVENT_SYNCS.increment();
         if (op == CHECK)
         {
             for (final JunoEvent e : events)
@@ -1593,52 +1907,155 @@ public final class Juno
         }
         else
         {
-            final List<JunoEvent> waitEvents = new LinkedList<JunoEvent>();
+            // the wait list is only allocated if some event is not already on
+            List<JunoEvent> waitEvents = null;
             for (final JunoEvent e : events)
             {
                 if (isEventOn(e, true))
                 {
                     if (op == ANY)
                     {
-                        waitEvents.clear();
+                        waitEvents = null;
                         break;
                     }
                 }
                 else if (e != null)
                 {
+                    if (waitEvents == null)
+                    {
+                        waitEvents = new ArrayList<JunoEvent>(events.length);
+                    }
                     waitEvents.add(e);
                 }
             }
-            if (!waitEvents.isEmpty())
+            if (waitEvents != null)
             {
-                if (op == ALL)
-                {
-                    DV.simulation.waitForAll(waitEvents);
-                }
-                else if (op == ANY)
-                {
-                    DV.simulation.waitForAny(waitEvents);
-                }
-                else
-                {
-                    // DEFERRED: sync: ORDER
-                    throw new UnsupportedOperationException("sync(" + op + ")");
-                }
-
-                // if we had to block, waiting on the trigger, we didn't decrement
-                // the handshakeCount in the isEventOn(e, true) call above. in this
-                // case, do that manually to avoid multiple sync's triggering
-                // from a single trigger(HAND_SHAKE)
-                // TODO: refactor sync to consolidate handshake bookkeeping
-                for (JunoEvent e : waitEvents)
-                {
-                    e.checkHandshake(true);
-                }
+                waitForEvents(op, waitEvents);
             }
         }
         return result;
     }
 
+    /**
+     * Wait on a single JunoEvent. Equivalent to
+     * {@link #sync(int, JunoEvent...)} without allocating an array.
+     *
+     * @param op One of {@link #CHECK}, {@link #ALL}, {@link #ANY}, or {@link #ORDER}.
+     * @param event the JunoEvent on which to sync.
+     * @return if op == CHECK and the JunoEvent is OFF, a 0 is returned, else a
+     * 1 is returned.
+     */
+    public static int sync(int op, JunoEvent event)
+    {
+        assert (op == CHECK || op == ALL || op == ANY || op == ORDER);
+        JunoMetrics.EVENT_SYNCS.increment();
+        if (op == CHECK)
+        {
+            return (event != null && !isEventOn(event, false)) ? 0 : 1;
+        }
+        if (event != null && !isEventOn(event, true))
+        {
+            waitForEvents(op, Collections.singletonList(event));
+        }
+        return 1;
+    }
+
+    /**
+     * Wait on two JunoEvents. Equivalent to {@link #sync(int, JunoEvent...)}
+     * without allocating an array unless the thread must block.
+     *
+     * @param op One of {@link #CHECK}, {@link #ALL}, {@link #ANY}, or {@link #ORDER}.
+     * @param event1 the first JunoEvent on which to sync.
+     * @param event2 the second JunoEvent on which to sync.
+     * @return if op == CHECK and either JunoEvent is OFF, a 0 is returned,
+     * else a 1 is returned.
+     */
+    public static int sync(int op, JunoEvent event1, JunoEvent event2)
+    {
+        assert (op == CHECK || op == ALL || op == ANY || op == ORDER);
+        JunoMetrics.EVENT_SYNCS.increment();
+        if (op == CHECK)
+        {
+            if (event1 != null && !isEventOn(event1, false)) return 0;
+            if (event2 != null && !isEventOn(event2, false)) return 0;
+            return 1;
+        }
+        final boolean on1 = isEventOn(event1, true);
+        if (on1 && op == ANY) return 1;
+        final boolean on2 = isEventOn(event2, true);
+        if (on2 && op == ANY) return 1;
+        final boolean wait1 = !on1 && event1 != null;
+        final boolean wait2 = !on2 && event2 != null;
+        if (wait1 && wait2)
+        {
+            waitForEvents(op, Arrays.asList(event1, event2));
+        }
+        else if (wait1)
+        {
+            waitForEvents(op, Collections.singletonList(event1));
+        }
+        else if (wait2)
+        {
+            waitForEvents(op, Collections.singletonList(event2));
+        }
+        return 1;
+    }
+
+    /**
+     * Notifies threads waiting (through wait_var) on a variable that it has
+     * changed. Multiple changes within a time step result in a single
+     * notification unless a thread begins waiting between them.
+     *
+     * @param event the change event of the variable
+     */
+    public static void notifyChange(JunoEvent event)
+    {
+        event.notifyChange();
+    }
+
+    private static void waitForEvents(int op, List<JunoEvent> waitEvents)
+    {
+        JunoMetrics.EVENT_SYNC_WAITS.increment();
+
+        // a new waiter must see the next change, even within this time step
+        for (JunoEvent e : waitEvents)
+        {
+            e.rearmChange();
+        }
+
+        if (op != ALL && op != ANY)
+        {
+            // DEFERRED: sync: ORDER
+            throw new UnsupportedOperationException("sync(" + op + ")");
+        }
+        FunctionProfile.pause();
+        try
+        {
+            if (op == ALL)
+            {
+                DV.simulation.waitForAll(waitEvents);
+            }
+            else
+            {
+                DV.simulation.waitForAny(waitEvents);
+            }
+        }
+        finally
+        {
+            FunctionProfile.resume();
+        }
+
+        // if we had to block, waiting on the trigger, we didn't decrement
+        // the handshakeCount in the isEventOn(e, true) call above. in this
+        // case, do that manually to avoid multiple sync's triggering
+        // from a single trigger(HAND_SHAKE)
+        // TODO: refactor sync to consolidate handshake bookkeeping
+        for (JunoEvent e : waitEvents)
+        {
+            e.checkHandshake(true);
+        }
+    }
+
     private static boolean isEventOn(Event e, boolean acquire)
     {
         if (e instanceof JunoEvent)
@@ -1664,11 +2081,11 @@ public final class Juno
         // get the current thread context, if any
         SimulationThread t = DV.simulation.currentThread();
         assert (t != null);
-        JunoThreadContext pc = threadContextMap.get(t);
+        JunoThreadContext pc = JunoThreadContext.getCurrent(t);
 
-        // create a new thread context and map it as current
-        JunoThreadContext c = new JunoThreadContext(pc);
-        threadContextMap.put(t, c);
+        // create a new thread context and make it current
+        JunoThreadContext c = new JunoThreadContext(t, pc);
+        JunoThreadContext.setCurrent(t, c);
     }
 
     /**
@@ -1680,12 +2097,14 @@ public final class Juno
         // get the current thread context
         SimulationThread t = DV.simulation.currentThread();
         assert (t != null);
-        JunoThreadContext c = threadContextMap.get(t);
+        JunoThreadContext c = JunoThreadContext.getCurrent(t);
         assert (c != null);
 
-        // map the parent thread context as current
+        // make the parent thread context current; leaving the outermost
+        // context clears the thread's slot
         JunoThreadContext pc = c.getParentContext();
-        threadContextMap.put(t, pc);
+        c.leave();
+        JunoThreadContext.setCurrent(t, pc);
     }
 
     /**
@@ -1700,7 +2119,8 @@ public final class Juno
     }
 
     /**
-     * Fork a new thread of execution.
+     * Fork a new thread of execution. The new thread gets its own random
+     * streams, seeded from those of the current thread.
      *
      * @param name a String identifier for the Thread
      * @param r the Runnable that will be executed in the new Thread.
@@ -1708,21 +2128,52 @@ public final class Juno
      */
     public static SimulationThread fork(String name, Runnable r)
     {
-        SimulationThread t = DV.simulation.fork(name, r);
+        // give the thread its own random streams, seeded from this thread
+        r = RandomStreams.newSeededRunnable(r);
+        if (JunoMetrics.ENABLED)
+        {
+            r = newCountedRunnable(r);
+        }
+        if (FunctionProfile.isEnabled())
+        {
+            // merge the thread's profile counts when it finishes
+            r = FunctionProfile.newProfiledRunnable(r);
+        }
 
-        // add the thread to any contexts of the parent thread
+        // track the thread as a live child of the current context, if any
         SimulationThread pt = DV.simulation.currentThread();
         assert (pt != null);
-        JunoThreadContext pc = threadContextMap.get(pt);
-        while (pc != null)
+        JunoThreadContext pc = JunoThreadContext.getCurrent(pt);
+        if (pc == null)
         {
-            pc.addForkedThread(t);
-            pc = pc.getParentContext();
+            return DV.simulation.fork(name, r);
         }
-
+        JunoThreadContext.ForkedChild child = pc.newChild(r);
+        SimulationThread t = DV.simulation.fork(name, child);
+        child.setThread(t);
         return t;
     }
 
+    private static Runnable newCountedRunnable(final Runnable r)
+    {
+        JunoMetrics.THREADS_FORKED.increment();
+        JunoMetrics.THREADS_LIVE.increment();
+        return new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    r.run();
+                }
+                finally
+                {
+                    JunoMetrics.THREADS_LIVE.decrement();
+                }
+            }
+        };
+    }
+
     /**
      * Block until all threads marked as children of the current thread have
      * exited.
@@ -1732,15 +2183,22 @@ public final class Juno
         // get the current thread context, if any
         SimulationThread t = DV.simulation.currentThread();
         assert (t != null);
-        JunoThreadContext c = threadContextMap.get(t);
+        JunoThreadContext c = JunoThreadContext.getCurrent(t);
         if (c != null)
         {
-            // join all threads forked from the current context
+            // join all live threads forked from the current context
             // (or a descendent context)
-            List<SimulationThread> tl = c.getForkedThreads();
-            SimulationThread[] ta = new SimulationThread[tl.size()];
-            tl.toArray(ta);
-            DV.simulation.joinAll(ta);
+            SimulationThread[] ta = c.getLiveThreads();
+            FunctionProfile.pause();
+            try
+            {
+                DV.simulation.joinAll(ta);
+            }
+            finally
+            {
+                FunctionProfile.resume();
+            }
+            JunoMetrics.THREADS_JOINED.add(ta.length);
         }
     }
 
@@ -1879,6 +2337,19 @@ public final class Juno
         }
     }
 
+    /**
+     * psprintf built-in function using a pre-parsed format.
+     *
+     * @see #psprintf(String, Object[])
+     * @param plan the pre-parsed psprintf format to use
+     * @param args the arguments to be used when processing the format
+     * @return the resulting String
+     */
+    public static String psprintf(VeraPrintfPlan plan, Object... args)
+    {
+        return formatterWithEscapes.sprintf(plan, args);
+    }
+
     /**
      * sprintf built-in function.
      * <P>
@@ -1894,6 +2365,22 @@ public final class Juno
         str.assign(psprintf(format, args, true));
     }
 
+    /**
+     * sprintf built-in function using a pre-parsed format.
+     *
+     * @see #sprintf(JunoString, String, Object[])
+     * @param str the String to assign into
+     * @param plan the pre-parsed psprintf format to use
+     * @param args the arguments to be used when processing the format
+     */
+    public static void sprintf(
+        JunoString str,
+        VeraPrintfPlan plan,
+        Object... args)
+    {
+        str.assign(formatterWithEscapes.sprintf(plan, args));
+    }
+
     /**
      * built-in sscanf function. This function takes two strings -- a
      * source string and a format string. It then tries to parse the source
@@ -2378,7 +2865,23 @@ public final class Juno
      */
     public static void printf(String format, Object... args)
     {
-        System.out.print(psprintf(format, args, false));
+        String str = psprintf(format, args, false);
+        JunoMetrics.PRINTF_CHARS.add(str.length());
+        System.out.print(str);
+    }
+
+    /**
+     * printf built-in function using a pre-parsed format.
+     *
+     * @see #printf(String, Object[])
+     * @param plan the pre-parsed psprintf format to use
+     * @param args the arguments to be used when processing the format
+     */
+    public static void printf(VeraPrintfPlan plan, Object... args)
+    {
+        String str = formatterWithoutEscapes.sprintf(plan, args);
+        JunoMetrics.PRINTF_CHARS.add(str.length());
+        System.out.print(str);
     }
 
     /**
@@ -2574,14 +3077,37 @@ public final class Juno
      */
 
     public static void fprintf(int fd, String format, Object... args)
+    {
+        checkFprintfDesc(fd);
+        fprint(fd, psprintf(format, args, false));
+    }
+
+    /**
+     * fprintf built-in function using a pre-parsed format.
+     *
+     * @see #fprintf(int, String, Object[])
+     * @param fd the file descriptor to which to write
+     * @param plan the pre-parsed fprintf format to use
+     * @param args the arguments to be used when processing the format
+     */
+    public static void fprintf(int fd, VeraPrintfPlan plan, Object... args)
+    {
+        checkFprintfDesc(fd);
+        fprint(fd, formatterWithoutEscapes.sprintf(plan, args));
+    }
+
+    private static void checkFprintfDesc(int fd)
     {
         if (fd == 0)
         {
             throw new RuntimeException("fprintf failed due to invalid "
                 + "file descriptor [0]");
         }
+    }
 
-        String str = psprintf(format, args, false);
+    private static void fprint(int fd, String str)
+    {
+        JunoMetrics.PRINTF_CHARS.add(str.length());
         if (fd < MIN_FILE_DESC)
         {
             if (fd == STDOUT)
@@ -3257,6 +3783,25 @@ public final class Juno
         System.err.println(warning);
     }
 
+    /**
+     * Checks that an object handle is not null. Used by translated code when
+     * calling a member function that was translated as a static method, so
+     * that a call through a null handle still fails.
+     *
+     * @param obj the object handle to check
+     * @return obj
+     * @throws NullPointerException if obj is null
+     */
+    public static Object checkNotNull(Object obj)
+    {
+        if (obj == null)
+        {
+            throw new NullPointerException(
+                "Member function called on null object");
+        }
+        return obj;
+    }
+
     /**
      * error built-in function.
      * <P>
@@ -3271,6 +3816,7 @@ public final class Juno
     {
         String msg = psprintf(format, args, false);
         System.err.print(msg);
+        JunoMetrics.ERRORS.increment();
         throw new RuntimeException(msg);
     }
 
@@ -3358,7 +3904,15 @@ public final class Juno
      */
     public static void delay(int ticks)
     {
-        DV.simulation.delay(ticks);
+        FunctionProfile.pause();
+        try
+        {
+            DV.simulation.delay(ticks);
+        }
+        finally
+        {
+            FunctionProfile.resume();
+        }
     }
 
     /**
@@ -3425,19 +3979,56 @@ public final class Juno
     public static void exit(int status)
     {
         System.out.println("exit_status: " + status);
+        if (JunoMetrics.ENABLED)
+        {
+            writeMetricsSummary();
+            JunoMetrics.stop();
+        }
         // TODO: find a way to pass the exit status to the simulator
         DV.simulation.finish();
         DV.simulation.terminateAll();
     }
 
+    private static void writeMetricsSummary()
+    {
+        final String filename = System.getProperty("juno.metrics.file",
+            "juno_metrics.txt");
+        try
+        {
+            PrintWriter out = new PrintWriter(new FileWriter(filename));
+            try
+            {
+                JunoMetrics.writeSummary(out);
+                for (int id = mailboxes.nextId(0); id >= 0; id = mailboxes
+                    .nextId(id + 1))
+                {
+                    JunoMailbox mbox = mailboxes.get(id);
+                    String prefix = "mailbox[" + (id + 1) + "].";
+                    out.println(prefix + "highWaterMark = "
+                        + mbox.getHighWaterMark());
+                    out.println(prefix + "puts = " + mbox.getPutCount());
+                    out.println(prefix + "gets = " + mbox.getGetCount());
+                    out.println(prefix + "blockedGetTime = "
+                        + mbox.getBlockedGetTime());
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+            System.out.println("Note: Runtime metrics written to " + filename);
+        }
+        catch (IOException e)
+        {
+            warning("Warning: Unable to write runtime metrics to " + filename
+                + ": " + e.getMessage());
+        }
+    }
+
     ////////////////////////////////////////////////////////////
     // Random number generation utilities
     ////////////////////////////////////////////////////////////
 
-    // Rand48 does not adhere to random stability
-    private static PRNG rand48 = LinearCongruentialFactory.INSTANCE
-        .newInstance();
-
     //	  TBD: figure out how to seed this. we need DV.simulation to be non-null and
     //         to be in a SimulationThread.
     //    {
@@ -3460,8 +4051,7 @@ public final class Juno
      */
     public static void srandom(int seed)
     {
-        PRNG newRng = PRNGFactoryFactory.getDefaultFactory().newInstance(seed);
-        DV.simulation.setRandom(newRng);
+        DV.simulation.setRandom(RandomStreams.newStream(seed));
     }
 
     /**
@@ -3475,8 +4065,7 @@ public final class Juno
      */
     public static void srandom(int seed, JunoObject obj)
     {
-        PRNG newRng = PRNGFactoryFactory.getDefaultFactory().newInstance(seed);
-        obj.setRandom(newRng);
+        obj.setRandom(RandomStreams.newStream(seed));
     }
 
     /**
@@ -3536,7 +4125,7 @@ public final class Juno
      */
     public static int rand48()
     {
-        int randInt = rand48.nextInt();
+        int randInt = RandomStreams.getRand48().nextInt();
 
         // rand48() should only yield positive ints.
         assert (randInt >= 0);
@@ -3552,7 +4141,7 @@ public final class Juno
      */
     public static int rand48(int seed)
     {
-        rand48 = LinearCongruentialFactory.INSTANCE.newInstance(seed);
+        RandomStreams.seedRand48(seed);
         return rand48();
     }
 
@@ -3563,7 +4152,7 @@ public final class Juno
      */
     public static BitVector urand48()
     {
-        return new BitVector(32, rand48.nextInt());
+        return new BitVector(32, RandomStreams.getRand48().nextInt());
     }
 
     /**
@@ -3575,7 +4164,7 @@ public final class Juno
      */
     public static BitVector urand48(int seed)
     {
-        rand48 = LinearCongruentialFactory.INSTANCE.newInstance(seed);
+        RandomStreams.seedRand48(seed);
         return urand48();
     }
 
@@ -3641,14 +4230,22 @@ public final class Juno
             assert (weights[i] >= 0) : "randcase weights must be non-negative";
             sum += weights[i];
         }
-        if (sum <= 0)
-        {
-            throw new RuntimeException("Non-positive total weight in randcase");
-        }
 
-        int rand = random() % sum;
+        return randcaseIndex(randcaseValue(sum), weights);
+    }
+
+    /**
+     * Returns the case chosen by {@link #randcase(int[])} for the given random
+     * value, which must be less than the total weight.
+     *
+     * @param rand a value in the range [0, total weight)
+     * @param weights the weight of each case
+     * @return the index of the chosen case
+     */
+    static int randcaseIndex(int rand, int[] weights)
+    {
         int count = 0;
-        for (int i = 0; i < cases; ++i)
+        for (int i = 0; i < weights.length; ++i)
         {
             count += weights[i];
             if (rand < count) return i;
@@ -3657,6 +4254,79 @@ public final class Juno
         return 0;
     }
 
+    /**
+     * Choose one of two cases based on the given weights. Equivalent to
+     * {@link #randcase(int[])}, but does not allocate a weights array.
+     *
+     * @param w0 the weight of case 0
+     * @param w1 the weight of case 1
+     * @return the index of the chosen case
+     */
+    public static int randcase(int w0, int w1)
+    {
+        assert (w0 >= 0 && w1 >= 0) : "randcase weights must be non-negative";
+        int rand = randcaseValue(w0 + w1);
+        return rand < w0 ? 0 : 1;
+    }
+
+    /**
+     * Choose one of three cases based on the given weights. Equivalent to
+     * {@link #randcase(int[])}, but does not allocate a weights array.
+     *
+     * @param w0 the weight of case 0
+     * @param w1 the weight of case 1
+     * @param w2 the weight of case 2
+     * @return the index of the chosen case
+     */
+    public static int randcase(int w0, int w1, int w2)
+    {
+        assert (w0 >= 0 && w1 >= 0 && w2 >= 0)
+            : "randcase weights must be non-negative";
+        int rand = randcaseValue(w0 + w1 + w2);
+        if (rand < w0) return 0;
+        rand -= w0;
+        return rand < w1 ? 1 : 2;
+    }
+
+    /**
+     * Choose one of four cases based on the given weights. Equivalent to
+     * {@link #randcase(int[])}, but does not allocate a weights array.
+     *
+     * @param w0 the weight of case 0
+     * @param w1 the weight of case 1
+     * @param w2 the weight of case 2
+     * @param w3 the weight of case 3
+     * @return the index of the chosen case
+     */
+    public static int randcase(int w0, int w1, int w2, int w3)
+    {
+        assert (w0 >= 0 && w1 >= 0 && w2 >= 0 && w3 >= 0)
+            : "randcase weights must be non-negative";
+        int rand = randcaseValue(w0 + w1 + w2 + w3);
+        if (rand < w0) return 0;
+        rand -= w0;
+        if (rand < w1) return 1;
+        rand -= w1;
+        return rand < w2 ? 2 : 3;
+    }
+
+    /**
+     * Returns a random value in the range [0, sum) for selecting a randcase
+     * case.
+     *
+     * @param sum the total weight of all cases
+     * @return a random value less than sum
+     * @throws RuntimeException if sum is not positive
+     */
+    static int randcaseValue(int sum)
+    {
+        if (sum <= 0)
+        {
+            throw new RuntimeException("Non-positive total weight in randcase");
+        }
+        return random() % sum;
+    }
+
     ////////////////////////////////////////////////////////////
     // Signal property accessors
     ////////////////////////////////////////////////////////////
@@ -3903,12 +4573,33 @@ public final class Juno
     ////////////////////////////////////////////////////////////
 
     /**
-     * NOTE: vera_report_profile is currently unsupported
-     * @param type
-     * @param filename
+     * Writes a report of the function profile data collected so far to the
+     * given file. Profile data is only collected for code translated with
+     * profiling enabled; other code appears in the report only as time spent
+     * in its profiled callers.
+     * <P>
+     * NOTE: Only function profiling is supported, so type is ignored.
+     * @param type the type of profile to report
+     * @param filename the name of the file to write
      */
     public static void vera_report_profile(int type, String filename)
     {
-        throw new UnsupportedOperationException("vera_report_profile()");
+        try
+        {
+            PrintWriter out = new PrintWriter(new FileWriter(filename));
+            try
+            {
+                FunctionProfile.writeReport(out);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+        catch (IOException e)
+        {
+            warning("Warning: Unable to write profile report to " + filename
+                + ": " + e.getMessage());
+        }
     }
 }
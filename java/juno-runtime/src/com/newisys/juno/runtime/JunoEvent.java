@@ -17,10 +17,17 @@
 
 package com.newisys.juno.runtime;
 
+import com.newisys.dv.DV;
 import com.newisys.eventsim.PulseEvent;
 
 /**
  * A Jove Event with the semantics of Vera's built-in events.
+ * <P>
+ * JunoEvents are also used as the change events of variables watched by
+ * wait_var. Change notifications are coalesced: after a change is notified,
+ * further changes in the same time step are not notified again until some
+ * thread begins waiting on the event through {@link Juno#sync}, since every
+ * thread that was already waiting has been woken by the first notification.
  * 
  * @author Trevor Robinson
  */
@@ -30,6 +37,7 @@ public class JunoEvent
     private boolean on = false;
     private long onDuringTime = -1;
     private int handshakeCount = 0;
+    private long changeNotifyTime = -1;
 
     /**
      * Creates a new JunoEvent.
@@ -85,4 +93,19 @@ public class JunoEvent
             return false;
         }
     }
+
+    void notifyChange()
+    {
+        final long time = DV.simulation.getSimTime();
+        if (changeNotifyTime != time)
+        {
+            changeNotifyTime = time;
+            DV.simulation.notifyOf(this);
+        }
+    }
+
+    void rearmChange()
+    {
+        changeNotifyTime = -1;
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.util.Collections;
+
+import com.newisys.dv.DV;
+import com.newisys.dv.Mailbox;
+
+/**
+ * A Vera mailbox, as allocated by {@link Juno#alloc}. Wraps a Jove mailbox,
+ * adding an optional capacity and usage statistics.
+ * <P>
+ * By default, a mailbox is unbounded. If a capacity is set, a put into a full
+ * mailbox blocks the calling thread until another thread removes an entry.
+ * The statistics (depth high-water mark, total puts and gets, and the
+ * simulation time spent blocked waiting for entries) are maintained for all
+ * mailboxes and can be read at any time. When runtime metrics are enabled,
+ * they are also included in the summary written by {@link Juno#exit}.
+ * 
+ * @author Trevor Robinson
+ */
+public final class JunoMailbox
+{
+    private final Mailbox<Object> mailbox;
+    private final JunoEvent spaceEvent;
+    private int capacity;
+    private int spaceWaiters;
+
+    private int highWaterMark;
+    private long putCount;
+    private long getCount;
+    private long blockedGetTime;
+
+    JunoMailbox(Mailbox<Object> mailbox)
+    {
+        this.mailbox = mailbox;
+        this.spaceEvent = new JunoEvent("mailbox space");
+    }
+
+    /**
+     * Returns the maximum number of entries this mailbox may hold.
+     *
+     * @return the capacity of this mailbox, or 0 if it is unbounded
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    void setCapacity(int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException("Illegal mailbox capacity: "
+                + capacity);
+        }
+        this.capacity = capacity;
+        notifySpace();
+    }
+
+    /**
+     * Returns the number of entries currently in this mailbox.
+     *
+     * @return the current depth of this mailbox
+     */
+    public int size()
+    {
+        return mailbox.size();
+    }
+
+    /**
+     * Returns the largest number of entries this mailbox has held at once.
+     *
+     * @return the depth high-water mark
+     */
+    public int getHighWaterMark()
+    {
+        return highWaterMark;
+    }
+
+    /**
+     * Returns the total number of entries put into this mailbox.
+     *
+     * @return the put count
+     */
+    public long getPutCount()
+    {
+        return putCount;
+    }
+
+    /**
+     * Returns the total number of entries removed from this mailbox.
+     *
+     * @return the get count
+     */
+    public long getGetCount()
+    {
+        return getCount;
+    }
+
+    /**
+     * Returns the total simulation time threads have spent blocked waiting
+     * for this mailbox to become non-empty.
+     *
+     * @return the blocked get time, in simulation time units
+     */
+    public long getBlockedGetTime()
+    {
+        return blockedGetTime;
+    }
+
+    void put(Object data)
+    {
+        waitForSpace();
+        mailbox.put(data);
+        ++putCount;
+        JunoMetrics.MAILBOX_PUTS.increment();
+        final int size = mailbox.size();
+        if (size > highWaterMark) highWaterMark = size;
+    }
+
+    Object peekNoWait()
+    {
+        return mailbox.peekNoWait();
+    }
+
+    Object peekWait()
+    {
+        if (mailbox.size() > 0)
+        {
+            return mailbox.peekNoWait();
+        }
+        JunoMetrics.MAILBOX_WAITS.increment();
+        final long startTime = DV.simulation.getSimTime();
+        final Object obj;
+        FunctionProfile.pause();
+        try
+        {
+            obj = mailbox.peekWait();
+        }
+        finally
+        {
+            FunctionProfile.resume();
+        }
+        blockedGetTime += DV.simulation.getSimTime() - startTime;
+        return obj;
+    }
+
+    Object getNoWait()
+    {
+        final Object obj = mailbox.getNoWait();
+        ++getCount;
+        JunoMetrics.MAILBOX_GETS.increment();
+        notifySpace();
+        return obj;
+    }
+
+    private void waitForSpace()
+    {
+        while (capacity > 0 && mailbox.size() >= capacity)
+        {
+            ++spaceWaiters;
+            FunctionProfile.pause();
+            try
+            {
+                DV.simulation.waitForAny(Collections.singletonList(spaceEvent));
+            }
+            finally
+            {
+                FunctionProfile.resume();
+                --spaceWaiters;
+            }
+        }
+    }
+
+    private void notifySpace()
+    {
+        // avoid a kernel notification per get when no producer is blocked
+        if (spaceWaiters > 0)
+        {
+            DV.simulation.notifyOf(spaceEvent);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Registry of counters describing the behavior of the Juno runtime, such as
+ * the number of threads forked, events triggered, and mailbox operations.
+ * <P>
+ * Metrics are disabled unless the <code>juno.metrics</code> system property
+ * is set to <code>true</code> when the runtime is loaded. Since the enabled
+ * flag is a compile-time constant to the JIT compiler, updating a metric
+ * costs nothing when metrics are disabled. When enabled, counters are striped
+ * across several cache lines to avoid contention between threads, and all
+ * metrics are exposed as attributes of a JMX MBean named
+ * {@link #OBJECT_NAME} for the duration of the run. A summary is written when
+ * the simulation calls {@link Juno#exit}.
+ * 
+ * @author Trevor Robinson
+ */
+public final class JunoMetrics
+{
+    /**
+     * Indicates whether metrics are collected.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("juno.metrics");
+
+    /**
+     * The name of the JMX MBean exposing the metrics.
+     */
+    public static final String OBJECT_NAME = "com.newisys.juno:type=Metrics";
+
+    private static final Map<String, Metric> metrics = new LinkedHashMap<String, Metric>();
+
+    public static final Counter THREADS_FORKED = counter("threads.forked");
+    public static final Counter THREADS_JOINED = counter("threads.joined");
+    public static final Counter THREADS_LIVE = counter("threads.live");
+    public static final Counter EVENT_TRIGGERS = counter("events.triggers");
+    public static final Counter EVENT_SYNCS = counter("events.syncs");
+    public static final Counter EVENT_SYNC_WAITS = counter("events.syncWaits");
+    public static final Counter MAILBOX_PUTS = counter("mailbox.puts");
+    public static final Counter MAILBOX_GETS = counter("mailbox.gets");
+    public static final Counter MAILBOX_WAITS = counter("mailbox.waits");
+    public static final Counter SEMAPHORE_PUTS = counter("semaphore.puts");
+    public static final Counter SEMAPHORE_GETS = counter("semaphore.gets");
+    public static final Counter SEMAPHORE_WAITS = counter("semaphore.waits");
+    public static final Counter ASSOC_INSERTS = counter("assoc.inserts");
+    public static final Counter ASSOC_RESIZES = counter("assoc.resizes");
+    public static final MaxGauge ASSOC_MAX_SIZE = maxGauge("assoc.maxSize");
+    public static final Counter PRINTF_CHARS = counter("printf.chars");
+    public static final Counter RANDOMIZE_CALLS = counter("randomize.calls");
+    public static final Counter RANDOMIZE_FAILURES = counter("randomize.failures");
+    public static final Counter ERRORS = counter("errors");
+
+    private static ObjectName registeredName;
+
+    private JunoMetrics()
+    {
+    }
+
+    private static Counter counter(String name)
+    {
+        final Counter counter = new Counter();
+        metrics.put(name, counter);
+        return counter;
+    }
+
+    private static MaxGauge maxGauge(String name)
+    {
+        final MaxGauge gauge = new MaxGauge();
+        metrics.put(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * Resets all metrics and, if metrics are enabled, registers the metrics
+     * MBean with the platform MBean server.
+     */
+    static synchronized void start()
+    {
+        if (!ENABLED) return;
+
+        for (Metric metric : metrics.values())
+        {
+            metric.reset();
+        }
+
+        if (registeredName == null)
+        {
+            try
+            {
+                final MBeanServer server = ManagementFactory
+                    .getPlatformMBeanServer();
+                final ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name))
+                {
+                    server.registerMBean(new MetricsMBean(), name);
+                    registeredName = name;
+                }
+            }
+            catch (JMException e)
+            {
+                Juno.warning("Warning: Unable to register metrics MBean: "
+                    + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Unregisters the metrics MBean, if it was registered by {@link #start}.
+     */
+    static synchronized void stop()
+    {
+        if (registeredName != null)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                    registeredName);
+            }
+            catch (JMException e)
+            {
+                // ignored; the run is ending
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Returns the current values of all metrics, in registration order.
+     *
+     * @return a map from metric name to value
+     */
+    public static Map<String, Long> getValues()
+    {
+        final Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Metric> entry : metrics.entrySet())
+        {
+            values.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Writes the current value of each metric, one per line.
+     *
+     * @param out the writer to which the summary is written
+     */
+    public static void writeSummary(PrintWriter out)
+    {
+        final Iterator<Map.Entry<String, Long>> iter = getValues().entrySet()
+            .iterator();
+        while (iter.hasNext())
+        {
+            final Map.Entry<String, Long> entry = iter.next();
+            out.println(entry.getKey() + " = " + entry.getValue());
+        }
+    }
+
+    /**
+     * A metric with a single long value.
+     */
+    public static interface Metric
+    {
+        long getValue();
+
+        void reset();
+    }
+
+    /**
+     * A counter that may be updated concurrently by many threads. Updates are
+     * spread across stripes, each in its own cache line, selected by the
+     * identity of the updating thread.
+     */
+    public static final class Counter
+        implements Metric
+    {
+        private static final int STRIPES = 8;
+        private static final int STRIDE = 8; // 64-byte cache lines
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES
+            * STRIDE);
+
+        Counter()
+        {
+        }
+
+        public void increment()
+        {
+            add(1);
+        }
+
+        public void decrement()
+        {
+            add(-1);
+        }
+
+        public void add(long delta)
+        {
+            if (!ENABLED) return;
+            final int h = System.identityHashCode(Thread.currentThread());
+            cells.addAndGet(((h ^ (h >>> 16)) & (STRIPES - 1)) * STRIDE, delta);
+        }
+
+        public long getValue()
+        {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; ++i)
+            {
+                sum += cells.get(i * STRIDE);
+            }
+            return sum;
+        }
+
+        public void reset()
+        {
+            for (int i = 0; i < STRIPES; ++i)
+            {
+                cells.set(i * STRIDE, 0);
+            }
+        }
+    }
+
+    /**
+     * A gauge that records the maximum value reported to it.
+     */
+    public static final class MaxGauge
+        implements Metric
+    {
+        private final AtomicLong max = new AtomicLong();
+
+        MaxGauge()
+        {
+        }
+
+        public void update(long value)
+        {
+            if (!ENABLED) return;
+            long cur;
+            while (value > (cur = max.get()))
+            {
+                if (max.compareAndSet(cur, value)) break;
+            }
+        }
+
+        public long getValue()
+        {
+            return max.get();
+        }
+
+        public void reset()
+        {
+            max.set(0);
+        }
+    }
+
+    /**
+     * Exposes each metric as a read-only JMX attribute of type long.
+     */
+    private static final class MetricsMBean
+        implements DynamicMBean
+    {
+        public Object getAttribute(String attribute)
+            throws AttributeNotFoundException
+        {
+            final Metric metric = metrics.get(attribute);
+            if (metric == null)
+            {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return metric.getValue();
+        }
+
+        public AttributeList getAttributes(String[] attributes)
+        {
+            final AttributeList list = new AttributeList();
+            for (String attribute : attributes)
+            {
+                final Metric metric = metrics.get(attribute);
+                if (metric != null)
+                {
+                    list.add(new Attribute(attribute, metric.getValue()));
+                }
+            }
+            return list;
+        }
+
+        public void setAttribute(Attribute attribute)
+            throws AttributeNotFoundException
+        {
+            throw new AttributeNotFoundException("Metrics are read-only: "
+                + attribute.getName());
+        }
+
+        public AttributeList setAttributes(AttributeList attributes)
+        {
+            return new AttributeList();
+        }
+
+        public Object invoke(
+            String actionName,
+            Object[] params,
+            String[] signature)
+            throws ReflectionException
+        {
+            throw new ReflectionException(new NoSuchMethodException(
+                actionName));
+        }
+
+        public MBeanInfo getMBeanInfo()
+        {
+            final MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[metrics
+                .size()];
+            int i = 0;
+            for (String name : metrics.keySet())
+            {
+                attrs[i++] = new MBeanAttributeInfo(name, "long", name, true,
+                    false, false);
+            }
+            return new MBeanInfo(JunoMetrics.class.getName(),
+                "Juno runtime metrics", attrs, null,
+                new MBeanOperationInfo[0], null);
+        }
+    }
+}
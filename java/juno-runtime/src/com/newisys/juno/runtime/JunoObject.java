@@ -50,9 +50,11 @@ public class JunoObject
     public static final int RAND_MODE_FAIL = -1;
     public static final int CONSTRAINT_MODE_FAIL = -1;
 
-    // Get the random stream from our thread. This is different from Vera which
-    // creates a new random stream for each Object.
-    private PRNG prng = DV.simulation.getRandom();
+    // As in Vera, each object has its own random stream, seeded from the
+    // stream of the creating thread. Only the seed is drawn at creation; the
+    // stream itself is created when the object is first randomized.
+    private int randomSeed = RandomStreams.nextSeed(DV.simulation.getRandom());
+    private PRNG prng;
 
     /**
      * Creates a new JunoObject.
@@ -63,7 +65,8 @@ public class JunoObject
     }
 
     /**
-     * Creates and returns a copy of this object.
+     * Creates and returns a copy of this object. Like any new object, the copy
+     * has its own random stream, seeded from the stream of the current thread.
      *
      * @return a clone of this JunoObject
      * @see Object#clone
@@ -73,7 +76,11 @@ public class JunoObject
     {
         try
         {
-            return super.clone();
+            final JunoObject copy = (JunoObject) super.clone();
+            copy.randomSeed = RandomStreams.nextSeed(DV.simulation
+                .getRandom());
+            copy.prng = null;
+            return copy;
         }
         catch (CloneNotSupportedException e)
         {
@@ -91,13 +98,15 @@ public class JunoObject
      */
     public final int randomize()
     {
+        JunoMetrics.RANDOMIZE_CALLS.increment();
         try
         {
-            Solver.randomize(this, prng);
+            Solver.randomize(this, getRandom());
         }
         catch (UnsolvableConstraintException e)
         {
             // TODO: throw an exception if the object cannot be randomized
+            JunoMetrics.RANDOMIZE_FAILURES.increment();
             return FAIL;
         }
 
@@ -150,6 +159,15 @@ public class JunoObject
         // do nothing
     }
 
+    private PRNG getRandom()
+    {
+        if (prng == null)
+        {
+            prng = RandomStreams.newStream(randomSeed);
+        }
+        return prng;
+    }
+
     /**
      * Sets the random number generator for this object.
      *
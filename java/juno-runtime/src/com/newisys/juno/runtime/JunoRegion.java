@@ -0,0 +1,307 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.newisys.dv.DV;
+import com.newisys.dv.Semaphore;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Implements a Vera region, which is a set of values that threads may enter
+ * (lock) and exit (unlock). A thread entering a region specifies a set of
+ * values, which are locked atomically: the thread either acquires all of
+ * them or none.
+ * <P>
+ * The locked values are kept in a fixed number of stripes, selected by hash
+ * code, each with its own lock. Stripes are created when a value first maps
+ * to them. Entering a region locks only the stripes containing the requested
+ * values, in ascending stripe order, so that concurrent threads entering
+ * unrelated values do not contend and threads entering overlapping values
+ * cannot deadlock. A thread that must wait for a value waits on a semaphore
+ * specific to that value, so exiting a region wakes only the threads waiting
+ * for the values released. The semaphore keeps a release that happens before
+ * the waiter blocks, so no wakeup is lost.
+ * <P>
+ * Integral values are compared numerically, regardless of whether they are
+ * given as Integer, Long, or BitVector. BitVectors of up to 32 bits are
+ * treated as signed 32-bit values, as integers are.
+ * 
+ * @author Trevor Robinson
+ */
+final class JunoRegion
+{
+    private static final int STRIPE_COUNT = 16;
+
+    private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(
+        STRIPE_COUNT);
+
+    /**
+     * Attempts to enter this region for the given values.
+     *
+     * @param wait if true, block until all of the values are available
+     * @param values the values to lock
+     * @return true if the values were locked, false if wait was false and
+     *      some value was already locked
+     */
+    public boolean enter(boolean wait, Object[] values)
+    {
+        final Object[] keys = getKeys(values);
+        final int[] stripeIndices = getStripeIndices(keys);
+        while (true)
+        {
+            final Object blockerKey;
+            final LockedValue blocker;
+            final Semaphore release;
+            lockStripes(stripeIndices);
+            try
+            {
+                blockerKey = findLockedKey(keys);
+                if (blockerKey == null)
+                {
+                    for (Object key : keys)
+                    {
+                        getStripe(key).lockedValues.put(key, new LockedValue());
+                    }
+                    return true;
+                }
+                if (!wait) return false;
+                blocker = getStripe(blockerKey).lockedValues.get(blockerKey);
+                ++blocker.waiters;
+                release = blocker.getRelease();
+            }
+            finally
+            {
+                unlockStripes(stripeIndices);
+            }
+
+            // wait for the blocking value to be released, then try again;
+            // the waiter is counted before the stripe is unlocked, so an exit
+            // in between releases a permit that the acquire then takes
+            FunctionProfile.pause();
+            try
+            {
+                release.acquire(1);
+            }
+            finally
+            {
+                FunctionProfile.resume();
+                final Stripe stripe = getStripe(blockerKey);
+                stripe.lock.lock();
+                try
+                {
+                    --blocker.waiters;
+                }
+                finally
+                {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Exits this region for the given values, waking any threads waiting for
+     * them. Values that are not locked are ignored.
+     *
+     * @param values the values to unlock
+     */
+    public void exit(Object[] values)
+    {
+        final Object[] keys = getKeys(values);
+        for (Object key : keys)
+        {
+            // a value in a stripe that was never created is not locked
+            final Stripe stripe = stripes.get(getStripeIndex(key));
+            if (stripe == null) continue;
+
+            final LockedValue lockedValue;
+            final int waiters;
+            stripe.lock.lock();
+            try
+            {
+                lockedValue = stripe.lockedValues.remove(key);
+                waiters = lockedValue != null ? lockedValue.waiters : 0;
+            }
+            finally
+            {
+                stripe.lock.unlock();
+            }
+            if (waiters > 0)
+            {
+                // each waiter retries and waits again for any other blocker
+                lockedValue.getRelease().release(waiters);
+            }
+        }
+    }
+
+    private Object findLockedKey(Object[] keys)
+    {
+        for (Object key : keys)
+        {
+            if (getStripe(key).lockedValues.containsKey(key)) return key;
+        }
+        return null;
+    }
+
+    private Stripe getStripe(Object key)
+    {
+        return getStripe(getStripeIndex(key));
+    }
+
+    private Stripe getStripe(int index)
+    {
+        Stripe stripe = stripes.get(index);
+        if (stripe == null)
+        {
+            stripe = new Stripe();
+            if (!stripes.compareAndSet(index, null, stripe))
+            {
+                stripe = stripes.get(index);
+            }
+        }
+        return stripe;
+    }
+
+    private static int getStripeIndex(Object key)
+    {
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & (STRIPE_COUNT - 1);
+    }
+
+    private static int[] getStripeIndices(Object[] keys)
+    {
+        // collect the distinct stripe indices in ascending order
+        final boolean[] present = new boolean[STRIPE_COUNT];
+        int count = 0;
+        for (Object key : keys)
+        {
+            final int index = getStripeIndex(key);
+            if (!present[index])
+            {
+                present[index] = true;
+                ++count;
+            }
+        }
+        final int[] indices = new int[count];
+        for (int i = 0, j = 0; i < STRIPE_COUNT; ++i)
+        {
+            if (present[i]) indices[j++] = i;
+        }
+        return indices;
+    }
+
+    private void lockStripes(int[] stripeIndices)
+    {
+        for (int i = 0; i < stripeIndices.length; ++i)
+        {
+            getStripe(stripeIndices[i]).lock.lock();
+        }
+    }
+
+    private void unlockStripes(int[] stripeIndices)
+    {
+        for (int i = stripeIndices.length - 1; i >= 0; --i)
+        {
+            stripes.get(stripeIndices[i]).lock.unlock();
+        }
+    }
+
+    private static Object[] getKeys(Object[] values)
+    {
+        final Object[] keys = new Object[values.length];
+        int count = 0;
+        outer: for (Object value : values)
+        {
+            final Object key = getKey(value);
+            for (int i = 0; i < count; ++i)
+            {
+                // a value listed twice is locked once
+                if (keys[i].equals(key)) continue outer;
+            }
+            keys[count++] = key;
+        }
+        if (count < keys.length)
+        {
+            final Object[] distinctKeys = new Object[count];
+            System.arraycopy(keys, 0, distinctKeys, 0, count);
+            return distinctKeys;
+        }
+        return keys;
+    }
+
+    private static Object getKey(Object value)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Null region value");
+        }
+        if (value instanceof Integer || value instanceof Long)
+        {
+            return Long.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BitVector)
+        {
+            final BitVector bv = (BitVector) value;
+            if (bv.containsXZ())
+            {
+                throw new RuntimeException("Undefined region value: " + bv);
+            }
+            if (bv.length() <= 32)
+            {
+                // sign-extend from 32 bits, so that 'hFFFFFFFF matches -1
+                return Long.valueOf((int) bv.longValue());
+            }
+            if (bv.length() <= 64)
+            {
+                return Long.valueOf(bv.longValue());
+            }
+        }
+        return value;
+    }
+
+    private static final class Stripe
+    {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Object, LockedValue> lockedValues = new HashMap<Object, LockedValue>();
+    }
+
+    private static final class LockedValue
+    {
+        int waiters;
+        private Semaphore release;
+
+        Semaphore getRelease()
+        {
+            // only created if some thread waits for this value
+            synchronized (this)
+            {
+                if (release == null)
+                {
+                    release = DV.simulation.createSemaphore(0);
+                }
+                return release;
+            }
+        }
+    }
+}
@@ -21,7 +21,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import com.newisys.dv.DV;
 import com.newisys.verilog.util.BitVector;
 
 /**
@@ -122,7 +121,7 @@ public final class JunoString
     {
         if (changeEvent != null)
         {
-            DV.simulation.notifyOf(changeEvent);
+            changeEvent.notifyChange();
         }
     }
 
@@ -191,6 +190,56 @@ public final class JunoString
         return this;
     }
 
+    /**
+     * Appends the given Strings to this JunoString in place. This is
+     * equivalent to assigning the concatenation of this JunoString and
+     * <code>strs</code>, but avoids copying the current contents unless the
+     * buffer is shared with another JunoString.
+     *
+     * @param strs the Strings to append; null elements are ignored
+     * @return this JunoString after the append
+     */
+    public JunoString append(String... strs)
+    {
+        int len = 0;
+        for (final String str : strs)
+        {
+            if (str != null) len += str.length();
+        }
+        status = OK;
+        if (len > 0)
+        {
+            if (buffer == null)
+            {
+                buffer = new StringBuffer(len);
+            }
+            else if (bufferShared)
+            {
+                StringBuffer newBuffer = new StringBuffer(buffer.length() + len);
+                newBuffer.append(buffer);
+                buffer = newBuffer;
+            }
+            else
+            {
+                buffer.ensureCapacity(buffer.length() + len);
+            }
+            bufferShared = false;
+            for (final String str : strs)
+            {
+                if (str != null) buffer.append(str);
+            }
+            notifyChange();
+        }
+        else if (buffer != null && buffer.length() == 0)
+        {
+            // a concatenation of empty strings is the null string
+            buffer = null;
+            bufferShared = false;
+            notifyChange();
+        }
+        return this;
+    }
+
     /**
      * Returns the length of this JunoString.
      *
@@ -498,22 +547,48 @@ public final class JunoString
      */
     public int match(String pattern)
     {
-        status = OK;
-        matcher = null;
-        boolean matched = false;
         if (buffer != null && pattern != null)
         {
             try
             {
-                Pattern p = Pattern.compile(pattern);
-                matcher = p.matcher(buffer);
-                matched = matcher.find();
+                return match(Pattern.compile(pattern));
             }
             catch (PatternSyntaxException e)
             {
                 status = STR_ERR_REGEXP_SYNTAX;
+                matcher = null;
+                return 0;
             }
         }
+        status = OK;
+        matcher = null;
+        return 0;
+    }
+
+    /**
+     * Finds the specified precompiled regular expression in this JunoString.
+     * <P>
+     * If the pattern is found in this JunoString, 1 is returned.
+     * Otherwise, 0 is returned. The status of this JunoString is always set
+     * to {@link #OK}, since the pattern is known to be legal.
+     * <P>
+     * This method is equivalent to {@link #match(String)}, but avoids
+     * compiling the pattern on each call. It is generally used for patterns
+     * specified as literals.
+     *
+     * @param pattern the regular expression to match
+     * @return 1 if a match was found, 0 otherwise
+     */
+    public int match(Pattern pattern)
+    {
+        status = OK;
+        matcher = null;
+        boolean matched = false;
+        if (buffer != null)
+        {
+            matcher = pattern.matcher(buffer);
+            matched = matcher.find();
+        }
         return matched ? 1 : 0;
     }
 
@@ -17,24 +17,51 @@
 
 package com.newisys.juno.runtime;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import com.newisys.eventsim.SimulationThread;
 
 /**
  * Used internally by the Juno runtime to track threads forked from different
  * contexts, which is necessary to implement wait_child().
+ * <P>
+ * Each context tracks only its live children: threads forked while it was the
+ * current context (or forked in a nested context that has since been left)
+ * which have not yet finished. A child removes itself when its Runnable
+ * completes, so wait_child() joins only live threads and the bookkeeping stays
+ * bounded no matter how many threads a testbench forks. Leaving a nested
+ * context moves its live children to the parent context, so a fork costs
+ * constant time regardless of context nesting depth.
+ * <P>
+ * The current context of a simulation thread is kept in a thread-local slot
+ * of the Java thread running it. A simulation thread stays on one Java thread
+ * for its whole life, since its stack lives there, so the slot needs no
+ * locking. A Java thread may go on to run later simulation threads, so each
+ * context records the simulation thread that owns it, and a context found in
+ * the slot is ignored unless its owner is asking. The slot is cleared when
+ * its thread leaves its outermost context.
  * 
  * @author Trevor Robinson
  */
 final class JunoThreadContext
 {
+    private static final ThreadLocal<JunoThreadContext> currentContext = new ThreadLocal<JunoThreadContext>();
+
+    // guards the live child sets of all contexts and the context of each
+    // child, since children move between contexts and finish asynchronously
+    private static final Object childLock = new Object();
+
+    private final SimulationThread owner;
     private final JunoThreadContext parentContext;
-    private final List<SimulationThread> forkedThreads = new LinkedList<SimulationThread>();
+    private final Set<ForkedChild> liveChildren = new LinkedHashSet<ForkedChild>();
 
-    public JunoThreadContext(JunoThreadContext parentContext)
+    public JunoThreadContext(
+        SimulationThread owner,
+        JunoThreadContext parentContext)
     {
+        this.owner = owner;
         this.parentContext = parentContext;
     }
 
@@ -43,13 +70,166 @@ final class JunoThreadContext
         return parentContext;
     }
 
-    public List<SimulationThread> getForkedThreads()
+    /**
+     * Creates a Runnable that runs <code>r</code> as a live child of this
+     * context. The child is registered before it is forked, so it cannot
+     * finish before it is tracked.
+     *
+     * @param r the Runnable to be executed by the child thread
+     * @return a ForkedChild to be passed to the simulation kernel
+     */
+    public ForkedChild newChild(Runnable r)
+    {
+        final ForkedChild child = new ForkedChild(r, this);
+        synchronized (childLock)
+        {
+            liveChildren.add(child);
+        }
+        return child;
+    }
+
+    /**
+     * Returns the threads of the live children of this context.
+     *
+     * @return an array of the live child threads
+     */
+    public SimulationThread[] getLiveThreads()
+    {
+        synchronized (childLock)
+        {
+            final SimulationThread[] threads = new SimulationThread[liveChildren
+                .size()];
+            int count = 0;
+            for (final ForkedChild child : liveChildren)
+            {
+                if (child.thread != null) threads[count++] = child.thread;
+            }
+            if (count < threads.length)
+            {
+                final SimulationThread[] result = new SimulationThread[count];
+                System.arraycopy(threads, 0, result, 0, count);
+                return result;
+            }
+            return threads;
+        }
+    }
+
+    /**
+     * Called when the owning thread leaves this context. Live children move
+     * to the parent context, so that a wait_child() there still waits for
+     * them; children of an outermost context are no longer tracked.
+     */
+    public void leave()
+    {
+        synchronized (childLock)
+        {
+            final Iterator<ForkedChild> iter = liveChildren.iterator();
+            while (iter.hasNext())
+            {
+                final ForkedChild child = iter.next();
+                child.context = parentContext;
+                if (parentContext != null)
+                {
+                    parentContext.liveChildren.add(child);
+                }
+            }
+            liveChildren.clear();
+        }
+    }
+
+    /**
+     * Runnable wrapper that removes a forked thread from the live children of
+     * its context when the thread finishes.
+     */
+    static final class ForkedChild
+        implements Runnable
+    {
+        private final Runnable r;
+        JunoThreadContext context;
+        SimulationThread thread;
+
+        ForkedChild(Runnable r, JunoThreadContext context)
+        {
+            this.r = r;
+            this.context = context;
+        }
+
+        /**
+         * Records the thread running this child, once the fork returns.
+         *
+         * @param thread the forked SimulationThread
+         */
+        public void setThread(SimulationThread thread)
+        {
+            synchronized (childLock)
+            {
+                // the thread may already have finished
+                if (context != null) this.thread = thread;
+            }
+        }
+
+        public void run()
+        {
+            try
+            {
+                r.run();
+            }
+            finally
+            {
+                synchronized (childLock)
+                {
+                    if (context != null)
+                    {
+                        context.liveChildren.remove(this);
+                        context = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the current context of the given thread, which must be the
+     * current simulation thread.
+     *
+     * @param t the current simulation thread
+     * @return the current context of <code>t</code>, or null if it is not
+     *      within any context
+     */
+    public static JunoThreadContext getCurrent(SimulationThread t)
+    {
+        final JunoThreadContext c = currentContext.get();
+        return (c != null && c.owner == t) ? c : null;
+    }
+
+    /**
+     * Sets the current context of the given thread, which must be the current
+     * simulation thread.
+     *
+     * @param t the current simulation thread
+     * @param c the new current context of <code>t</code>, or null if it is
+     *      leaving its outermost context
+     */
+    public static void setCurrent(SimulationThread t, JunoThreadContext c)
     {
-        return forkedThreads;
+        if (c != null)
+        {
+            assert (c.owner == t);
+            currentContext.set(c);
+        }
+        else
+        {
+            currentContext.remove();
+        }
     }
 
-    public void addForkedThread(SimulationThread t)
+    /**
+     * Discards the context of the calling thread. Contexts left in the slots
+     * of other Java threads belong to other simulation threads, so they are
+     * never returned for a later thread.
+     */
+    public static void clearCurrent()
     {
-        forkedThreads.add(t);
+        currentContext.remove();
     }
 }
@@ -0,0 +1,724 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.juno.runtime;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Associative array with 64-bit two-state keys. Keys are stored as primitive
+ * longs in an open-addressing hash table, so accesses with int or long
+ * indices do not allocate. A sorted index of the keys is built the first time
+ * the keys are iterated using {@link #first} and {@link #next}. Keys removed
+ * afterwards stay in the index and are skipped, and keys added afterwards are
+ * merged into it the next time it is used, so updates never shift the index.
+ * The index is discarded if removed keys come to dominate it.
+ * <P>
+ * Keys are ordered as unsigned 64-bit values, which matches the ordering of
+ * the equivalent BitVector keys. BitVector keys are truncated to 64 bits,
+ * the width of a Vera associative array index.
+ *
+ * @param <V> value type
+ * @author Trevor Robinson
+ */
+public class LongAssocArray<V>
+    extends BitAssocArray<V>
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+
+    // sorted key index, built on demand by first/next; keys are biased by
+    // Long.MIN_VALUE so that they can be compared as signed values, and the
+    // first sortedCount elements are valid, including removed keys
+    private transient long[] sortedKeys;
+    private transient int sortedCount;
+
+    // biased keys added since the sorted key index was last used
+    private transient long[] pendingKeys;
+    private transient int pendingCount;
+
+    // cached key iteration position, or -1 if none
+    private transient int cachedPrevIndex = -1;
+
+    // incremented when the sorted key index is rebuilt or discarded
+    private transient int indexVersion;
+
+    /**
+     * Creates a LongAssocArray with a default value of null.
+     */
+    public LongAssocArray()
+    {
+        this((V) null);
+    }
+
+    /**
+     * Creates a LongAssocArray with the specified default value. If a key is
+     * requested that does not exist in this array, the default value will be
+     * returned.
+     *
+     * @param nullValue the default value for this array
+     */
+    public LongAssocArray(V nullValue)
+    {
+        this(new ImmutableValueFactory<V>(nullValue));
+    }
+
+    /**
+     * Creates a LongAssocArray with the specified default value factory. If a
+     * key is requested that does not exist in this array, the factory will be
+     * used to instantiate the default value.
+     *
+     * @param nullValueFactory the value factory used to create default values
+     */
+    public LongAssocArray(ValueFactory< ? extends V> nullValueFactory)
+    {
+        super(nullValueFactory);
+        init(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a LongAssocArray which is a copy of the specified array.
+     *
+     * @param other the array to copy
+     */
+    public LongAssocArray(LongAssocArray< ? extends V> other)
+    {
+        super(other);
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.used = other.used.clone();
+        this.size = other.size;
+    }
+
+    private void init(int capacity)
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    private static int hash(long key)
+    {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot containing the given key, or -1 if the key is not
+     * present.
+     */
+    private int findSlot(long key)
+    {
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i])
+        {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a mapping for a key known not to be present.
+     */
+    private void insert(long key, Object value)
+    {
+        if ((size + 1) * 4 > keys.length * 3)
+        {
+            rehash(keys.length * 2);
+            JunoMetrics.ASSOC_RESIZES.increment();
+        }
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i])
+        {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+        ++size;
+    }
+
+    /**
+     * Adds a mapping for a new key on behalf of a caller.
+     */
+    private void insertNew(long key, Object value)
+    {
+        insert(key, value);
+        if (sortedKeys != null)
+        {
+            // defer adding new key to sorted key index until it is used
+            if (pendingKeys == null)
+            {
+                pendingKeys = new long[MIN_CAPACITY];
+            }
+            else if (pendingCount == pendingKeys.length)
+            {
+                final long[] pending = new long[pendingCount * 2];
+                System.arraycopy(pendingKeys, 0, pending, 0, pendingCount);
+                pendingKeys = pending;
+            }
+            pendingKeys[pendingCount++] = key ^ Long.MIN_VALUE;
+            trimSortedKeys();
+        }
+        JunoMetrics.ASSOC_INSERTS.increment();
+        JunoMetrics.ASSOC_MAX_SIZE.update(size);
+    }
+
+    private void rehash(int capacity)
+    {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final boolean[] oldUsed = used;
+        init(capacity);
+        for (int i = 0; i < oldKeys.length; ++i)
+        {
+            if (oldUsed[i])
+            {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping in the given slot, shifting back any following
+     * entries in the same probe sequence.
+     */
+    private void removeSlot(int i)
+    {
+        final int mask = keys.length - 1;
+        int j = i;
+        while (true)
+        {
+            j = (j + 1) & mask;
+            if (!used[j]) break;
+            final int home = hash(keys[j]) & mask;
+            // move entry j into the hole at i unless its home slot lies
+            // cyclically within (i, j]
+            if (i <= j ? (i < home && home <= j) : (i < home || home <= j))
+            {
+                continue;
+            }
+            keys[i] = keys[j];
+            values[i] = values[j];
+            i = j;
+        }
+        used[i] = false;
+        values[i] = null;
+        --size;
+    }
+
+    private static long toKey(int key)
+    {
+        // int indices are zero-extended, as when converted to BitVector
+        return key & 0xFFFFFFFFL;
+    }
+
+    private long toKey(BitVector key)
+    {
+        validateKey(key);
+        return key.longValue();
+    }
+
+    private static BitVector toBitVector(long key)
+    {
+        return new BitVector(64, key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getImpl(long key, boolean keepNew)
+    {
+        final int i = findSlot(key);
+        V value = i >= 0 ? (V) values[i] : null;
+        if (value == null)
+        {
+            value = getNullValueFactory().newInstance();
+            if (keepNew)
+            {
+                if (i >= 0)
+                {
+                    values[i] = value;
+                }
+                else
+                {
+                    insertNew(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V get(long key)
+    {
+        return getImpl(key, false);
+    }
+
+    /**
+     * Gets the value for the specified unsigned 32-bit key from this
+     * associative array.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V get(int key)
+    {
+        return getImpl(toKey(key), false);
+    }
+
+    public V get(BitVector key)
+    {
+        return getImpl(toKey(key), false);
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array. If the
+     * array contains no mapping for the key, a mapping is added to the default
+     * value.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V getOrCreate(long key)
+    {
+        return getImpl(key, true);
+    }
+
+    /**
+     * Gets the value for the specified unsigned 32-bit key from this
+     * associative array. If the array contains no mapping for the key, a
+     * mapping is added to the default value.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V getOrCreate(int key)
+    {
+        return getImpl(toKey(key), true);
+    }
+
+    public V getOrCreate(BitVector key)
+    {
+        return getImpl(toKey(key), true);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * associative array.
+     *
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     */
+    public void put(long key, V value)
+    {
+        final int i = findSlot(key);
+        if (i >= 0)
+        {
+            values[i] = value;
+        }
+        else
+        {
+            insertNew(key, value);
+        }
+    }
+
+    /**
+     * Associates the specified value with the specified unsigned 32-bit key in
+     * this associative array.
+     *
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     */
+    public void put(int key, V value)
+    {
+        put(toKey(key), value);
+    }
+
+    public void put(BitVector key, V value)
+    {
+        put(toKey(key), value);
+    }
+
+    public int check()
+    {
+        return size;
+    }
+
+    /**
+     * Checks if there is a mapping in this associative array for the specified
+     * key.
+     *
+     * @param key the key to check for a mapping
+     * @return <code>1</code> if there is an entry in this associative array for
+     *      <code>key</code>, <code>0</code> otherwise
+     */
+    public int check(long key)
+    {
+        return findSlot(key) >= 0 ? 1 : 0;
+    }
+
+    public int check(int key)
+    {
+        return check(toKey(key));
+    }
+
+    public int check(BitVector key)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("AssocArray.check: null key");
+        }
+        return check(toKey(key));
+    }
+
+    public int delete()
+    {
+        init(MIN_CAPACITY);
+        discardSortedKeys();
+        return 1;
+    }
+
+    /**
+     * Deletes the entry in this associative array for the specified key (if
+     * one exists).
+     *
+     * @param key the key to delete the mapping of
+     * @return <code>1</code> if the key exists in this associative array and
+     *      was deleted, <code>0</code> otherwise
+     */
+    public int delete(long key)
+    {
+        final int i = findSlot(key);
+        if (i >= 0)
+        {
+            // removed key is skipped by sorted key index
+            removeSlot(i);
+            if (sortedKeys != null)
+            {
+                trimSortedKeys();
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+    public int delete(int key)
+    {
+        return delete(toKey(key));
+    }
+
+    public int delete(BitVector key)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("AssocArray.delete: null key");
+        }
+        return delete(toKey(key));
+    }
+
+    /**
+     * Returns the index of the given biased key in the sorted key index, or
+     * <code>(-(insertion point) - 1)</code> if it is not present.
+     */
+    private int findSortedKey(long biasedKey)
+    {
+        final long[] sorted = sortedKeys;
+        int low = 0;
+        int high = sortedCount - 1;
+        while (low <= high)
+        {
+            final int mid = (low + high) >>> 1;
+            final long midKey = sorted[mid];
+            if (midKey < biasedKey)
+            {
+                low = mid + 1;
+            }
+            else if (midKey > biasedKey)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the sorted key index, building it or merging pending keys into
+     * it if necessary.
+     */
+    private long[] getSortedKeys()
+    {
+        if (sortedKeys == null)
+        {
+            final long[] sorted = new long[size];
+            int count = 0;
+            for (int i = 0; i < keys.length; ++i)
+            {
+                if (used[i]) sorted[count++] = keys[i] ^ Long.MIN_VALUE;
+            }
+            Arrays.sort(sorted);
+            sortedKeys = sorted;
+            sortedCount = count;
+            cachedPrevIndex = -1;
+            ++indexVersion;
+        }
+        else if (pendingCount > 0)
+        {
+            mergePendingKeys();
+        }
+        return sortedKeys;
+    }
+
+    /**
+     * Merges the keys added since the sorted key index was last used into
+     * the index. Keys that were removed and added again are kept only once.
+     */
+    private void mergePendingKeys()
+    {
+        final long[] sorted = sortedKeys;
+        final long[] pending = pendingKeys;
+        Arrays.sort(pending, 0, pendingCount);
+        final long[] merged = new long[sortedCount + pendingCount];
+        int i = 0, j = 0, count = 0;
+        while (i < sortedCount || j < pendingCount)
+        {
+            final long key;
+            if (j == pendingCount
+                || (i < sortedCount && sorted[i] <= pending[j]))
+            {
+                key = sorted[i++];
+            }
+            else
+            {
+                key = pending[j++];
+            }
+            if (count == 0 || merged[count - 1] != key)
+            {
+                merged[count++] = key;
+            }
+        }
+        sortedKeys = merged;
+        sortedCount = count;
+        pendingCount = 0;
+        cachedPrevIndex = -1;
+        ++indexVersion;
+    }
+
+    /**
+     * Discards the sorted key index if removed and pending keys make up most
+     * of it, so that it is rebuilt from the hash table when next used.
+     */
+    private void trimSortedKeys()
+    {
+        if (sortedCount + pendingCount > size * 2 + MIN_CAPACITY)
+        {
+            discardSortedKeys();
+        }
+    }
+
+    private void discardSortedKeys()
+    {
+        sortedKeys = null;
+        sortedCount = 0;
+        pendingKeys = null;
+        pendingCount = 0;
+        cachedPrevIndex = -1;
+        ++indexVersion;
+    }
+
+    /**
+     * Returns the first position at or after the given one in the sorted key
+     * index whose key has not been removed. The index must have no pending
+     * keys.
+     */
+    private int skipRemovedKeys(int index)
+    {
+        // every key is present unless the index has more keys than the table
+        if (sortedCount > size)
+        {
+            final long[] sorted = sortedKeys;
+            while (index < sortedCount
+                && findSlot(sorted[index] ^ Long.MIN_VALUE) < 0)
+            {
+                ++index;
+            }
+        }
+        return index;
+    }
+
+    public BitVector first()
+    {
+        if (size > 0)
+        {
+            final long[] sorted = getSortedKeys();
+            final int index = skipRemovedKeys(0);
+            cachedPrevIndex = index;
+            return toBitVector(sorted[index] ^ Long.MIN_VALUE);
+        }
+        return NULL_KEY;
+    }
+
+    public BitVector next(BitVector prevKey)
+    {
+        if (prevKey.containsXZ()) return NULL_KEY;
+        final long biasedPrevKey = prevKey.longValue() ^ Long.MIN_VALUE;
+        final long[] sorted = getSortedKeys();
+
+        // can we use cached position?
+        int index;
+        if (cachedPrevIndex >= 0 && sorted[cachedPrevIndex] == biasedPrevKey)
+        {
+            index = cachedPrevIndex + 1;
+        }
+        else
+        {
+            // find first key greater than given key
+            index = findSortedKey(biasedPrevKey);
+            index = index >= 0 ? index + 1 : -(index + 1);
+        }
+        index = skipRemovedKeys(index);
+        if (index < sortedCount)
+        {
+            cachedPrevIndex = index;
+            return toBitVector(sorted[index] ^ Long.MIN_VALUE);
+        }
+        cachedPrevIndex = -1;
+        return NULL_KEY;
+    }
+
+    public Iterator<BitVector> keyIterator()
+    {
+        return new LongKeyIterator();
+    }
+
+    /**
+     * Key iterator that tracks its position in the sorted key index and
+     * relocates it by binary search if the index is rebuilt.
+     */
+    private final class LongKeyIterator
+        implements Iterator<BitVector>
+    {
+        private int expectedIndexVersion = indexVersion;
+        private int nextIndex;
+        private long lastKey;
+        private boolean started;
+        private boolean canRemove;
+
+        private int getNextIndex()
+        {
+            getSortedKeys();
+            if (expectedIndexVersion != indexVersion)
+            {
+                // find first key greater than last returned key
+                if (started)
+                {
+                    final int index = findSortedKey(lastKey);
+                    nextIndex = index >= 0 ? index + 1 : -(index + 1);
+                }
+                else
+                {
+                    nextIndex = 0;
+                }
+                expectedIndexVersion = indexVersion;
+            }
+            nextIndex = skipRemovedKeys(nextIndex);
+            return nextIndex;
+        }
+
+        public boolean hasNext()
+        {
+            return size > 0 && getNextIndex() < sortedCount;
+        }
+
+        public BitVector next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            lastKey = sortedKeys[nextIndex++];
+            started = true;
+            canRemove = true;
+            return toBitVector(lastKey ^ Long.MIN_VALUE);
+        }
+
+        public void remove()
+        {
+            if (!canRemove)
+            {
+                throw new IllegalStateException();
+            }
+            delete(lastKey ^ Long.MIN_VALUE);
+            canRemove = false;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#clone()
+     */
+    public LongAssocArray<V> clone()
+    {
+        return new LongAssocArray<V>(this);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        final long[] sorted = getSortedKeys();
+        final StringBuilder buf = new StringBuilder();
+        buf.append('{');
+        boolean first = true;
+        for (int i = 0; i < sortedCount; ++i)
+        {
+            final long key = sorted[i] ^ Long.MIN_VALUE;
+            final int slot = findSlot(key);
+            if (slot < 0) continue;
+            if (!first) buf.append(", ");
+            buf.append(toBitVector(key));
+            buf.append('=');
+            buf.append(values[slot]);
+            first = false;
+        }
+        buf.append('}');
+        return buf.toString();
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.juno.runtime;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Associative array implementation based on a standard map.
+ * <P>
+ * Entries are stored in a hash table by default, so that lookups and updates
+ * do not depend on the number of entries. A sorted index of the keys is
+ * built the first time the keys are iterated using {@link #first} and
+ * {@link #next}. The index is a tree, so keeping it up to date as keys are
+ * added and removed costs no more than storing the entries in a sorted map.
+ * Subclasses whose keys do not have an <code>equals</code> method consistent
+ * with their natural ordering may request a sorted map instead, which then
+ * serves as its own index.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Trevor Robinson
+ */
+public class MapAssocArray<K, V>
+    extends AssocArray<K, V>
+{
+    private final Map<K, V> map;
+
+    // sorted key index of a hash table, built on demand by first/next
+    private transient SortedMap<K, Boolean> sortedIndex;
+
+    // cached key iteration position, valid while modCount is unchanged
+    private transient Iterator<K> cachedIter;
+    private transient K cachedPrevKey;
+    private transient int cachedModCount;
+
+    // incremented when a key is added or removed
+    private transient int modCount;
+
+    /**
+     * Creates a MapAssocArray with a default value of null.
+     */
+    public MapAssocArray()
+    {
+        this((V) null);
+    }
+
+    /**
+     * Creates a MapAssocArray with the specified default value. If a key is
+     * requested that does not exist in this array, the default value will be
+     * returned.
+     *
+     * @param nullValue the default value for this array
+     */
+    public MapAssocArray(V nullValue)
+    {
+        this(new ImmutableValueFactory<V>(nullValue), false);
+    }
+
+    /**
+     * Creates a MapAssocArray with the specified default value factory. If a
+     * key is requested that does not exist in this array, the factory will be
+     * used to instantiate the default value.
+     *
+     * @param nullValueFactory the value factory used to create default values
+     */
+    public MapAssocArray(ValueFactory< ? extends V> nullValueFactory)
+    {
+        this(nullValueFactory, false);
+    }
+
+    /**
+     * Creates a MapAssocArray with the specified default value factory, which
+     * stores its entries in either a hash table or a sorted map.
+     *
+     * @param nullValueFactory the value factory used to create default values
+     * @param sortedMap indicates whether to use a sorted map, which compares
+     *      keys using only their natural ordering
+     */
+    protected MapAssocArray(
+        ValueFactory< ? extends V> nullValueFactory,
+        boolean sortedMap)
+    {
+        super(nullValueFactory);
+        this.map = sortedMap ? new TreeMap<K, V>() : new HashMap<K, V>();
+    }
+
+    /**
+     * Creates a new MapAssocArray which is a copy of the specified array.
+     *
+     * @param other the array to copy
+     */
+    public MapAssocArray(MapAssocArray< ? extends K, ? extends V> other)
+    {
+        super(other);
+        if (other.map instanceof SortedMap)
+        {
+            this.map = new TreeMap<K, V>(other.map);
+        }
+        else
+        {
+            this.map = new HashMap<K, V>(other.map);
+        }
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param keepNew indicates whether to add a mapping to the default value
+     *      if this associative array contains no mapping for this key
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    private V getImpl(K key, boolean keepNew)
+    {
+        V value = map.get(key);
+        if (value == null)
+        {
+            value = getNullValueFactory().newInstance();
+            if (keepNew)
+            {
+                putImpl(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V get(K key)
+    {
+        return getImpl(key, false);
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array. If the
+     * array contains no mapping for the key, a mapping is added to the default
+     * value.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     */
+    public V getOrCreate(K key)
+    {
+        return getImpl(key, true);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * associative array.
+     *
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     */
+    public void put(K key, V value)
+    {
+        putImpl(key, value);
+    }
+
+    private void putImpl(K key, V value)
+    {
+        // a null previous value may be a new key or a mapping to null, so
+        // detect new keys by the change in size
+        final int oldSize = map.size();
+        map.put(key, value);
+        if (map.size() != oldSize)
+        {
+            ++modCount;
+            JunoMetrics.ASSOC_INSERTS.increment();
+            JunoMetrics.ASSOC_MAX_SIZE.update(map.size());
+            if (sortedIndex != null)
+            {
+                sortedIndex.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Checks if there are any entries in this associative array.
+     *
+     * @return the number of entries in this associative array
+     */
+    public int check()
+    {
+        return map.size();
+    }
+
+    /**
+     * Checks if there is a mapping in this associative array for the specified
+     * key.
+     *
+     * @param key the key to check for a mapping
+     * @return <code>1</code> if there is an entry in this associative array for
+     *      <code>key</code>, <code>0</code> otherwise
+     */
+    public int check(K key)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("AssocArray.check: null key");
+        }
+        return map.containsKey(key) ? 1 : 0;
+    }
+
+    /**
+     * Remove all entries from this associative array.
+     *
+     * @return <code>1</code>
+     */
+    public int delete()
+    {
+        map.clear();
+        ++modCount;
+        sortedIndex = null;
+        cachedIter = null;
+        cachedPrevKey = null;
+        return 1;
+    }
+
+    /**
+     * Deletes the entry in this associative array for the specified key (if
+     * one exists).
+     *
+     * @param key the key to delete the mapping of
+     * @return <code>1</code> if the key exists in this associative array and
+     *      was deleted, <code>0</code> otherwise
+     */
+    public int delete(K key)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("AssocArray.delete: null key");
+        }
+        if (map.containsKey(key))
+        {
+            map.remove(key);
+            ++modCount;
+            if (sortedIndex != null)
+            {
+                sortedIndex.remove(key);
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the sorted key index, building it if necessary.
+     */
+    private SortedMap<K, ? > getSortedIndex()
+    {
+        if (map instanceof SortedMap)
+        {
+            return (SortedMap<K, V>) map;
+        }
+        if (sortedIndex == null)
+        {
+            sortedIndex = new TreeMap<K, Boolean>();
+            for (final K key : map.keySet())
+            {
+                sortedIndex.put(key, Boolean.TRUE);
+            }
+        }
+        return sortedIndex;
+    }
+
+    /**
+     * Returns an iterator over the keys greater than the given key, in
+     * ascending order.
+     */
+    @SuppressWarnings("unchecked")
+    private Iterator<K> keysAfter(K key)
+    {
+        final SortedMap<K, ? > tailMap = getSortedIndex().tailMap(key);
+        final Iterator<K> iter = tailMap.keySet().iterator();
+        if (iter.hasNext()
+            && ((Comparable<K>) tailMap.firstKey()).compareTo(key) == 0)
+        {
+            // skip given key
+            iter.next();
+        }
+        return iter;
+    }
+
+    /**
+     * Returns the first key in this associative array. This method can be used
+     * with {@link #next} to iterate all keys in the array.
+     *
+     * @return the first key in this associative array, or null if this array
+     *      is empty
+     */
+    public K first()
+    {
+        if (!map.isEmpty())
+        {
+            cachedIter = getSortedIndex().keySet().iterator();
+            cachedPrevKey = cachedIter.next();
+            cachedModCount = modCount;
+            return cachedPrevKey;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key following the given key in this associative array. This
+     * method can be used with {@link #first} to iterate all keys in the array.
+     *
+     * @param prevKey a previously returned key
+     * @return the key following <code>prevKey</code> in this associative
+     *      array, or null if there are no more keys
+     */
+    public K next(K prevKey)
+    {
+        // can we use cached iterator?
+        final Iterator<K> iter;
+        if (cachedIter != null && cachedModCount == modCount
+            && cachedPrevKey.equals(prevKey))
+        {
+            iter = cachedIter;
+        }
+        else
+        {
+            // create new key iterator using given key
+            iter = keysAfter(prevKey);
+        }
+        if (iter.hasNext())
+        {
+            cachedIter = iter;
+            cachedPrevKey = iter.next();
+            cachedModCount = modCount;
+            return cachedPrevKey;
+        }
+
+        // clear cached iterator
+        cachedIter = null;
+        cachedPrevKey = null;
+
+        return null;
+    }
+
+    public Iterator<K> keyIterator()
+    {
+        return new KeyIterator();
+    }
+
+    /**
+     * Key iterator that walks the sorted key index, and continues after the
+     * last returned key if keys are added or removed.
+     */
+    private final class KeyIterator
+        implements Iterator<K>
+    {
+        private Iterator<K> iter;
+        private int expectedModCount;
+        private K lastKey;
+        private boolean canRemove;
+
+        private Iterator<K> getIterator()
+        {
+            if (iter == null || expectedModCount != modCount)
+            {
+                // find first key greater than last returned key
+                iter = lastKey != null ? keysAfter(lastKey) : getSortedIndex()
+                    .keySet().iterator();
+                expectedModCount = modCount;
+            }
+            return iter;
+        }
+
+        public boolean hasNext()
+        {
+            return !map.isEmpty() && getIterator().hasNext();
+        }
+
+        public K next()
+        {
+            final Iterator<K> keys = getIterator();
+            if (!keys.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            lastKey = keys.next();
+            canRemove = true;
+            return lastKey;
+        }
+
+        public void remove()
+        {
+            if (!canRemove)
+            {
+                throw new IllegalStateException();
+            }
+            delete(lastKey);
+            canRemove = false;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#clone()
+     */
+    public MapAssocArray<K, V> clone()
+    {
+        return new MapAssocArray<K, V>(this);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        // print entries in key order
+        final StringBuilder buf = new StringBuilder();
+        buf.append('{');
+        boolean first = true;
+        for (final K key : getSortedIndex().keySet())
+        {
+            if (!first) buf.append(", ");
+            buf.append(key);
+            buf.append('=');
+            buf.append(map.get(key));
+            first = false;
+        }
+        buf.append('}');
+        return buf.toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+/**
+ * Precomputed selection table for a randcase statement with constant weights.
+ * Translated code creates one table per distinct set of weights as a static
+ * constant. Each selection draws a single random value, exactly like
+ * {@link Juno#randcase(int[])}, and finds the chosen case by binary search
+ * over the cumulative weights, so results are identical to the linear scan
+ * for the same random sequence.
+ *
+ * @author Trevor Robinson
+ */
+public final class RandCaseTable
+{
+    private final int[] cumulative;
+    private final int sum;
+
+    /**
+     * Creates a RandCaseTable for the given case weights.
+     *
+     * @param weights the weight of each case
+     * @throws IllegalArgumentException if any weight is negative or the total
+     *             weight is not positive
+     */
+    public RandCaseTable(int[] weights)
+    {
+        cumulative = new int[weights.length];
+        long sum = 0;
+        for (int i = 0; i < weights.length; ++i)
+        {
+            if (weights[i] < 0)
+            {
+                throw new IllegalArgumentException(
+                    "randcase weights must be non-negative");
+            }
+            sum += weights[i];
+            cumulative[i] = (int) sum;
+        }
+        if (sum <= 0 || sum > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Invalid total weight in randcase: "
+                + sum);
+        }
+        this.sum = (int) sum;
+    }
+
+    /**
+     * Randomly chooses a case according to the weights of this table.
+     *
+     * @return the index of the chosen case
+     */
+    public int select()
+    {
+        return select(Juno.random() % sum);
+    }
+
+    /**
+     * Returns the case chosen for the given random value.
+     *
+     * @param rand a value in the range [0, total weight)
+     * @return the index of the chosen case
+     */
+    int select(int rand)
+    {
+        // find the first case whose cumulative weight exceeds rand;
+        // zero-weight cases are never chosen
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (cumulative[mid] > rand)
+            {
+                high = mid;
+            }
+            else
+            {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
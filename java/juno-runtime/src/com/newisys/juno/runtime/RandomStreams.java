@@ -0,0 +1,135 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.newisys.juno.runtime;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.newisys.dv.DV;
+import com.newisys.eventsim.SimulationThread;
+import com.newisys.random.LinearCongruentialFactory;
+import com.newisys.random.PRNG;
+import com.newisys.random.PRNGFactoryFactory;
+
+/**
+ * Used internally by the Juno runtime to manage the random streams of threads
+ * and objects.
+ * <P>
+ * Random streams are seeded hierarchically: each thread forked through
+ * {@link Juno#fork} and each {@link JunoObject} gets its own stream, seeded
+ * from the stream of the thread that created it at the time of creation. The
+ * values a thread or object generates therefore depend only on its creation
+ * order within its parent thread, rather than on the interleaving of all
+ * threads, and threads never share generator state.
+ * <P>
+ * The 48-bit linear congruential streams used by rand48() and urand48() are
+ * kept in a registry weakly keyed by thread. A thread without its own stream
+ * (such as the initial thread) uses a global stream.
+ * 
+ * @author Trevor Robinson
+ */
+final class RandomStreams
+{
+    private static final Map<SimulationThread, PRNG> rand48Streams = Collections
+        .synchronizedMap(new WeakHashMap<SimulationThread, PRNG>());
+
+    private static PRNG globalRand48 = LinearCongruentialFactory.INSTANCE
+        .newInstance();
+
+    private RandomStreams()
+    {
+    }
+
+    /**
+     * Returns a seed for a new stream, drawn from the given parent stream.
+     *
+     * @param parent the parent random stream
+     * @return a seed for a child stream
+     */
+    public static int nextSeed(PRNG parent)
+    {
+        return parent.nextBits(32);
+    }
+
+    /**
+     * Creates a new stream of the default type with the given seed.
+     *
+     * @param seed the seed of the new stream
+     * @return a new PRNG
+     */
+    public static PRNG newStream(int seed)
+    {
+        return PRNGFactoryFactory.getDefaultFactory().newInstance(seed);
+    }
+
+    /**
+     * Returns the rand48 stream of the current thread.
+     *
+     * @return the rand48 PRNG of the current thread
+     */
+    public static PRNG getRand48()
+    {
+        final SimulationThread t = DV.simulation.currentThread();
+        final PRNG rng = (t != null) ? rand48Streams.get(t) : null;
+        return (rng != null) ? rng : globalRand48;
+    }
+
+    /**
+     * Reseeds the rand48 stream of the current thread.
+     *
+     * @param seed the new seed
+     */
+    public static void seedRand48(int seed)
+    {
+        final PRNG rng = LinearCongruentialFactory.INSTANCE.newInstance(seed);
+        final SimulationThread t = DV.simulation.currentThread();
+        if (t != null && rand48Streams.containsKey(t))
+        {
+            rand48Streams.put(t, rng);
+        }
+        else
+        {
+            globalRand48 = rng;
+        }
+    }
+
+    /**
+     * Returns a Runnable that installs random streams derived from those of
+     * the current thread before running <code>r</code>. The seeds are drawn
+     * when this method is called, so they depend only on the state of the
+     * forking thread.
+     *
+     * @param r the Runnable to be executed by the new thread
+     * @return a Runnable that seeds the new thread and then runs r
+     */
+    public static Runnable newSeededRunnable(final Runnable r)
+    {
+        final int seed = nextSeed(DV.simulation.getRandom());
+        final int rand48Seed = nextSeed(getRand48());
+        return new Runnable()
+        {
+            public void run()
+            {
+                DV.simulation.setRandom(newStream(seed));
+                rand48Streams.put(DV.simulation.currentThread(),
+                    LinearCongruentialFactory.INSTANCE.newInstance(rand48Seed));
+                r.run();
+            }
+        };
+    }
+}
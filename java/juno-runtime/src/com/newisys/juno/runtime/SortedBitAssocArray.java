@@ -0,0 +1,193 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.Iterator;
+
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * BitVector-keyed associative array of unrestricted key width. Entries are
+ * stored in a sorted map, since BitVector keys of different lengths may
+ * compare equal but not be equal.
+ *
+ * @param <V> value type
+ * @author Trevor Robinson
+ */
+public class SortedBitAssocArray<V>
+    extends BitAssocArray<V>
+{
+    private final MapAssocArray<BitVector, V> map;
+
+    /**
+     * Creates a SortedBitAssocArray with a default value of null.
+     */
+    public SortedBitAssocArray()
+    {
+        this((V) null);
+    }
+
+    /**
+     * Creates a SortedBitAssocArray with the specified default value. If a key
+     * is requested that does not exist in this array, the default value will
+     * be returned.
+     *
+     * @param nullValue the default value for this array
+     */
+    public SortedBitAssocArray(V nullValue)
+    {
+        this(new ImmutableValueFactory<V>(nullValue));
+    }
+
+    /**
+     * Creates a SortedBitAssocArray with the specified default value factory.
+     * If a key is requested that does not exist in this array, the factory
+     * will be used to instantiate the default value.
+     *
+     * @param nullValueFactory the value factory used to create default values
+     */
+    public SortedBitAssocArray(ValueFactory< ? extends V> nullValueFactory)
+    {
+        super(nullValueFactory);
+        map = new MapAssocArray<BitVector, V>(nullValueFactory, true);
+    }
+
+    /**
+     * Creates a SortedBitAssocArray which is a copy of the specified array.
+     *
+     * @param other the array to copy
+     */
+    public SortedBitAssocArray(SortedBitAssocArray< ? extends V> other)
+    {
+        super(other);
+        map = new MapAssocArray<BitVector, V>(other.map);
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     * @throws RuntimeException if key contains X/Z
+     */
+    public V get(BitVector key)
+    {
+        validateKey(key);
+        return map.get(key);
+    }
+
+    /**
+     * Gets the value for the specified key from this associative array. If the
+     * array contains no mapping for the key, a mapping is added to the default
+     * value.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value which maps to the specified key, or the default value
+     *      if this associative array contains no mapping for this key
+     * @throws RuntimeException if key contains X/Z
+     */
+    public V getOrCreate(BitVector key)
+    {
+        validateKey(key);
+        return map.getOrCreate(key);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * associative array.
+     *
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @throws RuntimeException if key contains X/Z
+     */
+    public void put(BitVector key, V value)
+    {
+        validateKey(key);
+        map.put(key, value);
+    }
+
+    public int check()
+    {
+        return map.check();
+    }
+
+    public int check(BitVector key)
+    {
+        return map.check(key);
+    }
+
+    public int delete()
+    {
+        return map.delete();
+    }
+
+    public int delete(BitVector key)
+    {
+        return map.delete(key);
+    }
+
+    /**
+     * Returns the first key in this associative array. This method can be used
+     * with {@link #next} to iterate all keys in the array.
+     *
+     * @return the first key in this associative array, or X if this array is
+     *      empty
+     */
+    public BitVector first()
+    {
+        BitVector first = map.first();
+        return first != null ? first : NULL_KEY;
+    }
+
+    /**
+     * Returns the key following the given key in this associative array. This
+     * method can be used with {@link #first} to iterate all keys in the array.
+     *
+     * @param prevKey a previously returned key
+     * @return the key following <code>prevKey</code> in this associative
+     *      array, or X if there are no more keys
+     */
+    public BitVector next(BitVector prevKey)
+    {
+        BitVector next = map.next(prevKey);
+        return next != null ? next : NULL_KEY;
+    }
+
+    public Iterator<BitVector> keyIterator()
+    {
+        return map.keyIterator();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#clone()
+     */
+    public SortedBitAssocArray<V> clone()
+    {
+        return new SortedBitAssocArray<V>(this);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        return map.toString();
+    }
+}
@@ -24,7 +24,7 @@ package com.newisys.juno.runtime;
  * @author Trevor Robinson
  */
 public class StringAssocArray<V>
-    extends AssocArray<String, V>
+    extends MapAssocArray<String, V>
 {
     /**
      * Creates a StringAssocArray.
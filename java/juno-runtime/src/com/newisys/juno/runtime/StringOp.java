@@ -170,22 +170,52 @@ public final class StringOp
         Matcher[] matcher_ref,
         int[] status_ref)
     {
-        Matcher matcher = null;
-        boolean matched = false;
-        int status = JunoString.OK;
         if (s != null && pattern != null)
         {
             try
             {
-                Pattern p = Pattern.compile(pattern);
-                matcher = p.matcher(s);
-                matched = matcher.find();
+                return match(s, Pattern.compile(pattern), matcher_ref,
+                    status_ref);
             }
             catch (PatternSyntaxException e)
             {
-                status = JunoString.STR_ERR_REGEXP_SYNTAX;
+                return matchResult(null, false,
+                    JunoString.STR_ERR_REGEXP_SYNTAX, matcher_ref, status_ref);
             }
         }
+        return matchResult(null, false, JunoString.OK, matcher_ref, status_ref);
+    }
+
+    public static int match(String s, Pattern pattern)
+    {
+        // ignore returned matcher and status
+        return match(s, pattern, null, null);
+    }
+
+    public static int match(
+        String s,
+        Pattern pattern,
+        Matcher[] matcher_ref,
+        int[] status_ref)
+    {
+        Matcher matcher = null;
+        boolean matched = false;
+        if (s != null)
+        {
+            matcher = pattern.matcher(s);
+            matched = matcher.find();
+        }
+        return matchResult(matcher, matched, JunoString.OK, matcher_ref,
+            status_ref);
+    }
+
+    private static int matchResult(
+        Matcher matcher,
+        boolean matched,
+        int status,
+        Matcher[] matcher_ref,
+        int[] status_ref)
+    {
         if (matcher_ref != null)
         {
             matcher_ref[0] = matcher;
@@ -20,6 +20,7 @@ package com.newisys.printf;
 import com.newisys.printf.ConversionFormatter;
 import com.newisys.printf.PrintfFlag;
 import com.newisys.printf.PrintfFormatter;
+import com.newisys.printf.PrintfSpec;
 
 //Vera's printf function is a bit inconsistent, with quite a few corner cases.
 //What follows is a list of cases I've found where Vera's printf is either
@@ -204,6 +205,11 @@ public final class VeraPrintfFormatter
 
     @Override
     protected final PrintfFlag getFlag(char conversionSpec)
+    {
+        return getVeraFlag(conversionSpec);
+    }
+
+    static PrintfFlag getVeraFlag(char conversionSpec)
     {
         // Vera supports only a subset of the normal printf flags
         switch (conversionSpec)
@@ -242,6 +248,52 @@ public final class VeraPrintfFormatter
         }
     }
 
+    /**
+     * Formats the given arguments using a pre-parsed format plan. This is
+     * equivalent to calling sprintf with the format string of the plan, but
+     * avoids parsing the format and sizes the output buffer up front.
+     *
+     * @param plan the pre-parsed format
+     * @param args the arguments to format
+     * @return the formatted string
+     */
+    public String sprintf(VeraPrintfPlan plan, Object... args)
+    {
+        // bind arguments to conversions and determine the output length
+        final int conversionCount = plan.getConversionCount();
+        final PrintfSpec[] specs = new PrintfSpec[conversionCount];
+        final ConversionFormatter[] specFormatters = new ConversionFormatter[conversionCount];
+        int length = plan.getLiteralLength();
+        int argIndex = 0;
+        for (int i = 0; i < conversionCount; ++i)
+        {
+            final PrintfSpec template = plan.getTemplate(i);
+            final char c = template.conversionSpec;
+            final ConversionFormatter formatter = c < 128 ? formatters[c]
+                : getFormatter(c);
+            Object obj = null;
+            if (formatter.consumesArg(template) && args != null
+                && argIndex < args.length)
+            {
+                obj = args[argIndex++];
+            }
+            final PrintfSpec spec = plan.newSpec(i, obj);
+            length += formatter.getMaximumLength(spec);
+            specs[i] = spec;
+            specFormatters[i] = formatter;
+        }
+
+        // append literals and converted arguments
+        final StringBuilder buf = new StringBuilder(length);
+        for (int i = 0; i < conversionCount; ++i)
+        {
+            buf.append(plan.getLiteral(i));
+            specFormatters[i].format(specs[i], buf);
+        }
+        buf.append(plan.getLiteral(conversionCount));
+        return postProcess(buf).toString();
+    }
+
     @Override
     protected final CharSequence postProcess(CharSequence buf)
     {
@@ -0,0 +1,178 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.printf;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.newisys.printf.PrintfFlag;
+import com.newisys.printf.PrintfSpec;
+
+/**
+ * Pre-parsed Vera printf format string. A plan holds the literal segments of
+ * the format and a template conversion spec for each conversion, so that
+ * formatting with a plan only needs to convert the arguments. Plans are
+ * immutable and may be shared between threads.
+ * 
+ * @author Trevor Robinson
+ */
+public final class VeraPrintfPlan
+{
+    private final String format;
+    private final String[] literals;
+    private final PrintfSpec[] conversions;
+    private final int literalLength;
+
+    public VeraPrintfPlan(String format)
+    {
+        this.format = format;
+
+        final List<String> literalList = new ArrayList<String>();
+        final List<PrintfSpec> conversionList = new ArrayList<PrintfSpec>();
+        final StringBuilder literalBuf = new StringBuilder();
+        final int length = format.length();
+        int i = 0;
+        while (i < length)
+        {
+            final char c = format.charAt(i);
+            if (c != '%')
+            {
+                literalBuf.append(c);
+                ++i;
+                continue;
+            }
+
+            // parse %[flags][width][.precision]conversion
+            final int startIdx = i++;
+            final EnumSet<PrintfFlag> flags = EnumSet.noneOf(PrintfFlag.class);
+            while (i < length)
+            {
+                final PrintfFlag flag = VeraPrintfFormatter.getVeraFlag(format
+                    .charAt(i));
+                if (flag == null) break;
+                flags.add(flag);
+                ++i;
+            }
+            final int widthIdx = i;
+            final int width = parseDigits(format, i);
+            while (i < length && Character.isDigit(format.charAt(i)))
+            {
+                ++i;
+            }
+            final boolean widthIsValid = i > widthIdx;
+            int precision = 0;
+            boolean precisionIsValid = false;
+            if (i < length && format.charAt(i) == '.')
+            {
+                ++i;
+                precision = parseDigits(format, i);
+                precisionIsValid = true;
+                while (i < length && Character.isDigit(format.charAt(i)))
+                {
+                    ++i;
+                }
+            }
+            if (i == length)
+            {
+                // incomplete conversion at end of format is printed literally
+                literalBuf.append(format, startIdx, length);
+                break;
+            }
+            final char conversionSpec = format.charAt(i++);
+
+            literalList.add(literalBuf.toString());
+            literalBuf.setLength(0);
+            conversionList.add(new PrintfSpec(startIdx, i, conversionSpec,
+                flags, width, widthIsValid, precision, precisionIsValid, null));
+        }
+        literalList.add(literalBuf.toString());
+
+        literals = literalList.toArray(new String[literalList.size()]);
+        conversions = conversionList.toArray(new PrintfSpec[conversionList
+            .size()]);
+        int totalLength = 0;
+        for (final String literal : literals)
+        {
+            totalLength += literal.length();
+        }
+        literalLength = totalLength;
+    }
+
+    private static int parseDigits(String s, int i)
+    {
+        int value = 0;
+        final int length = s.length();
+        while (i < length && Character.isDigit(s.charAt(i)))
+        {
+            value = value * 10 + (s.charAt(i++) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns the format string this plan was parsed from.
+     *
+     * @return the format string
+     */
+    public String getFormat()
+    {
+        return format;
+    }
+
+    int getConversionCount()
+    {
+        return conversions.length;
+    }
+
+    /**
+     * Returns the literal text preceding the given conversion. The literal
+     * following the last conversion has index getConversionCount().
+     */
+    String getLiteral(int index)
+    {
+        return literals[index];
+    }
+
+    int getLiteralLength()
+    {
+        return literalLength;
+    }
+
+    PrintfSpec getTemplate(int index)
+    {
+        return conversions[index];
+    }
+
+    /**
+     * Returns a new conversion spec for the given conversion and argument.
+     * Formatters cache per-call state in the spec, so templates are never
+     * passed to them directly.
+     */
+    PrintfSpec newSpec(int index, Object obj)
+    {
+        final PrintfSpec t = conversions[index];
+        return new PrintfSpec(t.startIdx, t.endIdx, t.conversionSpec, t.flags,
+            t.width, t.widthIsValid, t.precision, t.precisionIsValid, obj);
+    }
+
+    public String toString()
+    {
+        return format;
+    }
+}
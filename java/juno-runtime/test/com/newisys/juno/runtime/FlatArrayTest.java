@@ -0,0 +1,269 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Tests the X tracking and index mapping of FlatIntArray and FlatLongArray
+ * against a simple model of the nested arrays they replace, in which each
+ * element is either X or a known value.
+ * 
+ * @author Trevor Robinson
+ */
+public class FlatArrayTest
+    extends TestCase
+{
+    private final Random random = new Random(1);
+
+    private static void assertSameElements(
+        FlatArray array,
+        boolean[] expectedX,
+        long[] expectedValues)
+    {
+        boolean anyX = false;
+        for (int i = 0; i < expectedX.length; ++i)
+        {
+            assertEquals(expectedX[i], array.isX(i));
+            final BitVector value = getBitVector(array, i);
+            assertEquals(array.getWidth(), value.length());
+            if (expectedX[i])
+            {
+                assertEquals(new BitVector(array.getWidth(), Bit.X), value);
+                anyX = true;
+            }
+            else
+            {
+                assertFalse(value.containsXZ());
+                assertEquals(expectedValues[i], value.longValue());
+            }
+        }
+        assertEquals(anyX, array.containsX());
+    }
+
+    private static BitVector getBitVector(FlatArray array, int index)
+    {
+        return array instanceof FlatIntArray ? ((FlatIntArray) array)
+            .getBitVector(index) : ((FlatLongArray) array).getBitVector(index);
+    }
+
+    private void checkRandomStores(FlatArray array, boolean isLong)
+    {
+        final int length = array.length();
+        final int width = array.getWidth();
+        final long mask = width < 64 ? (1L << width) - 1 : -1L;
+        final boolean[] expectedX = new boolean[length];
+        final long[] expectedValues = new long[length];
+
+        // all elements start out as X
+        Arrays.fill(expectedX, true);
+        assertSameElements(array, expectedX, expectedValues);
+
+        // assign every element, so that the X bitset is discarded
+        for (int i = 0; i < length; ++i)
+        {
+            final long value = random.nextLong();
+            store(array, isLong, i, value);
+            expectedX[i] = false;
+            expectedValues[i] = value & mask;
+        }
+        assertSameElements(array, expectedX, expectedValues);
+        assertFalse(array.containsX());
+
+        // mix X and known stores
+        for (int n = 0; n < length * 4; ++n)
+        {
+            final int i = random.nextInt(length);
+            if (random.nextInt(3) == 0)
+            {
+                storeX(array, isLong, i);
+                expectedX[i] = true;
+                expectedValues[i] = 0;
+            }
+            else
+            {
+                final long value = random.nextLong();
+                store(array, isLong, i, value);
+                expectedX[i] = false;
+                expectedValues[i] = value & mask;
+            }
+            assertEquals(expectedX[i], array.isX(i));
+        }
+        assertSameElements(array, expectedX, expectedValues);
+
+        // copies are independent
+        final FlatArray copy = isLong ? new FlatLongArray((FlatLongArray) array)
+            : new FlatIntArray((FlatIntArray) array);
+        assertSameElements(copy, expectedX, expectedValues);
+        storeX(array, isLong, 0);
+        store(copy, isLong, 0, 1);
+        assertTrue(array.isX(0));
+        assertFalse(copy.isX(0));
+    }
+
+    private static void store(
+        FlatArray array,
+        boolean isLong,
+        int index,
+        long value)
+    {
+        if (isLong)
+        {
+            ((FlatLongArray) array).setLong(index, value);
+        }
+        else if ((value & 1) == 0)
+        {
+            ((FlatIntArray) array).setInt(index, (int) value);
+        }
+        else
+        {
+            ((FlatIntArray) array).setBitVector(index, new BitVector(32,
+                value & 0xFFFFFFFFL));
+        }
+    }
+
+    private static void storeX(FlatArray array, boolean isLong, int index)
+    {
+        final BitVector x = new BitVector(array.getWidth(), Bit.X);
+        if (isLong)
+        {
+            ((FlatLongArray) array).setBitVector(index, x);
+        }
+        else
+        {
+            ((FlatIntArray) array).setBitVector(index, x);
+        }
+    }
+
+    public void testIntArrays()
+    {
+        final int[] widths = { 1, 5, 31, 32 };
+        final int[] lengths = { 1, 63, 64, 65, 150 };
+        for (final int width : widths)
+        {
+            for (final int length : lengths)
+            {
+                checkRandomStores(new FlatIntArray(width, length), false);
+            }
+        }
+    }
+
+    public void testLongArrays()
+    {
+        final int[] widths = { 33, 48, 63, 64 };
+        final int[] lengths = { 1, 63, 64, 65, 150 };
+        for (final int width : widths)
+        {
+            for (final int length : lengths)
+            {
+                checkRandomStores(new FlatLongArray(width, length), true);
+            }
+        }
+    }
+
+    public void testIntegerNull()
+    {
+        final FlatIntArray array = new FlatIntArray(32, 2);
+        array.setInteger(0, Integer.valueOf(-1));
+        assertEquals(Integer.valueOf(-1), array.getInteger(0));
+        assertNull(array.getInteger(1));
+        array.setInteger(1, Integer.valueOf(7));
+        assertFalse(array.containsX());
+        array.setInteger(0, null);
+        assertTrue(array.isX(0));
+        assertNull(array.getInteger(0));
+    }
+
+    public void testPrimitiveGet()
+    {
+        final FlatIntArray ints = new FlatIntArray(32, 2, 2);
+        ints.setInt(1, -5);
+        assertEquals(-5, ints.getInt(1));
+        ints.setBitVector(3, new BitVector(32, Bit.X));
+        try
+        {
+            ints.getInt(3);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        final FlatLongArray longs = new FlatLongArray(64, 2, 2);
+        longs.setLong(2, Long.MIN_VALUE + 3);
+        assertEquals(Long.MIN_VALUE + 3, longs.getLong(2));
+        longs.setBitVector(0, new BitVector(64, Bit.X));
+        try
+        {
+            longs.getLong(0);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testIndexMapping()
+    {
+        final FlatIntArray array = new FlatIntArray(8, 3, 4, 5);
+        int expected = 0;
+        for (int i = 0; i < 3; ++i)
+        {
+            for (int j = 0; j < 4; ++j)
+            {
+                for (int k = 0; k < 5; ++k)
+                {
+                    assertEquals(expected, array.index(i, j, k));
+                    assertEquals(expected, array.index(new int[] { i, j, k }));
+                    ++expected;
+                }
+            }
+        }
+        assertEquals(60, array.length());
+
+        final FlatIntArray array2 = new FlatIntArray(8, 3, 4);
+        assertEquals(7, array2.index(1, 3));
+        try
+        {
+            array2.index(3, 0);
+            fail("expected ArrayIndexOutOfBoundsException");
+        }
+        catch (ArrayIndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            array2.index(0, -1);
+            fail("expected ArrayIndexOutOfBoundsException");
+        }
+        catch (ArrayIndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+}
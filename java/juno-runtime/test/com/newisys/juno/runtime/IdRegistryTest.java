@@ -0,0 +1,159 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests IdRegistry against a sorted map of the registered IDs.
+ * 
+ * @author Trevor Robinson
+ */
+public class IdRegistryTest
+    extends TestCase
+{
+    public void testPutGet()
+    {
+        final IdRegistry<String> registry = new IdRegistry<String>();
+        assertNull(registry.get(0));
+        assertNull(registry.get(-1));
+        assertFalse(registry.contains(0));
+        assertFalse(registry.contains(-1));
+
+        registry.put(0, "a");
+        registry.put(100, "b");
+        assertEquals("a", registry.get(0));
+        assertEquals("b", registry.get(100));
+        assertNull(registry.get(50));
+        assertTrue(registry.contains(100));
+        assertFalse(registry.contains(50));
+
+        registry.put(0, "c");
+        assertEquals("c", registry.get(0));
+    }
+
+    public void testNegativeId()
+    {
+        final IdRegistry<String> registry = new IdRegistry<String>();
+        try
+        {
+            registry.put(-1, "a");
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testLargeIds()
+    {
+        final IdRegistry<String> registry = new IdRegistry<String>();
+        registry.put(Integer.MAX_VALUE, "a");
+        registry.put(1 << 30, "b");
+        registry.put(5, "c");
+        assertEquals("a", registry.get(Integer.MAX_VALUE));
+        assertEquals("b", registry.get(1 << 30));
+        assertTrue(registry.contains(1 << 30));
+        assertFalse(registry.contains((1 << 30) + 1));
+        assertNull(registry.get((1 << 30) - 1));
+        assertEquals(5, registry.nextId(0));
+        assertEquals(1 << 30, registry.nextId(6));
+        assertEquals(Integer.MAX_VALUE, registry.nextId((1 << 30) + 1));
+        assertEquals(0, registry.findFreeRange(5));
+        assertEquals(6, registry.findFreeRange(6));
+
+        // a free range may not run into a sparse ID
+        registry.put(65540, "d");
+        assertEquals(65541, registry.findFreeRange(65535));
+        registry.clear();
+        assertFalse(registry.contains(Integer.MAX_VALUE));
+    }
+
+    public void testClear()
+    {
+        final IdRegistry<String> registry = new IdRegistry<String>();
+        registry.put(5, "a");
+        registry.clear();
+        assertNull(registry.get(5));
+        assertFalse(registry.contains(5));
+        assertEquals(-1, registry.nextId(0));
+    }
+
+    public void testRandomAgainstMap()
+    {
+        final Random random = new Random(1);
+        final IdRegistry<Integer> registry = new IdRegistry<Integer>();
+        final TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+        for (int n = 0; n < 200; ++n)
+        {
+            // allocate a range, as Juno.alloc does
+            final int count = 1 + random.nextInt(4);
+            final int start = registry.findFreeRange(count);
+            assertEquals(findFreeRange(expected, count), start);
+            for (int i = 0; i < count; ++i)
+            {
+                assertFalse(registry.contains(start + i));
+                registry.put(start + i, Integer.valueOf(n));
+                expected.put(Integer.valueOf(start + i), Integer.valueOf(n));
+            }
+
+            // occasionally re-register at a sparse ID
+            if (random.nextInt(10) == 0)
+            {
+                final int id = random.nextInt(1000);
+                registry.put(id, Integer.valueOf(-n));
+                expected.put(Integer.valueOf(id), Integer.valueOf(-n));
+            }
+        }
+
+        for (int id = -1; id < 1100; ++id)
+        {
+            final Integer key = Integer.valueOf(id);
+            assertEquals(expected.containsKey(key), registry.contains(id));
+            assertEquals(expected.get(key), registry.get(id));
+
+            if (id >= 0)
+            {
+                final SortedMap<Integer, Integer> tail = expected.tailMap(key);
+                assertEquals(tail.isEmpty() ? -1 : tail.firstKey().intValue(),
+                    registry.nextId(id));
+            }
+        }
+    }
+
+    private static int findFreeRange(TreeMap<Integer, Integer> used, int count)
+    {
+        int start = 0;
+        while (true)
+        {
+            int i = 0;
+            while (i < count && !used.containsKey(Integer.valueOf(start + i)))
+            {
+                ++i;
+            }
+            if (i == count) return start;
+            start += i + 1;
+        }
+    }
+}
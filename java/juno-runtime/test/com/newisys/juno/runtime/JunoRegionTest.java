@@ -0,0 +1,151 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import junit.framework.TestCase;
+
+import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Tests the non-blocking behavior of JunoRegion: value normalization,
+ * all-or-nothing entry and release. Blocking entry waits on a simulation
+ * semaphore and is not covered here.
+ * 
+ * @author Trevor Robinson
+ */
+public class JunoRegionTest
+    extends TestCase
+{
+    private final JunoRegion region = new JunoRegion();
+
+    private boolean tryEnter(Object... values)
+    {
+        return region.enter(false, values);
+    }
+
+    private void exit(Object... values)
+    {
+        region.exit(values);
+    }
+
+    public void testEnterExit()
+    {
+        assertTrue(tryEnter(1));
+        assertFalse(tryEnter(1));
+        assertTrue(tryEnter(2));
+        exit(1);
+        assertTrue(tryEnter(1));
+        assertFalse(tryEnter(2));
+    }
+
+    public void testAllOrNothing()
+    {
+        assertTrue(tryEnter(1, 2));
+        assertFalse(tryEnter(2, 3));
+        // 3 must not have been locked by the failed attempt
+        assertTrue(tryEnter(3));
+        exit(1, 2);
+        assertTrue(tryEnter(1, 2));
+    }
+
+    public void testDuplicateValues()
+    {
+        assertTrue(tryEnter(5, 5, Long.valueOf(5)));
+        exit(5);
+        assertTrue(tryEnter(5));
+    }
+
+    public void testExitUnlocked()
+    {
+        exit(7, "foo");
+        assertTrue(tryEnter(7, "foo"));
+        assertFalse(tryEnter("foo"));
+    }
+
+    public void testNumericKeys()
+    {
+        assertTrue(tryEnter(Integer.valueOf(42)));
+        assertFalse(tryEnter(Long.valueOf(42)));
+        assertFalse(tryEnter(new BitVector(32, 42)));
+        assertFalse(tryEnter(new BitVector(64, 42)));
+        exit(new BitVector(8, 42));
+        assertTrue(tryEnter(Long.valueOf(42)));
+    }
+
+    public void testSignExtendedKeys()
+    {
+        assertTrue(tryEnter(Integer.valueOf(-1)));
+        assertFalse(tryEnter(new BitVector(32, 0xFFFFFFFFL)));
+        exit(new BitVector(32, 0xFFFFFFFFL));
+        // narrower values are zero-extended to 32 bits first
+        assertTrue(tryEnter(new BitVector(16, 0xFFFFL)));
+        assertFalse(tryEnter(0xFFFF));
+        assertTrue(tryEnter(Integer.valueOf((short) -1)));
+        exit(-1);
+
+        // 64-bit values are not sign-extended from 32 bits
+        assertTrue(tryEnter(new BitVector(64, 0xFFFFFFFFL)));
+        assertTrue(tryEnter(-1));
+        assertFalse(tryEnter(Long.valueOf(0xFFFFFFFFL)));
+    }
+
+    public void testManyValues()
+    {
+        final Object[] values = new Object[100];
+        for (int i = 0; i < values.length; ++i)
+        {
+            values[i] = Integer.valueOf(i * 7919);
+        }
+        assertTrue(region.enter(false, values));
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertFalse(tryEnter(values[i]));
+        }
+        region.exit(values);
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertTrue(tryEnter(values[i]));
+        }
+    }
+
+    public void testInvalidValues()
+    {
+        try
+        {
+            tryEnter(1, null);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            tryEnter(new BitVector(8, Bit.X));
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException e)
+        {
+            // expected
+        }
+        // failed attempts lock nothing
+        assertTrue(tryEnter(1));
+    }
+}
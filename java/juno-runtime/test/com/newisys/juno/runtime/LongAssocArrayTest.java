@@ -0,0 +1,311 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Tests LongAssocArray against the map-based BitVector associative array it
+ * replaces for bit-indexed arrays of up to 64 bits.
+ * 
+ * @author Trevor Robinson
+ */
+public class LongAssocArrayTest
+    extends TestCase
+{
+    private final Random random = new Random(1);
+
+    // small key space with both halves of the unsigned range, so that
+    // operations often hit existing keys and ordering is exercised
+    private long randomKey()
+    {
+        final long key = random.nextInt(64);
+        switch (random.nextInt(3))
+        {
+        case 0:
+            return key;
+        case 1:
+            return key | 0x80000000L;
+        default:
+            return ~key;
+        }
+    }
+
+    private static BitVector bv(long key)
+    {
+        return new BitVector(64, key);
+    }
+
+    private static void assertSameEntries(
+        BitObjectAssocArray expected,
+        LongObjectAssocArray array)
+    {
+        assertEquals(expected.check(), array.check());
+        BitVector expectedKey = expected.first();
+        BitVector key = array.first();
+        while (true)
+        {
+            assertEquals(expectedKey, key);
+            if (key == BitAssocArray.NULL_KEY) break;
+            assertEquals(expected.get(key), array.get(key));
+            expectedKey = expected.next(expectedKey);
+            key = array.next(key);
+        }
+        assertEquals(expected.toString(), array.toString());
+    }
+
+    public void testKeyConversions()
+    {
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        array.put(-1, "int");
+        assertEquals("int", array.get(0xFFFFFFFFL));
+        assertEquals("int", array.get(bv(0xFFFFFFFFL)));
+        assertEquals(0, array.check(-1L));
+
+        array.put(-1L, "long");
+        assertEquals("long", array.get(bv(-1L)));
+        assertEquals(bv(0xFFFFFFFFL), array.first());
+        assertEquals(bv(-1L), array.next(bv(0xFFFFFFFFL)));
+
+        try
+        {
+            array.get(new BitVector(64, Bit.X));
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEmpty()
+    {
+        final LongObjectAssocArray array = new LongObjectAssocArray("default");
+        assertEquals(0, array.check());
+        assertEquals(BitAssocArray.NULL_KEY, array.first());
+        assertEquals(BitAssocArray.NULL_KEY, array.next(bv(0)));
+        assertFalse(array.keyIterator().hasNext());
+        assertEquals("default", array.get(5));
+        assertEquals(0, array.check(5));
+        assertEquals("default", array.getOrCreate(5));
+        assertEquals(1, array.check(5));
+    }
+
+    public void testRandomOperations()
+    {
+        final BitObjectAssocArray expected = new BitObjectAssocArray();
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        for (int n = 0; n < 20000; ++n)
+        {
+            final long key = randomKey();
+            final BitVector bvKey = bv(key);
+            switch (random.nextInt(8))
+            {
+            case 0:
+            case 1:
+                // insert enough keys to force rehashing
+                expected.put(bvKey, Integer.valueOf(n));
+                array.put(key, Integer.valueOf(n));
+                break;
+            case 2:
+                expected.put(bv(key & 0xFFFFFFFFL), Integer.valueOf(n));
+                array.put((int) key, Integer.valueOf(n));
+                break;
+            case 3:
+                assertEquals(expected.delete(bvKey), array.delete(key));
+                break;
+            case 4:
+                assertEquals(expected.check(bvKey), array.check(bvKey));
+                assertEquals(expected.get(bvKey), array.get(key));
+                break;
+            case 5:
+                assertEquals(expected.getOrCreate(bvKey), array
+                    .getOrCreate(bvKey));
+                break;
+            case 6:
+                // next of an arbitrary key, present or not
+                assertEquals(expected.next(bvKey), array.next(bvKey));
+                break;
+            default:
+                if (random.nextInt(100) == 0)
+                {
+                    assertEquals(expected.delete(), array.delete());
+                }
+                else
+                {
+                    assertEquals(expected.first(), array.first());
+                }
+            }
+        }
+        assertSameEntries(expected, array);
+    }
+
+    public void testDeleteWhileWalking()
+    {
+        final BitObjectAssocArray expected = new BitObjectAssocArray();
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        for (int i = 0; i < 2000; ++i)
+        {
+            final long key = random.nextLong();
+            expected.put(bv(key), Integer.valueOf(i));
+            array.put(key, Integer.valueOf(i));
+        }
+
+        // walk with FIRST/NEXT, deleting most keys and adding a few
+        int count = 0;
+        BitVector key = array.first();
+        assertEquals(expected.first(), key);
+        while (key != BitAssocArray.NULL_KEY)
+        {
+            if (count % 4 != 0)
+            {
+                assertEquals(expected.delete(key), array.delete(key));
+            }
+            if (count % 9 == 0)
+            {
+                final long newKey = random.nextLong();
+                expected.put(bv(newKey), Integer.valueOf(-count));
+                array.put(newKey, Integer.valueOf(-count));
+            }
+            ++count;
+            final BitVector next = array.next(key);
+            assertEquals(expected.next(key), next);
+            key = next;
+        }
+        assertSameEntries(expected, array);
+    }
+
+    public void testUpdatesAfterWalk()
+    {
+        final BitObjectAssocArray expected = new BitObjectAssocArray();
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        for (int i = 0; i < 200; ++i)
+        {
+            expected.put(bv(i), Integer.valueOf(i));
+            array.put(i, Integer.valueOf(i));
+        }
+        assertSameEntries(expected, array);
+
+        // churn the keys after the index is built: remove keys and add them
+        // back, so that removed and pending keys pile up in the index
+        for (int n = 0; n < 5000; ++n)
+        {
+            final long key = random.nextInt(400);
+            if (random.nextBoolean())
+            {
+                assertEquals(expected.delete(bv(key)), array.delete(key));
+            }
+            else
+            {
+                expected.put(bv(key), Integer.valueOf(n));
+                array.put(key, Integer.valueOf(n));
+            }
+            if (n % 1000 == 0)
+            {
+                assertSameEntries(expected, array);
+            }
+        }
+        assertSameEntries(expected, array);
+    }
+
+    public void testReinsertWhileWalking()
+    {
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        for (int i = 0; i < 10; ++i)
+        {
+            array.put(i * 10 + 10, Integer.valueOf(i));
+        }
+
+        // delete and restore each key, and add one before it
+        int count = 0;
+        BitVector key = array.first();
+        while (key != BitAssocArray.NULL_KEY)
+        {
+            final long k = key.longValue();
+            assertEquals(count * 10 + 10, k);
+            array.delete(k);
+            array.put(k, Integer.valueOf(count));
+            array.put(k - 1, Integer.valueOf(-1));
+            ++count;
+            key = array.next(key);
+        }
+        assertEquals(10, count);
+        assertEquals(20, array.check());
+    }
+
+    public void testKeyIterator()
+    {
+        final BitObjectAssocArray expected = new BitObjectAssocArray();
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        for (int i = 0; i < 500; ++i)
+        {
+            final long key = randomKey();
+            expected.put(bv(key), Integer.valueOf(i));
+            array.put(key, Integer.valueOf(i));
+        }
+
+        final Iterator<BitVector> expectedIter = expected.keyIterator();
+        final Iterator<BitVector> iter = array.keyIterator();
+        while (expectedIter.hasNext())
+        {
+            assertTrue(iter.hasNext());
+            final BitVector key = iter.next();
+            assertEquals(expectedIter.next(), key);
+            switch (random.nextInt(4))
+            {
+            case 0:
+                expectedIter.remove();
+                iter.remove();
+                break;
+            case 1:
+                final long newKey = randomKey();
+                expected.put(bv(newKey), Integer.valueOf(0));
+                array.put(newKey, Integer.valueOf(0));
+                break;
+            case 2:
+                final long delKey = randomKey();
+                assertEquals(expected.delete(bv(delKey)), array.delete(delKey));
+                break;
+            }
+        }
+        assertFalse(iter.hasNext());
+        assertSameEntries(expected, array);
+    }
+
+    public void testClone()
+    {
+        final LongObjectAssocArray array = new LongObjectAssocArray();
+        array.put(1, "a");
+        array.first();
+        final LongObjectAssocArray copy = array.clone();
+        copy.put(2, "b");
+        array.delete(1);
+        assertEquals(0, array.check());
+        assertEquals(BitAssocArray.NULL_KEY, array.first());
+        assertEquals(bv(1), copy.first());
+        assertEquals(bv(2), copy.next(bv(1)));
+        assertEquals("a", copy.get(1));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the sorted key index of MapAssocArray against a TreeMap, including
+ * keys added and removed while walking the keys with first/next or a key
+ * iterator.
+ * 
+ * @author Trevor Robinson
+ */
+public class MapAssocArrayTest
+    extends TestCase
+{
+    private final Random random = new Random(1);
+
+    private String randomKey()
+    {
+        return "k" + random.nextInt(200);
+    }
+
+    private static <K extends Comparable<K>> K higherKey(
+        TreeMap<K, ? > map,
+        K key)
+    {
+        for (final K k : map.tailMap(key).keySet())
+        {
+            if (k.compareTo(key) > 0) return k;
+        }
+        return null;
+    }
+
+    private static void assertSameEntries(
+        TreeMap<String, Integer> expected,
+        StringAssocArray<Integer> array)
+    {
+        assertEquals(expected.size(), array.check());
+        final List<String> keys = new ArrayList<String>();
+        for (String key = array.first(); key != null; key = array.next(key))
+        {
+            keys.add(key);
+        }
+        assertEquals(new ArrayList<String>(expected.keySet()), keys);
+        for (final String key : keys)
+        {
+            assertEquals(expected.get(key), array.get(key));
+        }
+    }
+
+    public void testDefaultValue()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>(
+            Integer.valueOf(-1));
+        assertEquals(Integer.valueOf(-1), array.get("x"));
+        assertEquals(0, array.check("x"));
+        assertEquals(Integer.valueOf(-1), array.getOrCreate("x"));
+        assertEquals(1, array.check("x"));
+        assertNull(array.next("x"));
+        assertEquals("x", array.first());
+    }
+
+    public void testRandomOperations()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>();
+        final TreeMap<String, Integer> expected = new TreeMap<String, Integer>();
+        for (int n = 0; n < 5000; ++n)
+        {
+            final String key = randomKey();
+            switch (random.nextInt(6))
+            {
+            case 0:
+            case 1:
+                array.put(key, Integer.valueOf(n));
+                expected.put(key, Integer.valueOf(n));
+                break;
+            case 2:
+                assertEquals(expected.remove(key) != null ? 1 : 0, array
+                    .delete(key));
+                break;
+            case 3:
+                assertEquals(expected.containsKey(key) ? 1 : 0, array
+                    .check(key));
+                break;
+            case 4:
+                // next of an arbitrary key, present or not
+                assertEquals(higherKey(expected, key), array.next(key));
+                break;
+            default:
+                if (random.nextInt(50) == 0)
+                {
+                    assertEquals(1, array.delete());
+                    expected.clear();
+                }
+                else
+                {
+                    assertEquals(expected.isEmpty() ? null : expected
+                        .firstKey(), array.first());
+                }
+            }
+        }
+        assertSameEntries(expected, array);
+    }
+
+    public void testDeleteWhileWalking()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>();
+        final TreeMap<String, Integer> expected = new TreeMap<String, Integer>();
+        for (int i = 0; i < 500; ++i)
+        {
+            final String key = randomKey();
+            array.put(key, Integer.valueOf(i));
+            expected.put(key, Integer.valueOf(i));
+        }
+
+        // delete every other key as it is visited, and add keys behind and
+        // ahead of the current position
+        int count = 0;
+        String key = array.first();
+        while (key != null)
+        {
+            final String expectedNext = higherKey(expected, key);
+            if (count++ % 2 == 0)
+            {
+                array.delete(key);
+                expected.remove(key);
+            }
+            if (count % 7 == 0)
+            {
+                final String newKey = randomKey();
+                array.put(newKey, Integer.valueOf(-count));
+                expected.put(newKey, Integer.valueOf(-count));
+            }
+            final String next = array.next(key);
+            assertEquals(higherKey(expected, key), next);
+            if (count % 7 != 0) assertEquals(expectedNext, next);
+            key = next;
+        }
+        assertSameEntries(expected, array);
+    }
+
+    public void testKeyIterator()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>();
+        final TreeMap<String, Integer> expected = new TreeMap<String, Integer>();
+        for (int i = 0; i < 300; ++i)
+        {
+            final String key = randomKey();
+            array.put(key, Integer.valueOf(i));
+            expected.put(key, Integer.valueOf(i));
+        }
+
+        String prevKey = null;
+        final Iterator<String> iter = array.keyIterator();
+        while (iter.hasNext())
+        {
+            final String key = iter.next();
+            final String expectedKey = prevKey == null ? expected.firstKey()
+                : higherKey(expected, prevKey);
+            assertEquals(expectedKey, key);
+            switch (random.nextInt(4))
+            {
+            case 0:
+                iter.remove();
+                expected.remove(key);
+                break;
+            case 1:
+                final String newKey = randomKey();
+                array.put(newKey, Integer.valueOf(0));
+                expected.put(newKey, Integer.valueOf(0));
+                break;
+            case 2:
+                final String delKey = randomKey();
+                array.delete(delKey);
+                expected.remove(delKey);
+                break;
+            }
+            prevKey = key;
+        }
+        assertNull(higherKey(expected, prevKey));
+        assertSameEntries(expected, array);
+    }
+
+    public void testOverwriteNullValue()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>();
+        array.put("a", null);
+        array.put("b", Integer.valueOf(2));
+        final Iterator<String> iter = array.keyIterator();
+        assertEquals("a", iter.next());
+
+        // replacing a null value is not an insert
+        final long inserts = JunoMetrics.ASSOC_INSERTS.getValue();
+        array.put("a", Integer.valueOf(1));
+        assertEquals(inserts, JunoMetrics.ASSOC_INSERTS.getValue());
+        assertEquals(2, array.check());
+        assertEquals(Integer.valueOf(1), array.get("a"));
+        assertEquals("b", iter.next());
+        assertFalse(iter.hasNext());
+    }
+
+    public void testClone()
+    {
+        final StringAssocArray<Integer> array = new StringAssocArray<Integer>();
+        array.put("a", Integer.valueOf(1));
+        array.first();
+        final StringAssocArray<Integer> copy = array.clone();
+        copy.put("b", Integer.valueOf(2));
+        array.delete("a");
+        assertEquals(0, array.check());
+        assertEquals("a", copy.first());
+        assertEquals("b", copy.next("a"));
+        assertEquals(Integer.valueOf(1), copy.get("a"));
+    }
+}
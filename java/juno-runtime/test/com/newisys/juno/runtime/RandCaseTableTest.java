@@ -0,0 +1,110 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.juno.runtime;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that RandCaseTable chooses the same case as the linear scan in
+ * Juno.randcase for every random value.
+ * 
+ * @author Trevor Robinson
+ */
+public class RandCaseTableTest
+    extends TestCase
+{
+    private static void assertSameChoices(int[] weights)
+    {
+        final RandCaseTable table = new RandCaseTable(weights);
+        int sum = 0;
+        for (final int weight : weights)
+        {
+            sum += weight;
+        }
+        for (int rand = 0; rand < sum; ++rand)
+        {
+            final int expected = Juno.randcaseIndex(rand, weights);
+            assertEquals(expected, table.select(rand));
+            assertTrue(weights[expected] > 0);
+        }
+    }
+
+    public void testFixedWeights()
+    {
+        assertSameChoices(new int[] { 1 });
+        assertSameChoices(new int[] { 1, 1 });
+        assertSameChoices(new int[] { 3, 5, 7 });
+        assertSameChoices(new int[] { 0, 4 });
+        assertSameChoices(new int[] { 4, 0 });
+        assertSameChoices(new int[] { 0, 0, 2, 0, 0, 3, 0 });
+        assertSameChoices(new int[] { 100, 1, 1, 1, 100 });
+    }
+
+    public void testRandomWeights()
+    {
+        final Random random = new Random(1);
+        for (int n = 0; n < 200; ++n)
+        {
+            final int[] weights = new int[1 + random.nextInt(20)];
+            int sum = 0;
+            for (int i = 0; i < weights.length; ++i)
+            {
+                weights[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(50);
+                sum += weights[i];
+            }
+            if (sum > 0)
+            {
+                assertSameChoices(weights);
+            }
+        }
+    }
+
+    public void testInvalidWeights()
+    {
+        try
+        {
+            new RandCaseTable(new int[] { 1, -1, 2 });
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new RandCaseTable(new int[] { 0, 0 });
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new RandCaseTable(new int[] { Integer.MAX_VALUE, 1 });
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+}
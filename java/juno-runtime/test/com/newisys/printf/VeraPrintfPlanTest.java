@@ -0,0 +1,89 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.newisys.printf;
+
+import junit.framework.TestCase;
+
+import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
+
+/**
+ * Tests that formatting with a VeraPrintfPlan produces the same output as
+ * formatting the plan's format string directly.
+ * 
+ * @author Trevor Robinson
+ */
+public class VeraPrintfPlanTest
+    extends TestCase
+{
+    private static final String[] FORMATS = { "", "plain text",
+        "%d", "x=%d y=%d", "%5d|%-5d|%05d", "% d %+d %+i", "%u", "%h %x %H",
+        "%8h|%-8x|%08b", "%o %b %B", "%#x %#o", "%s", "%10s|%-10s|%.2s",
+        "%c", "%d%%", "%%%d%%", "100%", "%", "trailing %-5", "%5.",
+        "%q %d", "%_%p", "tab\\there\\n", "\\\\%s\\\"" };
+
+    private static final Object[][] ARGS = {
+        {},
+        { Integer.valueOf(42), Integer.valueOf(-7), Integer.valueOf(0) },
+        { Long.valueOf(-1L), Long.valueOf(1L << 40), Integer.valueOf(5) },
+        { "AF", "hello", "x" },
+        { new BitVector(8, 0xA5), new BitVector(16, Bit.X),
+            new BitVector(12, 0x3C) },
+        { new BitVector(70, 1), Integer.valueOf(65), "Z" },
+        { null, Integer.valueOf(3), null },
+        { Integer.valueOf(1), "two", new BitVector(4, 3), Long.valueOf(4),
+            Integer.valueOf(5) } };
+
+    private static void assertSameOutput(boolean leaveEscapes)
+    {
+        final VeraPrintfFormatter formatter = new VeraPrintfFormatter(
+            leaveEscapes);
+        for (final String format : FORMATS)
+        {
+            final VeraPrintfPlan plan = new VeraPrintfPlan(format);
+            assertEquals(format, plan.getFormat());
+            for (final Object[] args : ARGS)
+            {
+                final String expected = formatter.sprintf(format, args);
+                final String actual = formatter.sprintf(plan, args);
+                assertEquals("format \"" + format + "\"", expected, actual);
+            }
+        }
+    }
+
+    public void testWithEscapes()
+    {
+        assertSameOutput(false);
+    }
+
+    public void testWithoutEscapes()
+    {
+        assertSameOutput(true);
+    }
+
+    public void testPlanReuse()
+    {
+        final VeraPrintfFormatter formatter = new VeraPrintfFormatter(false);
+        final VeraPrintfPlan plan = new VeraPrintfPlan("%4h:%s");
+        assertEquals(formatter.sprintf("%4h:%s", Integer.valueOf(10), "a"),
+            formatter.sprintf(plan, Integer.valueOf(10), "a"));
+        assertEquals(formatter.sprintf("%4h:%s", Integer.valueOf(255), "bc"),
+            formatter.sprintf(plan, Integer.valueOf(255), "bc"));
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.newisys.dv.ifgen.schema.IfgenPackage;
@@ -105,6 +106,14 @@ public class JunoTranslator
         public final OptionArgDef compClassMapOpt;
         public final StringArgDef compClassMapArg;
 
+        public final OptionArgDef forkDispatchOpt;
+
+        public final OptionArgDef pruneUnusedOpt;
+
+        public final OptionArgDef resourceTablesOpt;
+
+        public final OptionArgDef profileOpt;
+
         public final OptionArgDef debugOpt;
 
         public MyCmdLineDef()
@@ -188,6 +197,22 @@ public class JunoTranslator
             compClassMapOpt.addArgDef(compClassMapArg);
             addArgDef(compClassMapOpt);
 
+            forkDispatchOpt = new OptionArgDef("forkdispatch",
+                "Generate one fork dispatcher class per translated class", 0, 1);
+            addArgDef(forkDispatchOpt);
+
+            pruneUnusedOpt = new OptionArgDef("pruneunused",
+                "Omit unreachable functions and write-only variables", 0, 1);
+            addArgDef(pruneUnusedOpt);
+
+            resourceTablesOpt = new OptionArgDef("resourcetables",
+                "Load large constant arrays from binary resources", 0, 1);
+            addArgDef(resourceTablesOpt);
+
+            profileOpt = new OptionArgDef("profile",
+                "Instrument functions for vera_report_profile", 0, 1);
+            addArgDef(profileOpt);
+
             debugOpt = new OptionArgDef("debug", "Output debug information", 0,
                 1);
             addArgDef(debugOpt);
@@ -407,6 +432,14 @@ public class JunoTranslator
                 }
             }
         }
+        jsb.getOptions().setForkDispatch(
+            cmdLine.getArgsForDef(cmdLineDef.forkDispatchOpt) != null);
+        jsb.getOptions().setPruneUnused(
+            cmdLine.getArgsForDef(cmdLineDef.pruneUnusedOpt) != null);
+        jsb.getOptions().setResourceTables(
+            cmdLine.getArgsForDef(cmdLineDef.resourceTablesOpt) != null);
+        jsb.getOptions().setProfile(
+            cmdLine.getArgsForDef(cmdLineDef.profileOpt) != null);
         jsb.build();
 
         // write Java source
@@ -417,6 +450,7 @@ public class JunoTranslator
             cmdLineDef.javaRootArg);
         File javaRoot = new File(javaRootPath);
         printer.print(basePkg, javaRoot);
+        writeResources(jsb.getResources(), javaRoot);
 
         // write Ifgen source
         IfgenSchemaPrinter ifPrinter = new IfgenSchemaPrinter();
@@ -591,6 +625,26 @@ public class JunoTranslator
         }
     }
 
+    private void writeResources(Map<String, byte[]> resources, File srcRoot)
+        throws IOException
+    {
+        for (Map.Entry<String, byte[]> entry : resources.entrySet())
+        {
+            final File file = new File(srcRoot, entry.getKey());
+            log.println("Writing resource: " + file.getPath());
+            file.getParentFile().mkdirs();
+            final OutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write(entry.getValue());
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
     private void writeComponentClassMap(
         String outputPath,
         String veraSrcPath,
@@ -469,6 +469,13 @@ abstract class AnalyzerModule
         if (returnVar != null)
         {
             dadu.alloc(returnVar);
+
+            // returned fixed arrays are used as a whole by the caller
+            if (returnVar.getType() instanceof VeraFixedArrayType)
+            {
+                analyzer.getOrCreateVariableAnalysis(returnVar, func)
+                    .markArrayNonElementAccess();
+            }
         }
     }
 
@@ -18,9 +18,11 @@
 package com.newisys.schemaanalyzer.juno;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import com.newisys.langschema.vera.VeraFunction;
 import com.newisys.langschema.vera.VeraVariable;
 
 /**
@@ -33,6 +35,10 @@ public final class BlockAnalysis
     private final BlockAnalysis outerAnalysis;
     private final Map<VeraVariable, AccessType> localAccessMap = new HashMap<VeraVariable, AccessType>();
     private boolean needThreadContext;
+    private boolean directBlock; // contains a blocking statement or call
+    private final Set<VeraFunction> calledFuncs = new HashSet<VeraFunction>();
+    private boolean mayBlock; // resolved from the above after analysis
+    private Set<VeraVariable> loopBodyWrites; // vars written in current loop
     DADUAnalysis dadu;
 
     public BlockAnalysis(DADUAnalysis dadu)
@@ -75,6 +81,11 @@ public final class BlockAnalysis
             || oldAccess.isRead(), write || oldAccess.isWrite());
         localAccessMap.put(var, newAccess);
 
+        if (write && loopBodyWrites != null)
+        {
+            loopBodyWrites.add(var);
+        }
+
         if (outerAnalysis != null)
         {
             outerAnalysis.addLocalAccess(var, read, write);
@@ -91,6 +102,25 @@ public final class BlockAnalysis
         }
     }
 
+    Set<VeraVariable> beginLoopBody()
+    {
+        Set<VeraVariable> enclosingWrites = loopBodyWrites;
+        loopBodyWrites = new HashSet<VeraVariable>();
+        return enclosingWrites;
+    }
+
+    Set<VeraVariable> endLoopBody(Set<VeraVariable> enclosingWrites)
+    {
+        Set<VeraVariable> writes = loopBodyWrites;
+        if (enclosingWrites != null)
+        {
+            // writes in a nested loop are also writes in the enclosing loop
+            enclosingWrites.addAll(writes);
+        }
+        loopBodyWrites = enclosingWrites;
+        return writes;
+    }
+
     public boolean isNeedThreadContext()
     {
         return needThreadContext;
@@ -100,4 +130,44 @@ public final class BlockAnalysis
     {
         this.needThreadContext = needThreadContext;
     }
+
+    boolean isDirectBlock()
+    {
+        return directBlock;
+    }
+
+    void markDirectBlock()
+    {
+        directBlock = true;
+
+        if (outerAnalysis != null)
+        {
+            outerAnalysis.markDirectBlock();
+        }
+    }
+
+    public Set<VeraFunction> getCalledFunctions()
+    {
+        return calledFuncs;
+    }
+
+    void addCalledFunction(VeraFunction func)
+    {
+        calledFuncs.add(func);
+
+        if (outerAnalysis != null)
+        {
+            outerAnalysis.addCalledFunction(func);
+        }
+    }
+
+    public boolean isMayBlock()
+    {
+        return mayBlock;
+    }
+
+    void setMayBlock(boolean mayBlock)
+    {
+        this.mayBlock = mayBlock;
+    }
 }
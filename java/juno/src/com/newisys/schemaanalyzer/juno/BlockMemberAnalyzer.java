@@ -219,6 +219,9 @@ final class BlockMemberAnalyzer
     {
         ++analyzer.statementCount;
 
+        // drives and samples synchronize to the signal clock
+        analysis.markDirectBlock();
+
         VeraExpression delayExpr = obj.getDelay();
         if (delayExpr != null)
         {
@@ -238,6 +241,8 @@ final class BlockMemberAnalyzer
     {
         ++analyzer.statementCount;
 
+        analysis.markDirectBlock();
+
         final VeraExpression delayExpr = obj.getDelay();
         if (delayExpr != null)
         {
@@ -283,6 +288,7 @@ final class BlockMemberAnalyzer
                         compUnit, cls, context, analysis, analysis.dadu);
                     analyzeInvokeArgs(actualArgs, func, exprAnalysis, false,
                         false);
+                    analysis.addCalledFunction(func);
 
                     // does any argument reference the instance or a local
                     // variable, or contain a construct requiring temporaries?
@@ -345,6 +351,7 @@ final class BlockMemberAnalyzer
                             .getOrCreateVariableAnalysis(var, null);
                         varAnalysis.markWaitVar(analyzer);
                     }
+                    analysis.markDirectBlock();
 
                     // skip processing expression as a whole
                     return;
@@ -359,13 +366,29 @@ final class BlockMemberAnalyzer
 
                     // need to create thread context for enclosing block
                     analysis.setNeedThreadContext(true);
+                    analysis.markDirectBlock();
 
                     // skip processing expression as a whole
                     return;
                 }
             }
         }
-        analyzeExpression(expr, AccessType.READ);
+        ExpressionAnalysis exprAnalysis = analyzeExpression(expr,
+            AccessType.READ);
+
+        // track plain assignment statements, which can be dropped (or reduced
+        // to their right-hand side) if the variable is never read
+        VeraVariable assignVar = VeraSchemaAnalyzer.getAssignedVariable(obj);
+        if (assignVar != null)
+        {
+            VariableAnalysis varAnalysis = analyzer
+                .getOrCreateVariableAnalysis(assignVar, null);
+            varAnalysis.countStatementAssign();
+            if (exprAnalysis.sideEffects)
+            {
+                analyzer.addSideEffectAssign(obj);
+            }
+        }
     }
 
     public void visit(VeraForkStatement obj)
@@ -375,6 +398,11 @@ final class BlockMemberAnalyzer
         BlockAnalysis forkAnalysis = new BlockAnalysis(analysis);
         Statement searchStmt = obj.getContainingStatement();
 
+        // forked threads are attached to the thread context of the current
+        // thread, so a nested fork is treated as blocking for the purposes
+        // of running the enclosing statement without its own thread
+        analysis.markDirectBlock();
+
         // DA/DU
         final DADUAnalysis daduBeforeFork = analysis.dadu;
         DADUAnalysis daduForks = null;
@@ -600,7 +628,10 @@ final class BlockMemberAnalyzer
             // DA/DU: V is [un]assigned before the contained statement iff
             // either [1] or [2].
             VeraStatement stmt = obj.getStatement();
+            Set<VeraVariable> enclosingWrites = analysis.beginLoopBody();
             stmt.accept((VeraStatementVisitor) this);
+            analyzer.addLoopBodyWrites(obj, analysis
+                .endLoopBody(enclosingWrites));
 
             // DA/DU: [b] Assuming V is definitely unassigned before the
             // condition part of the for statement, V is definitely unassigned
@@ -907,6 +938,8 @@ final class BlockMemberAnalyzer
     {
         ++analyzer.statementCount;
 
+        analysis.markDirectBlock();
+
         for (final VeraSyncTerm term : obj.getTerms())
         {
             VeraExpression signalExpr = term.getSignal();
@@ -917,6 +950,9 @@ final class BlockMemberAnalyzer
     public void visit(VeraTerminateStatement obj)
     {
         ++analyzer.statementCount;
+
+        // terminate operates on the thread context of the current thread
+        analysis.markDirectBlock();
     }
 
     public void visit(VeraWhileStatement obj)
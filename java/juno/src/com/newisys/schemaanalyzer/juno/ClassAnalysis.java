@@ -17,6 +17,9 @@
 
 package com.newisys.schemaanalyzer.juno;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import com.newisys.langschema.vera.VeraUserClass;
 
 /**
@@ -31,6 +34,8 @@ public final class ClassAnalysis
     boolean hasDefaultCtor;
     boolean needDefaultCtor;
     boolean transformSuperCall;
+    boolean subclassed;
+    final Set<VeraUserClass> directSubclasses = new LinkedHashSet<VeraUserClass>();
 
     public ClassAnalysis(VeraUserClass cls)
     {
@@ -51,4 +56,14 @@ public final class ClassAnalysis
     {
         return transformSuperCall;
     }
+
+    public boolean isSubclassed()
+    {
+        return subclassed;
+    }
+
+    public Set<VeraUserClass> getDirectSubclasses()
+    {
+        return directSubclasses;
+    }
 }
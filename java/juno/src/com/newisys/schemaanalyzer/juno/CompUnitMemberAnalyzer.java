@@ -146,6 +146,17 @@ final class CompUnitMemberAnalyzer
     {
         ++analyzer.classCount;
         ClassAnalysis analysis = analyzer.getOrCreateClassAnalysis(obj);
+
+        // remember that the base class (if any) is not a leaf class
+        final VeraClass baseCls = obj.getBaseClass();
+        if (baseCls instanceof VeraUserClass)
+        {
+            ClassAnalysis baseAnalysis = analyzer
+                .getOrCreateClassAnalysis((VeraUserClass) baseCls);
+            baseAnalysis.subclassed = true;
+            baseAnalysis.directSubclasses.add(obj);
+        }
+
         ClassMemberAnalyzer cma = new ClassMemberAnalyzer(analyzer, obj,
             analysis);
         // process members in three passes:
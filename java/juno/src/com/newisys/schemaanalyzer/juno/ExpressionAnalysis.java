@@ -23,6 +23,7 @@ import java.util.Set;
 
 import com.newisys.langschema.SchemaObject;
 import com.newisys.langschema.vera.VeraCompilationUnit;
+import com.newisys.langschema.vera.VeraExpression;
 import com.newisys.langschema.vera.VeraUserClass;
 import com.newisys.langschema.vera.VeraVariable;
 
@@ -43,6 +44,7 @@ final class ExpressionAnalysis
     boolean byRefArgument;
     boolean postIncDec;
     boolean sideEffects;
+    VeraExpression elementArrayExpr;
     DADUAnalysis daduUncond;
     DADUAnalysis daduWhenTrue;
     DADUAnalysis daduWhenFalse;
@@ -25,6 +25,7 @@ import java.util.ListIterator;
 import com.newisys.langschema.CompilationUnit;
 import com.newisys.langschema.Function;
 import com.newisys.langschema.StructuredTypeMember;
+import com.newisys.langschema.Type;
 import com.newisys.langschema.vera.*;
 
 /**
@@ -139,8 +140,18 @@ final class ExpressionAnalyzer
         // treat bit writes as read/writes
         VeraExpression arrayExpr = obj.getArray();
         boolean bitAccess = arrayExpr.getResultType() instanceof VeraBitVectorType;
+        if (bitAccess && accessType.isWrite())
+        {
+            markElementBitWrite(arrayExpr);
+        }
+        else if (isFullElementAccess(obj))
+        {
+            // array variable is only used to access a single element
+            analysis.elementArrayExpr = arrayExpr;
+        }
         analyzeNestedExpression(arrayExpr, analysis, bitAccess ? AccessType
             .getInstance(true, accessType.isWrite()) : AccessType.READ, false);
+        analysis.elementArrayExpr = null;
 
         Iterator iter = obj.getIndices().iterator();
         while (iter.hasNext())
@@ -156,6 +167,43 @@ final class ExpressionAnalyzer
         }
     }
 
+    private static boolean isFullElementAccess(VeraArrayAccess obj)
+    {
+        final Type arrayType = obj.getArray().getResultType();
+        return !(arrayType instanceof VeraFixedArrayType)
+            || ((VeraFixedArrayType) arrayType).getDimensions().length == obj
+                .getIndices().size();
+    }
+
+    private void markElementBitWrite(VeraExpression arrayExpr)
+    {
+        // writing part of a fixed array element requires the element to be
+        // an assignable Java expression
+        if (arrayExpr instanceof VeraArrayAccess)
+        {
+            VeraVariable var = getReferencedVariable(arrayExpr);
+            if (var != null && var.getType() instanceof VeraFixedArrayType)
+            {
+                analyzer.getOrCreateVariableAnalysis(var, null)
+                    .markArrayNonElementAccess();
+            }
+        }
+    }
+
+    private void checkArrayAccess(VeraExpression varExpr, VeraVariable var)
+    {
+        // track fixed arrays used as a whole (assigned, passed as arguments,
+        // referenced in constraints, etc.), which must keep their nested
+        // Java array representation
+        if (var.getType() instanceof VeraFixedArrayType
+            && (varExpr != analysis.elementArrayExpr
+                || analysis.context instanceof VeraClassConstraint))
+        {
+            analyzer.getOrCreateVariableAnalysis(var, null)
+                .markArrayNonElementAccess();
+        }
+    }
+
     public void visit(VeraArrayCreation obj)
     {
         VeraExpression sizeExpr = obj.getSizeExpr();
@@ -252,6 +300,10 @@ final class ExpressionAnalyzer
     {
         // treat bit slice writes as read/writes
         VeraExpression arrayExpr = obj.getArray();
+        if (accessType.isWrite())
+        {
+            markElementBitWrite(arrayExpr);
+        }
         analyzeNestedExpression(arrayExpr, analysis, AccessType.getInstance(
             true, accessType.isWrite()), propagateXZ);
 
@@ -380,6 +432,12 @@ final class ExpressionAnalyzer
 
     public void visit(VeraDepthAccess obj)
     {
+        // sampling a signal at a given depth may wait for the sample edge
+        if (analysis.blockAnalysis != null)
+        {
+            analysis.blockAnalysis.markDirectBlock();
+        }
+
         VeraExpression signalExpr = obj.getSignal();
         analyzeNestedExpression(signalExpr, analysis, AccessType.READ, false);
     }
@@ -473,6 +531,17 @@ final class ExpressionAnalyzer
             }
         }
 
+        // track called functions for may-block analysis
+        if (analysis.blockAnalysis != null)
+        {
+            analysis.blockAnalysis.addCalledFunction(func);
+        }
+        else
+        {
+            // called from an initializer or constraint
+            analyzer.addUnscopedCall(func);
+        }
+
         List actualArgs = obj.getArguments();
         analyzeInvokeArgs(actualArgs, func, analysis, propagateXZ, inlinedFunc);
 
@@ -487,7 +556,7 @@ final class ExpressionAnalyzer
         Function func = obj.getFunction();
         if (func instanceof VeraMemberFunction)
         {
-            analysis.referencesInstance = true;
+            markReferencesInstance();
         }
     }
 
@@ -521,9 +590,9 @@ final class ExpressionAnalyzer
         analysis.sideEffects = true;
 
         List actualArgs = obj.getArguments();
+        VeraClass cls = (VeraClass) obj.getType();
         if (actualArgs.size() > 0)
         {
-            VeraClass cls = (VeraClass) obj.getType();
             Iterator iter = cls.lookupObjects("new", VeraNameKind.NON_TYPE);
             if (iter.hasNext())
             {
@@ -536,6 +605,26 @@ final class ExpressionAnalyzer
                 assert false : "new() task not found";
             }
         }
+
+        // track constructors of class and its base classes for may-block
+        // analysis, since base constructors may be invoked implicitly
+        if (analysis.blockAnalysis != null)
+        {
+            while (cls instanceof VeraUserClass)
+            {
+                Iterator iter = cls.lookupObjects("new", VeraNameKind.NON_TYPE);
+                while (iter.hasNext())
+                {
+                    Object ctorObj = iter.next();
+                    if (ctorObj instanceof VeraFunction)
+                    {
+                        analysis.blockAnalysis
+                            .addCalledFunction((VeraFunction) ctorObj);
+                    }
+                }
+                cls = cls.getBaseClass();
+            }
+        }
     }
 
     public void visit(VeraIntegerLiteral obj)
@@ -603,10 +692,16 @@ final class ExpressionAnalyzer
 
     public void visit(VeraMemberAccess obj)
     {
+        // check array access before the object expression resets it
+        StructuredTypeMember member = obj.getMember();
+        if (member instanceof VeraMemberVariable)
+        {
+            checkArrayAccess(obj, (VeraMemberVariable) member);
+        }
+
         VeraExpression objExpr = obj.getObject();
         analyzeNestedExpression(objExpr, analysis, AccessType.READ, false);
 
-        StructuredTypeMember member = obj.getMember();
         if (member instanceof VeraMemberVariable)
         {
             VeraMemberVariable memberVar = (VeraMemberVariable) member;
@@ -729,7 +824,7 @@ final class ExpressionAnalyzer
 
     public void visit(VeraSuperReference obj)
     {
-        analysis.referencesInstance = true;
+        markReferencesInstance();
     }
 
     public void visit(VeraSystemClockReference obj)
@@ -739,7 +834,7 @@ final class ExpressionAnalyzer
 
     public void visit(VeraThisReference obj)
     {
-        analysis.referencesInstance = true;
+        markReferencesInstance();
     }
 
     public void visit(VeraVariableReference obj)
@@ -750,13 +845,14 @@ final class ExpressionAnalyzer
 
         // track variable references in block
         analysis.addLocalAccess(var, isRead, isWrite);
+        checkArrayAccess(obj, var);
 
         // update expression reference modes analysis
         if (var instanceof VeraMemberVariable)
         {
             if (!var.getModifiers().contains(VeraVariableModifier.STATIC))
             {
-                analysis.referencesInstance = true;
+                markReferencesInstance();
             }
         }
         else if (var instanceof VeraLocalVariable)
@@ -767,6 +863,20 @@ final class ExpressionAnalyzer
         processVarAccess(var, isRead, isWrite);
     }
 
+    private void markReferencesInstance()
+    {
+        analysis.referencesInstance = true;
+
+        // track instance references for the enclosing function, which
+        // determines whether it can be translated as a static method
+        if (analysis.context instanceof VeraFunction)
+        {
+            FunctionAnalysis funcAnalysis = analyzer
+                .getOrCreateFunctionAnalysis((VeraFunction) analysis.context);
+            funcAnalysis.markReferencesInstance();
+        }
+    }
+
     private void processVarAccess(
         final VeraVariable var,
         final boolean isRead,
@@ -839,6 +949,7 @@ final class ExpressionAnalyzer
         if (isWrite)
         {
             varAnalysis.markWriteAccess();
+            varAnalysis.countExprWrite();
         }
 
         // update variable DA/DU analysis
@@ -39,6 +39,8 @@ public final class FunctionAnalysis
     private final boolean[] argStatefulStringInOverride;
     private boolean nonVirtualOverride; // involved in non-virtual overriding
     private boolean varArgsWaitVarAlias; // var args alias wait_var target
+    private boolean referencesInstance; // body refers to this/super/members
+    private boolean mayBlock; // function or an override may block
 
     public FunctionAnalysis(VeraSchemaAnalyzer analyzer, VeraFunction func)
     {
@@ -49,6 +51,11 @@ public final class FunctionAnalysis
         argStatefulStringInOverride = new boolean[argCount];
     }
 
+    public VeraFunction getFunction()
+    {
+        return func;
+    }
+
     public int getArgumentCount()
     {
         return argXZInOverride.length;
@@ -135,4 +142,24 @@ public final class FunctionAnalysis
             varArgsWaitVarAlias = true;
         }
     }
+
+    public boolean isReferencesInstance()
+    {
+        return referencesInstance;
+    }
+
+    void markReferencesInstance()
+    {
+        referencesInstance = true;
+    }
+
+    public boolean isMayBlock()
+    {
+        return mayBlock;
+    }
+
+    void setMayBlock(boolean mayBlock)
+    {
+        this.mayBlock = mayBlock;
+    }
 }
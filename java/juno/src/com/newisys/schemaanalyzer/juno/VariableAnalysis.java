@@ -31,6 +31,7 @@ import com.newisys.langschema.SchemaObject;
 import com.newisys.langschema.Type;
 import com.newisys.langschema.vera.VeraBitType;
 import com.newisys.langschema.vera.VeraBitVectorType;
+import com.newisys.langschema.vera.VeraFixedArrayType;
 import com.newisys.langschema.vera.VeraFunction;
 import com.newisys.langschema.vera.VeraFunctionArgument;
 import com.newisys.langschema.vera.VeraIntegerType;
@@ -56,6 +57,8 @@ public final class VariableAnalysis
     private boolean writeSideEffects; // write/init expr has side effects
     private boolean readUnassigned; // read when unassigned (X value observed)
     private boolean writeAssigned; // written when assigned (not final)
+    private int exprWriteCount; // writes within expressions
+    private int stmtAssignCount; // writes by plain assignment statements
 
     // X/Z analysis:
     private final boolean xzType;
@@ -91,6 +94,9 @@ public final class VariableAnalysis
     private boolean waitVar; // target of wait_var
     private boolean waitVarAlias; // by-ref argument alias of wait_var target
 
+    // fixed array usage:
+    private boolean arrayNonElementAccess; // used other than by element
+
     private static final boolean debug = false;
     private static final IndentWriter iw;
     private static final PrintWriter pw;
@@ -122,13 +128,19 @@ public final class VariableAnalysis
         this.var = var;
         this.context = context;
 
-        // immediately mark non-bit/integer variables as not X/Z
+        // immediately mark non-bit/integer variables (and arrays of them)
+        // as not X/Z
         xzType = isXZType(var.getType());
         notAssignedXZ = !xzType;
     }
 
     private boolean isXZType(Type type)
     {
+        if (type instanceof VeraFixedArrayType)
+        {
+            // element stores to fixed arrays are tracked like assignments
+            type = ((VeraFixedArrayType) type).getElementType();
+        }
         return type instanceof VeraBitType || type instanceof VeraBitVectorType
             || type instanceof VeraIntegerType;
     }
@@ -234,6 +246,26 @@ public final class VariableAnalysis
         writeSideEffects = true;
     }
 
+    void countExprWrite()
+    {
+        ++exprWriteCount;
+    }
+
+    void countStatementAssign()
+    {
+        ++stmtAssignCount;
+    }
+
+    /**
+     * Returns whether every write to this variable (other than its
+     * initializer) is a plain assignment statement of the form
+     * <code>var = expr;</code>.
+     */
+    public boolean isOnlyStatementAssigned()
+    {
+        return exprWriteCount == stmtAssignCount;
+    }
+
     public boolean isReadUnassigned()
     {
         return readUnassigned;
@@ -661,6 +693,16 @@ public final class VariableAnalysis
         forkWrite = true;
     }
 
+    public boolean isArrayNonElementAccess()
+    {
+        return arrayNonElementAccess;
+    }
+
+    void markArrayNonElementAccess()
+    {
+        arrayNonElementAccess = true;
+    }
+
     public boolean isWaitVar()
     {
         return waitVar;
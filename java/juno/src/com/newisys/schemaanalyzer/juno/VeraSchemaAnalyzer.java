@@ -17,8 +17,13 @@
 
 package com.newisys.schemaanalyzer.juno;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -44,6 +49,9 @@ import com.newisys.util.logging.IndentLogger;
  * <li>fork analysis (what variables are read or written in a forked thread?)</li>
  * <li>wait_var analysis (what variables are directly or indirectly the target
  * of a wait_var call?)</li>
+ * <li>may-block analysis (can a block or function consume simulation time,
+ * directly or through the functions it calls?)</li>
+ * <li>loop analysis (what variables are written in the body of a for-loop?)</li>
  * <li>counting of schema object types</li>
  * </ul>
  * 
@@ -52,6 +60,9 @@ import com.newisys.util.logging.IndentLogger;
 public final class VeraSchemaAnalyzer
 {
     private final Map<VeraSchemaObject, Object> analyses = new HashMap<VeraSchemaObject, Object>();
+    private final Map<VeraForStatement, Set<VeraVariable>> loopBodyWrites = new HashMap<VeraForStatement, Set<VeraVariable>>();
+    private final Set<VeraFunction> unscopedCalls = new HashSet<VeraFunction>();
+    private final Set<VeraExpressionStatement> sideEffectAssigns = new HashSet<VeraExpressionStatement>();
     final IndentLogger log;
 
     int classCount = 0;
@@ -162,6 +173,142 @@ public final class VeraSchemaAnalyzer
                 }
             }
         }
+
+        analyzeMayBlock();
+    }
+
+    private void analyzeMayBlock()
+    {
+        // collect block analyses and all functions they (or overrides) call
+        final List<BlockAnalysis> blockAnalyses = new LinkedList<BlockAnalysis>();
+        final Set<VeraFunction> funcs = new LinkedHashSet<VeraFunction>();
+        Iterator iter = analyses.values().iterator();
+        while (iter.hasNext())
+        {
+            Object obj = iter.next();
+            if (obj instanceof BlockAnalysis)
+            {
+                BlockAnalysis blockAnalysis = (BlockAnalysis) obj;
+                blockAnalyses.add(blockAnalysis);
+                funcs.addAll(blockAnalysis.getCalledFunctions());
+            }
+            else if (obj instanceof FunctionAnalysis)
+            {
+                funcs.add(((FunctionAnalysis) obj).func);
+            }
+        }
+
+        // iterate to a fixed point, since calls may be recursive
+        final Set<VeraFunction> blockingFuncs = new HashSet<VeraFunction>();
+        boolean changed;
+        do
+        {
+            changed = false;
+            for (final VeraFunction func : funcs)
+            {
+                if (!blockingFuncs.contains(func)
+                    && isFunctionMayBlock(func, blockingFuncs))
+                {
+                    blockingFuncs.add(func);
+                    changed = true;
+                }
+            }
+        }
+        while (changed);
+
+        // record results in block and function analyses
+        for (final BlockAnalysis blockAnalysis : blockAnalyses)
+        {
+            blockAnalysis.setMayBlock(isBlockMayBlock(blockAnalysis,
+                blockingFuncs));
+        }
+        int funcCount = 0;
+        for (final VeraFunction func : funcs)
+        {
+            if (func.getBody() != null)
+            {
+                FunctionAnalysis funcAnalysis = getOrCreateFunctionAnalysis(func);
+                funcAnalysis.setMayBlock(blockingFuncs.contains(func));
+                ++funcCount;
+            }
+        }
+        log.println(blockingFuncs.size() + " of " + funcs.size()
+            + " functions may block (" + funcCount + " with bodies)");
+    }
+
+    private boolean isFunctionMayBlock(
+        VeraFunction func,
+        Set<VeraFunction> blockingFuncs)
+    {
+        final VeraBlock body = func.getBody();
+        if (body != null)
+        {
+            BlockAnalysis bodyAnalysis = getBlockAnalysis(body);
+            if (bodyAnalysis == null
+                || isBlockMayBlock(bodyAnalysis, blockingFuncs))
+            {
+                return true;
+            }
+        }
+        else if (isExternalMayBlock(func))
+        {
+            return true;
+        }
+
+        // calls to virtual functions may dispatch to any override
+        FunctionAnalysis funcAnalysis = getFunctionAnalysis(func);
+        if (funcAnalysis != null)
+        {
+            for (FunctionAnalysis overrideAnalysis : funcAnalysis
+                .getDirectOverrides())
+            {
+                if (blockingFuncs.contains(overrideAnalysis.func)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlockMayBlock(
+        BlockAnalysis blockAnalysis,
+        Set<VeraFunction> blockingFuncs)
+    {
+        if (blockAnalysis.isDirectBlock()) return true;
+        for (final VeraFunction func : blockAnalysis.getCalledFunctions())
+        {
+            if (blockingFuncs.contains(func)) return true;
+        }
+        return false;
+    }
+
+    private static final Set<String> BLOCKING_BUILTINS = new HashSet<String>(
+        Arrays.asList(new String[] { "delay", "lock_file", "mailbox_get",
+            "mailbox_get_batch", "mailbox_put", "mailbox_put_batch",
+            "region_enter", "semaphore_get", "suspend_thread", "sync",
+            "vsv_call_task", "vsv_wait_for_done", "vsv_wait_for_input",
+            "wait_child", "wait_var" }));
+
+    private static boolean isExternalMayBlock(VeraFunction func)
+    {
+        if (func instanceof VeraGlobalFunction
+            && ((VeraGlobalFunction) func).getCompilationUnit() == null)
+        {
+            // built-in function
+            return BLOCKING_BUILTINS.contains(func.getName().getIdentifier());
+        }
+        else if (func instanceof VeraMemberFunction)
+        {
+            VeraMemberFunction memberFunc = (VeraMemberFunction) func;
+            if (memberFunc.isPureVirtual()
+                || memberFunc.getStructuredType() instanceof VeraSystemClass)
+            {
+                // pure virtual functions are covered by their overrides;
+                // system class methods (string, object) never block
+                return false;
+            }
+        }
+
+        // HDL tasks, UDFs, and undefined extern functions may consume time
+        return true;
     }
 
     private void dumpXZAnalysis()
@@ -390,6 +537,58 @@ public final class VeraSchemaAnalyzer
         return analysis;
     }
 
+    public boolean isArgumentRetained(VeraFunction func, int index)
+    {
+        // a by-reference argument is retained if the function or an override
+        // may access it after returning, either from a forked thread or as a
+        // wait_var target, or passes it on by reference
+        boolean retained;
+        if (func.getBody() != null)
+        {
+            VeraFunctionArgument arg = func.getType().getArguments().get(index);
+            VariableAnalysis varAnalysis = getVariableAnalysis(arg);
+            retained = varAnalysis != null
+                && (varAnalysis.isForkRead() || varAnalysis.isForkWrite()
+                    || varAnalysis.isPassedByRef() || varAnalysis
+                    .isWaitVarAlias());
+        }
+        else if (func instanceof VeraGlobalFunction
+            && ((VeraGlobalFunction) func).getCompilationUnit() == null)
+        {
+            // built-in functions only access arguments while called
+            retained = false;
+        }
+        else if (func instanceof VeraMemberFunction)
+        {
+            // pure virtual functions are covered by their overrides;
+            // system class methods do not retain arguments
+            VeraMemberFunction memberFunc = (VeraMemberFunction) func;
+            retained = !memberFunc.isPureVirtual()
+                && !(memberFunc.getStructuredType() instanceof VeraSystemClass);
+        }
+        else
+        {
+            // UDFs and undefined extern functions are unknown
+            retained = true;
+        }
+        if (retained) return true;
+
+        // calls to virtual functions may dispatch to any override
+        FunctionAnalysis funcAnalysis = getFunctionAnalysis(func);
+        if (funcAnalysis != null)
+        {
+            for (FunctionAnalysis overrideAnalysis : funcAnalysis
+                .getDirectOverrides())
+            {
+                if (isArgumentRetained(overrideAnalysis.func, index))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public BlockAnalysis getBlockAnalysis(VeraStatement stmt)
     {
         BlockAnalysis analysis = (BlockAnalysis) analyses.get(stmt);
@@ -401,6 +600,91 @@ public final class VeraSchemaAnalyzer
         analyses.put(stmt, analysis);
     }
 
+    /**
+     * Returns the set of variables written in the body of the given for-loop,
+     * either directly or through by-reference arguments. Variables written
+     * indirectly by called functions are not included, so the result is only
+     * conclusive for local variables.
+     *
+     * @param stmt a for-loop statement
+     * @return the set of variables written in the body, or null if the loop
+     *      was not analyzed
+     */
+    public Set<VeraVariable> getLoopBodyWrites(VeraForStatement stmt)
+    {
+        return loopBodyWrites.get(stmt);
+    }
+
+    void addLoopBodyWrites(VeraForStatement stmt, Set<VeraVariable> writes)
+    {
+        Set<VeraVariable> existing = loopBodyWrites.get(stmt);
+        if (existing != null)
+        {
+            existing.addAll(writes);
+        }
+        else
+        {
+            loopBodyWrites.put(stmt, writes);
+        }
+    }
+
+    /**
+     * Returns the set of functions called outside of any statement block,
+     * such as from variable initializers and constraints.
+     *
+     * @return the set of functions called outside of statement blocks
+     */
+    public Set<VeraFunction> getUnscopedCalls()
+    {
+        return unscopedCalls;
+    }
+
+    void addUnscopedCall(VeraFunction func)
+    {
+        unscopedCalls.add(func);
+    }
+
+    /**
+     * Returns whether the right-hand side of the given plain assignment
+     * statement has side effects.
+     *
+     * @param stmt an assignment statement, as identified by
+     *      {@link #getAssignedVariable(VeraExpressionStatement)}
+     * @return true if the assigned expression has side effects
+     */
+    public boolean isAssignSideEffects(VeraExpressionStatement stmt)
+    {
+        return sideEffectAssigns.contains(stmt);
+    }
+
+    void addSideEffectAssign(VeraExpressionStatement stmt)
+    {
+        sideEffectAssigns.add(stmt);
+    }
+
+    /**
+     * Returns the variable assigned by the given statement if it is a plain
+     * assignment of the form <code>var = expr;</code>.
+     *
+     * @param stmt an expression statement
+     * @return the assigned variable, or null if the statement is not a plain
+     *      variable assignment
+     */
+    public static VeraVariable getAssignedVariable(VeraExpressionStatement stmt)
+    {
+        final VeraExpression expr = stmt.getExpression();
+        if (expr instanceof VeraAssign && expr.getDefineRef() == null)
+        {
+            final VeraExpression lhs = ((VeraAssign) expr).getOperand(0);
+            if (lhs instanceof VeraVariableReference
+                && lhs.getDefineRef() == null)
+            {
+                return ((VeraVariableReference) lhs).getVariable();
+            }
+        }
+        return null;
+    }
+
     public void dumpCounts()
     {
         log.println("Classes: " + classCount + " [Fields: " + fieldCount
@@ -25,14 +25,18 @@ import com.newisys.langschema.java.JavaArrayAccess;
 import com.newisys.langschema.java.JavaArrayType;
 import com.newisys.langschema.java.JavaAssign;
 import com.newisys.langschema.java.JavaExpression;
+import com.newisys.langschema.java.JavaFunctionInvocation;
+import com.newisys.langschema.java.JavaPrimitiveType;
 import com.newisys.langschema.java.JavaType;
 import com.newisys.langschema.java.util.ExpressionBuilder;
 import com.newisys.langschema.jove.JoveAssocArrayType;
 import com.newisys.langschema.vera.VeraArrayAccess;
 import com.newisys.langschema.vera.VeraExpression;
+import com.newisys.langschema.vera.VeraFixedArrayType;
 
 /**
- * LHS translator for array elements, including individual bit vector bits.
+ * LHS translator for array elements, including individual bit vector bits and
+ * elements of fixed arrays stored in flat primitive arrays.
  * 
  * @author Trevor Robinson
  */
@@ -41,6 +45,7 @@ final class ArrayLHSTranslator
 {
     private final JavaType arrayType;
     private final boolean isDrive;
+    private final boolean isFlat;
     private final JavaType elementType;
     private final JavaExpression updateEvent;
     private final JavaExpression arrayOnceExpr;
@@ -63,6 +68,7 @@ final class ArrayLHSTranslator
             "lhs_obj", writeAccess ? types.outputSignalType : null);
         arrayType = arrayExpr.getResultType();
         isDrive = exprConv.isOutputSignal(arrayType);
+        isFlat = isFlatArrayType(arrayType);
         final boolean bitVector = isDrive || schema.isBitVector(arrayType);
 
         // translate the indices
@@ -70,10 +76,20 @@ final class ArrayLHSTranslator
         final int indexCount = veraIndices.size();
         final JavaExpression[] indexExprs = new JavaExpression[indexCount];
         JavaExpression updateEvent;
-        if (arrayType instanceof JavaArrayType)
+        if (arrayType instanceof JavaArrayType || isFlat)
         {
-            JavaArrayType realArrayType = (JavaArrayType) arrayType;
-            elementType = realArrayType.getElementType();
+            if (isFlat)
+            {
+                // flat array: element type comes from the Vera array type
+                final VeraFixedArrayType veraArrayType = (VeraFixedArrayType) veraArrayExpr
+                    .getResultType();
+                elementType = translateType(veraArrayType.getElementType());
+            }
+            else
+            {
+                JavaArrayType realArrayType = (JavaArrayType) arrayType;
+                elementType = realArrayType.getElementType();
+            }
 
             // native Java array: translate multiple int indexes
             int curIndex = 0;
@@ -111,7 +127,12 @@ final class ArrayLHSTranslator
                 JavaExpression indexExpr = translateExpr(veraIndexExpr,
                     "lhs_index", null);
                 final JavaAbstractClass baseClass = assocType.getBaseClass();
-                if (types.bitAssocArrayType.isSuperclassOf(baseClass))
+                if (types.longAssocArrayType.isSuperclassOf(baseClass)
+                    && isPrimitiveIndex(indexExpr))
+                {
+                    // long-indexed associative array: int or long index
+                }
+                else if (types.bitAssocArrayType.isSuperclassOf(baseClass))
                 {
                     // BitVector-indexed associative array
                     indexExpr = exprConv.toUnsizedBitVector(indexExpr);
@@ -147,6 +168,28 @@ final class ArrayLHSTranslator
                 updateEvent = buildNativeArrayAccess(updateEvent, indexExprs);
             }
         }
+        else if (isFlat)
+        {
+            // flat array: compute flat index from multiple int indexes;
+            // wait_var targets are never stored in flat arrays
+            assert (updateEvent == null);
+            arrayOnceExpr = null;
+            signalOnceExpr = null;
+            objectOnceExpr = EvalOnceExprBuilder.evalLHSExpr(arrayExpr,
+                exprContext, "lhs_obj", multiAccess || indexCount > 1);
+            final JavaExpression indexExpr;
+            if (indexCount == 1)
+            {
+                indexExpr = indexExprs[0];
+            }
+            else
+            {
+                indexExpr = ExpressionBuilder.memberCall(objectOnceExpr,
+                    "index", indexExprs, null);
+            }
+            indexOnceExpr = EvalOnceExprBuilder.evalConstExpr(indexExpr,
+                exprContext, "lhs_index", multiAccess);
+        }
         else
         {
             // associative array or bit vector
@@ -184,6 +227,12 @@ final class ArrayLHSTranslator
         this.updateEvent = updateEvent;
     }
 
+    private boolean isPrimitiveIndex(JavaExpression indexExpr)
+    {
+        final JavaType indexType = indexExpr.getResultType();
+        return schema.isInt(indexType) || schema.isLong(indexType);
+    }
+
     private JavaExpression buildNativeArrayAccess(
         JavaExpression array,
         JavaExpression[] indices)
@@ -223,6 +272,55 @@ final class ArrayLHSTranslator
             .toObject(value));
     }
 
+    private JavaExpression buildFlatGet(
+        JavaExpression array,
+        JavaExpression index)
+    {
+        // flat array get
+        // Vera: x = foo[2][3];
+        // Java: x = foo.getInteger(foo.index(2, 3));
+        final JavaFunctionInvocation callExpr = ExpressionBuilder.memberCall(
+            array, elementType == schema.integerWrapperType ? "getInteger"
+                : "getBitVector", index);
+        callExpr.setResultType(elementType);
+        return callExpr;
+    }
+
+    private JavaExpression buildFlatPrimitiveGet(
+        JavaExpression array,
+        JavaExpression index)
+    {
+        // flat array primitive get; throws if the element is X
+        // Vera: i = foo[2][3];
+        // Java: i = foo.getInt(foo.index(2, 3));
+        return ExpressionBuilder.memberCall(array,
+            arrayType == types.flatLongArrayType ? "getLong" : "getInt", index);
+    }
+
+    private JavaExpression buildFlatSet(
+        JavaExpression array,
+        JavaExpression index,
+        JavaExpression value)
+    {
+        // flat array set
+        // Vera: foo[2][3] = 42;
+        // Java: foo.setInt(foo.index(2, 3), 42);
+        final String methodName;
+        if (elementType != schema.integerWrapperType)
+        {
+            methodName = "setBitVector";
+        }
+        else if (schema.isInt(value.getResultType()))
+        {
+            methodName = "setInt";
+        }
+        else
+        {
+            methodName = "setInteger";
+        }
+        return ExpressionBuilder.memberCall(array, methodName, index, value);
+    }
+
     private JavaExpression buildBitGet(
         JavaExpression array,
         JavaExpression index)
@@ -277,7 +375,11 @@ final class ArrayLHSTranslator
         }
         else
         {
-            if (schema.isBitVector(arrayType))
+            if (isFlat)
+            {
+                return buildFlatGet(objectOnceExpr, indexOnceExpr);
+            }
+            else if (schema.isBitVector(arrayType))
             {
                 return buildBitGet(objectOnceExpr, indexOnceExpr);
             }
@@ -289,6 +391,31 @@ final class ArrayLHSTranslator
         }
     }
 
+    /**
+     * Returns an expression that reads the array element for a consumer that
+     * converts it to the given type. Elements of flat arrays are read as
+     * primitives, without allocating, if the consumer wants an int or long;
+     * such reads fail for X elements, as the checked conversion would.
+     *
+     * @param desiredType the type the consumer converts the value to, or null
+     * @return the read expression
+     */
+    public JavaExpression getReadExpression(JavaType desiredType)
+    {
+        if (isFlat && desiredType instanceof JavaPrimitiveType)
+        {
+            // a 32-bit element read as int would be sign-extended to long,
+            // whereas a BitVector converted to long is zero-extended
+            final boolean isLongArray = arrayType == types.flatLongArrayType;
+            if (schema.isInt(desiredType)
+                || (isLongArray && schema.isLong(desiredType)))
+            {
+                return buildFlatPrimitiveGet(objectOnceExpr, indexOnceExpr);
+            }
+        }
+        return getReadExpression();
+    }
+
     public ConvertedExpression getWriteExpression(JavaExpression value)
     {
         ConvertedExpression result = new ConvertedExpression(exprContext);
@@ -297,6 +424,11 @@ final class ArrayLHSTranslator
             getAssignWriteExpression(result, elementType, arrayOnceExpr, value,
                 updateEvent);
         }
+        else if (isFlat)
+        {
+            result.setResultExpr(buildFlatSet(objectOnceExpr, indexOnceExpr,
+                value));
+        }
         else if (isDrive)
         {
             result.setResultExpr(buildBitDrive(signalOnceExpr, indexOnceExpr,
@@ -20,14 +20,18 @@ package com.newisys.schemabuilder.juno;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
+import com.newisys.juno.runtime.Juno;
 import com.newisys.langschema.Annotation;
 import com.newisys.langschema.JoinKind;
 import com.newisys.langschema.java.*;
 import com.newisys.langschema.java.util.ExpressionBuilder;
 import com.newisys.langschema.vera.*;
 import com.newisys.schemaanalyzer.juno.BlockAnalysis;
+import com.newisys.schemaanalyzer.juno.VeraSchemaAnalyzer;
 import com.newisys.verilog.EdgeSet;
+import com.newisys.verilog.util.BitVector;
 
 /**
  * Schema translator for block members.
@@ -144,10 +148,21 @@ final class BlockMemberTranslator
         JavaBlock block,
         VarInfoMap varInfoMap,
         JavaRawAbstractClass containingClass)
+    {
+        translateStatementInto(veraStmt, block, new TempBlockScope(tempScope),
+            varInfoMap, containingClass);
+    }
+
+    private void translateStatementInto(
+        VeraStatement veraStmt,
+        JavaBlock block,
+        TempBlockScope blockScope,
+        VarInfoMap varInfoMap,
+        JavaRawAbstractClass containingClass)
     {
         final BlockMemberTranslator subXlat = new BlockMemberTranslator(this,
-            block, new TempBlockScope(tempScope), varInfoMap, returnVar,
-            containingClass, assocMember);
+            block, blockScope, varInfoMap, returnVar, containingClass,
+            assocMember);
         if (veraStmt instanceof VeraBlock)
         {
             subXlat.translateBlockMembers((VeraBlock) veraStmt);
@@ -400,7 +415,7 @@ final class BlockMemberTranslator
         {
             JavaExpressionStatement stmt = new JavaExpressionStatement(stmtExpr);
             stmt.addAnnotations(obj.getAnnotations());
-            block.addMember(stmt);
+            addBlockingStatement(stmt);
         }
     }
 
@@ -444,12 +459,36 @@ final class BlockMemberTranslator
         }
         JavaExpressionStatement stmt = new JavaExpressionStatement(stmtExpr);
         stmt.addAnnotations(obj.getAnnotations());
-        block.addMember(stmt);
+        addBlockingStatement(stmt);
     }
 
     public void visit(VeraExpressionStatement obj)
     {
         VeraExpression veraExpr = obj.getExpression();
+
+        // drop assignments to pruned write-only variables, but keep any side
+        // effects of the assigned expression
+        if (pruner != null)
+        {
+            VeraVariable assignVar = VeraSchemaAnalyzer
+                .getAssignedVariable(obj);
+            if (assignVar != null && pruner.isPrunedVariable(assignVar))
+            {
+                if (analyzer.isAssignSideEffects(obj))
+                {
+                    VeraExpression rhsExpr = ((VeraAssign) veraExpr)
+                        .getOperand(1);
+                    JavaBlockMember stmt = translateExpr(rhsExpr, null)
+                        .toBlockStmt(block);
+                    if (stmt != null)
+                    {
+                        stmt.addAnnotations(obj.getAnnotations());
+                    }
+                }
+                return;
+            }
+        }
+
         ConvertedExpression convExpr = translateExpr(veraExpr, schema.voidType);
         JavaExpression expr = convExpr.getResultExpr();
 
@@ -541,77 +580,160 @@ final class BlockMemberTranslator
             }
         }
 
-        // translate Vera fork statements into DVSimulation.fork() calls
-        List<JavaExpression> forkCalls = new LinkedList<JavaExpression>();
-        JavaType threadType = null;
+        // determine whether all forked statements are provably non-blocking
         List veraForkStmts = obj.getForkedStatements();
+        JoinKind joinKind = obj.getJoinKind();
+        boolean allNonBlocking = true;
         Iterator iter = veraForkStmts.iterator();
         while (iter.hasNext())
         {
             VeraStatement veraStmt = (VeraStatement) iter.next();
+            if (!isNonBlocking(veraStmt))
+            {
+                allNonBlocking = false;
+                break;
+            }
+        }
 
-            // create anonymous Runnable class
-            JavaRawClass anonClass = new JavaRawClass(containingClass);
-            anonClass.setBaseClass(types.objectType);
-            anonClass.addBaseInterface(types.runnableType);
+        JavaStatement stmt = null;
+        if (joinKind == JoinKind.ALL && allNonBlocking)
+        {
+            // fork/join all of statements that never consume simulation
+            // time is equivalent to executing them in sequence in the
+            // current thread
+            log("Note: Inlining non-blocking fork/join in "
+                + describeClassMember(assocMember));
+            iter = veraForkStmts.iterator();
+            while (iter.hasNext())
+            {
+                VeraStatement veraStmt = (VeraStatement) iter.next();
+                JavaBlock body = new JavaBlock(schema);
+                translateForkedStatement(veraStmt, body, outerVarInfoMap,
+                    containingClass);
+                block.addMember(body);
+                if (stmt == null) stmt = body;
+            }
+            stmt.addAnnotations(obj.getAnnotations());
+            return;
+        }
 
-            // implement Runnable.run()
-            JavaFunction runMethod = anonClass
-                .newMethod("run", schema.voidType);
-            runMethod.setVisibility(JavaVisibility.PUBLIC);
+        // translate Vera fork statements into DVSimulation.fork() calls;
+        // for fork/join none, consecutive non-blocking statements are
+        // grouped into a single thread, which executes them in order
+        List<JavaExpression> forkCalls = new LinkedList<JavaExpression>();
+        JavaType threadType = null;
+        iter = veraForkStmts.iterator();
+        VeraStatement veraStmt = iter.hasNext() ? (VeraStatement) iter.next()
+            : null;
+        while (veraStmt != null)
+        {
+            JavaRawClass bodyClass;
+            JavaFunction runMethod = null;
+            ForkDispatcher dispatcher = null;
+            VarInfoMap branchVarInfoMap = outerVarInfoMap;
+            List<JavaExpression> captureExprs = null;
+            if (options.isForkDispatch())
+            {
+                // add forked statement as a branch of the dispatcher class
+                dispatcher = getForkDispatcher(containingClass, assocMember);
+                bodyClass = dispatcher.getDispatcherClass();
+                branchVarInfoMap = new VarInfoMap(outerVarInfoMap);
+                captureExprs = new LinkedList<JavaExpression>();
+            }
+            else
+            {
+                // create anonymous Runnable class
+                bodyClass = new JavaRawClass(containingClass);
+                bodyClass.setBaseClass(types.objectType);
+                bodyClass.addBaseInterface(types.runnableType);
+
+                // implement Runnable.run()
+                runMethod = bodyClass.newMethod("run", schema.voidType);
+                runMethod.setVisibility(JavaVisibility.PUBLIC);
+            }
             JavaBlock body = new JavaBlock(schema);
 
-            // create non-final copies of written shadow variables
-            VarInfoMap innerVarInfoMap = new VarInfoMap(outerVarInfoMap);
             BlockAnalysis forkStmtAnalysis = analyzer
                 .getBlockAnalysis(veraStmt);
-            if (forkStmtAnalysis != null)
+            if (joinKind == JoinKind.NONE && isNonBlocking(veraStmt))
             {
-                // iterate local variables referenced in forked statement
-                Iterator varIter = forkStmtAnalysis.getLocalRefs().iterator();
-                while (varIter.hasNext())
+                int groupCount = 0;
+                do
                 {
-                    VeraVariable veraVar = (VeraVariable) varIter.next();
-                    JavaVariable var = translateVariable(veraVar);
-                    JavaType varType = var.getType();
-                    // duplicate shadow variables that are written but have not
-                    // been cloned for the forked statement
-                    if (veraVar.hasModifier(VeraVariableModifier.SHADOW)
-                        && forkStmtAnalysis.isLocalWrite(veraVar)
-                        && !needsClone(varType))
+                    if (dispatcher != null)
                     {
-                        // for shadow variable "forked_foo", create temporary:
-                        // Foo foo = forked_foo;
-                        // use reference to determine type, in case of holder
-                        // vars
-                        JavaExpression forkVarRef = ExpressionTranslator
-                            .translateVarRef(veraVar, var, schema,
-                                outerVarInfoMap, null);
-                        JavaType forkVarRefType = forkVarRef.getResultType();
-                        String id = var.getName().getIdentifier();
-                        id = id.replace("_holder", "");
-                        JavaLocalVariable shadowVar = VarBuilder
-                            .createLocalVar(tempScope, id, forkVarRefType);
-                        tempScope.addObject(shadowVar);
-                        shadowVar.setInitializer(forkVarRef);
-                        body.addMember(shadowVar);
-
-                        // translate variable references to forked variable
-                        innerVarInfoMap.addInfo(new VarInfo(schema, veraVar,
-                            shadowVar, false));
+                        captureLocals(veraStmt, dispatcher, body,
+                            outerVarInfoMap, branchVarInfoMap, captureExprs);
                     }
+                    JavaBlock subBody = new JavaBlock(schema);
+                    translateForkedStatement(veraStmt, subBody,
+                        branchVarInfoMap, bodyClass);
+                    body.addMember(subBody);
+                    ++groupCount;
+                    veraStmt = iter.hasNext() ? (VeraStatement) iter.next()
+                        : null;
                 }
+                while (veraStmt != null && isNonBlocking(veraStmt));
+                if (groupCount > 1)
+                {
+                    log("Note: Grouping " + groupCount
+                        + " non-blocking forked statements in "
+                        + describeClassMember(assocMember));
+                }
+            }
+            else
+            {
+                if (dispatcher != null)
+                {
+                    captureLocals(veraStmt, dispatcher, body, outerVarInfoMap,
+                        branchVarInfoMap, captureExprs);
+                }
+
+                // translated Vera statement into run() body
+                translateForkedStatement(veraStmt, body, branchVarInfoMap,
+                    bodyClass);
+                body = checkThreadContext(body, forkStmtAnalysis);
+                veraStmt = iter.hasNext() ? (VeraStatement) iter.next()
+                    : null;
             }
 
-            // translated Vera statement into run() body
-            translateStatementInto(veraStmt, body, innerVarInfoMap, anonClass);
-            body = checkThreadContext(body, forkStmtAnalysis);
-            runMethod.setBody(body);
+            JavaExpression newExpr;
+            if (dispatcher != null)
+            {
+                // instantiate the dispatcher for this branch
+                int branchID = dispatcher.addBranch(body);
+                JavaExpression capturesExpr;
+                if (captureExprs.isEmpty())
+                {
+                    capturesExpr = new JavaNullLiteral(schema);
+                }
+                else
+                {
+                    JavaArrayInitializer capturesInit = new JavaArrayInitializer(
+                        types.objectArrayType);
+                    Iterator captureIter = captureExprs.iterator();
+                    while (captureIter.hasNext())
+                    {
+                        capturesInit.addElement((JavaExpression) captureIter
+                            .next());
+                    }
+                    JavaArrayCreation capturesNew = new JavaArrayCreation(
+                        types.objectArrayType);
+                    capturesNew.setInitializer(capturesInit);
+                    capturesExpr = capturesNew;
+                }
+                newExpr = dispatcher.newInstance(branchID, capturesExpr);
+            }
+            else
+            {
+                runMethod.setBody(body);
 
-            // instantiate the anonymous class
-            JavaInstanceCreation newExpr = new JavaInstanceCreation(
-                types.runnableType, null);
-            newExpr.setAnonymousClass(anonClass);
+                // instantiate the anonymous class
+                JavaInstanceCreation anonNewExpr = new JavaInstanceCreation(
+                    types.runnableType, null);
+                anonNewExpr.setAnonymousClass(bodyClass);
+                newExpr = anonNewExpr;
+            }
 
             // generate fork call: Vera.fork("func", new Runnable() {})
             JavaExpression forkCall = ExpressionBuilder.staticCall(
@@ -626,8 +748,6 @@ final class BlockMemberTranslator
             }
         }
 
-        JavaStatement stmt = null;
-        JoinKind joinKind = obj.getJoinKind();
         if (joinKind == JoinKind.NONE)
         {
             // not joined; add fork calls directly to block
@@ -663,15 +783,178 @@ final class BlockMemberTranslator
             JavaExpression joinCall = ExpressionBuilder.memberCall(simRef,
                 joinMethodID, arrayNew);
             stmt = new JavaExpressionStatement(joinCall);
-            block.addMember(stmt);
+            addBlockingStatement(stmt);
         }
         stmt.addAnnotations(obj.getAnnotations());
     }
 
+    /**
+     * Adds a statement that may block the current thread to the current
+     * block. When profiling is enabled, the statement is bracketed by calls
+     * to FunctionProfile.pause() and resume(), so that the time the thread
+     * spends blocked is not attributed to the active profiled calls.
+     */
+    private void addBlockingStatement(JavaStatement stmt)
+    {
+        if (options.isProfile())
+        {
+            block.addMember(new JavaExpressionStatement(ExpressionBuilder
+                .staticCall(types.functionProfileType, "pause")));
+            block.addMember(stmt);
+            block.addMember(new JavaExpressionStatement(ExpressionBuilder
+                .staticCall(types.functionProfileType, "resume")));
+        }
+        else
+        {
+            block.addMember(stmt);
+        }
+    }
+
+    private boolean isNonBlocking(VeraStatement veraStmt)
+    {
+        BlockAnalysis forkStmtAnalysis = analyzer.getBlockAnalysis(veraStmt);
+        return forkStmtAnalysis != null && !forkStmtAnalysis.isMayBlock()
+            && !forkStmtAnalysis.isNeedThreadContext();
+    }
+
+    private void captureLocals(
+        VeraStatement veraStmt,
+        ForkDispatcher dispatcher,
+        JavaBlock body,
+        VarInfoMap outerVarInfoMap,
+        VarInfoMap branchVarInfoMap,
+        List<JavaExpression> captureExprs)
+    {
+        BlockAnalysis forkStmtAnalysis = analyzer.getBlockAnalysis(veraStmt);
+        if (forkStmtAnalysis == null) return;
+
+        // iterate local variables referenced in forked statement
+        Iterator varIter = forkStmtAnalysis.getLocalRefs().iterator();
+        while (varIter.hasNext())
+        {
+            VeraVariable veraVar = (VeraVariable) varIter.next();
+
+            // skip variables already captured by a grouped statement
+            if (branchVarInfoMap.getInfo(veraVar) != outerVarInfoMap
+                .getInfo(veraVar))
+            {
+                continue;
+            }
+
+            // member variables are accessed through the outer instance
+            VarInfo varInfo = outerVarInfoMap.getInfo(veraVar);
+            JavaVariable targetVar = varInfo != null ? varInfo
+                .getTargetVar() : translateVariable(veraVar);
+            if (!(targetVar instanceof JavaLocalVariable)
+                && !(targetVar instanceof JavaFunctionArgument))
+            {
+                continue;
+            }
+            boolean isHolder = varInfo != null && varInfo.isHolderVar();
+
+            // for local variable "Foo foo", pass foo in the capture array
+            // and create: final Foo foo = (Foo) captures[N];
+            JavaType varType = targetVar.getType();
+            int index = captureExprs.size();
+            captureExprs.add(exprConv.toObject(new JavaVariableReference(
+                targetVar)));
+            JavaLocalVariable captureVar = VarBuilder.createLocalVar(
+                tempScope, targetVar.getName().getIdentifier(), varType);
+            tempScope.addObject(captureVar);
+            captureVar.addModifier(JavaVariableModifier.FINAL);
+            captureVar.setInitializer(dispatcher.getCaptureExpr(index,
+                varType));
+            body.addMember(captureVar);
+
+            // translate variable references to captured variable
+            branchVarInfoMap.addInfo(new VarInfo(schema, veraVar, captureVar,
+                isHolder));
+        }
+    }
+
+    private void translateForkedStatement(
+        VeraStatement veraStmt,
+        JavaBlock body,
+        VarInfoMap outerVarInfoMap,
+        JavaRawAbstractClass bodyClass)
+    {
+        // create non-final copies of written shadow variables
+        VarInfoMap innerVarInfoMap = new VarInfoMap(outerVarInfoMap);
+        BlockAnalysis forkStmtAnalysis = analyzer.getBlockAnalysis(veraStmt);
+        if (forkStmtAnalysis != null)
+        {
+            // iterate local variables referenced in forked statement
+            Iterator varIter = forkStmtAnalysis.getLocalRefs().iterator();
+            while (varIter.hasNext())
+            {
+                VeraVariable veraVar = (VeraVariable) varIter.next();
+                JavaVariable var = translateVariable(veraVar);
+                JavaType varType = var.getType();
+                // duplicate shadow variables that are written but have not
+                // been cloned for the forked statement
+                if (veraVar.hasModifier(VeraVariableModifier.SHADOW)
+                    && forkStmtAnalysis.isLocalWrite(veraVar)
+                    && !needsClone(varType))
+                {
+                    // for shadow variable "forked_foo", create temporary:
+                    // Foo foo = forked_foo;
+                    // use reference to determine type, in case of holder
+                    // vars
+                    JavaExpression forkVarRef = ExpressionTranslator
+                        .translateVarRef(veraVar, var, schema,
+                            outerVarInfoMap, null);
+                    JavaType forkVarRefType = forkVarRef.getResultType();
+                    String id = var.getName().getIdentifier();
+                    id = id.replace("_holder", "");
+                    JavaLocalVariable shadowVar = VarBuilder.createLocalVar(
+                        tempScope, id, forkVarRefType);
+                    tempScope.addObject(shadowVar);
+                    shadowVar.setInitializer(forkVarRef);
+                    body.addMember(shadowVar);
+
+                    // translate variable references to forked variable
+                    innerVarInfoMap.addInfo(new VarInfo(schema, veraVar,
+                        shadowVar, false));
+                }
+            }
+        }
+
+        // translated Vera statement into body; forked statements may run in
+        // their own thread, so temporaries are hoisted only to the body
+        final TempBlockScope bodyScope = new TempBlockScope(tempScope);
+        bodyScope.setHoistBlock(body);
+        translateStatementInto(veraStmt, body, bodyScope, innerVarInfoMap,
+            bodyClass);
+    }
+
     public void visit(VeraForStatement obj)
     {
         translatingLoop = true;
 
+        // translate assoc_index FIRST/NEXT loops using a key iterator
+        JavaStatement loopStmt = translateAssocIndexLoop(obj);
+        if (loopStmt == null)
+        {
+            loopStmt = translateForLoop(obj);
+        }
+
+        // put loop statement in labeled statement if necessary
+        if (loopLabelStmt != null)
+        {
+            loopLabelStmt.setStatement(loopStmt);
+            loopStmt = loopLabelStmt;
+        }
+
+        loopStmt.addAnnotations(obj.getAnnotations());
+
+        // append loop to containing block
+        block.addMember(loopStmt);
+
+        translatingLoop = false;
+    }
+
+    private JavaStatement translateForLoop(VeraForStatement obj)
+    {
         // translate init statements
         List veraInitStmts = obj.getInitStatements();
         JavaBlock initBlock = new JavaBlock(schema);
@@ -743,20 +1026,240 @@ final class BlockMemberTranslator
             forStmt.setStatement(translateStatement(veraStmt));
             loopStmt = forStmt;
         }
+        return loopStmt;
+    }
 
-        // put loop statement in labeled statement if necessary
-        if (loopLabelStmt != null)
+    /**
+     * Translates a for-loop of the following form into a loop over a key
+     * iterator of the array, provided that status and index are local
+     * variables that are not written in the loop body:
+     * <pre>
+     * for (status = assoc_index(FIRST, array, index); status;
+     *     status = assoc_index(NEXT, array, index)) stmt
+     * </pre>
+     * The array must be a plain variable or field reference that is not
+     * written in the loop body, since it is only evaluated once.
+     * The iterator keeps its position in the array between iterations, rather
+     * than looking up the previous index for each call to next(). Like
+     * assoc_index(NEXT), it continues with the next greater index if the loop
+     * body adds or deletes entries, including the current one. Returns null
+     * if the loop does not have this form.
+     */
+    private JavaStatement translateAssocIndexLoop(VeraForStatement obj)
+    {
+        // match status variable in condition, init, and update
+        VeraVariable statusVar = getLocalVar((VeraExpression) obj
+            .getCondition());
+        List<VeraBlockMember> veraInitStmts = obj.getInitStatements();
+        List<VeraExpressionStatement> veraUpdateStmts = obj
+            .getUpdateStatements();
+        if (statusVar == null || veraInitStmts.size() != 1
+            || veraUpdateStmts.size() != 1)
         {
-            loopLabelStmt.setStatement(loopStmt);
-            loopStmt = loopLabelStmt;
+            return null;
+        }
+        List<VeraExpression> firstArgs = getAssocIndexArgs(veraInitStmts
+            .get(0), statusVar, Juno.FIRST);
+        List<VeraExpression> nextArgs = getAssocIndexArgs(veraUpdateStmts
+            .get(0), statusVar, Juno.NEXT);
+        if (firstArgs == null || nextArgs == null)
+        {
+            return null;
         }
 
-        loopStmt.addAnnotations(obj.getAnnotations());
+        // match array and index variables
+        VeraExpression veraArray = firstArgs.get(1);
+        VeraExpression veraIndex = firstArgs.get(2);
+        VeraVariable arrayVar = getVar(veraArray);
+        VeraVariable indexVar = getLocalVar(veraIndex);
+        if (arrayVar == null || getVar(nextArgs.get(1)) != arrayVar
+            || indexVar == null || indexVar == statusVar
+            || getLocalVar(nextArgs.get(2)) != indexVar)
+        {
+            return null;
+        }
 
-        // append loop to containing block
-        block.addMember(loopStmt);
+        // status, index, and array must not be written in the loop body
+        Set<VeraVariable> bodyWrites = analyzer.getLoopBodyWrites(obj);
+        if (bodyWrites == null || bodyWrites.contains(statusVar)
+            || bodyWrites.contains(indexVar) || bodyWrites.contains(arrayVar))
+        {
+            return null;
+        }
 
-        translatingLoop = false;
+        // array must translate to a simple variable or field reference
+        ConvertedExpression arrayInfo = translateExpr(veraArray, null);
+        if (arrayInfo.hasInitExprs() || arrayInfo.hasUpdateMembers())
+        {
+            return null;
+        }
+        JavaExpression arrayExpr = arrayInfo.getResultExpr();
+        if (!EvalOnceExprBuilder.isSimpleRef(arrayExpr))
+        {
+            return null;
+        }
+
+        // index must be a plain BitVector, Integer, String, or JunoString
+        // variable with no wait_var event
+        ConvertedExpression indexInfo = translateExpr(veraIndex, null);
+        if (indexInfo.hasInitExprs() || indexInfo.hasUpdateMembers())
+        {
+            return null;
+        }
+        JavaExpression indexExpr = indexInfo.getResultExpr();
+        JavaType indexType = indexExpr.getResultType();
+        if (!(indexExpr instanceof JavaVariableReference)
+            || getWaitVarEventRef(indexExpr) != null)
+        {
+            return null;
+        }
+        boolean isJunoString = (indexType == types.junoStringType);
+        if (!schema.isBitVector(indexType)
+            && indexType != schema.integerWrapperType
+            && indexType != schema.getStringType() && !isJunoString)
+        {
+            return null;
+        }
+
+        // status = 1;
+        translateStatusAssign(statusVar, 1, block);
+
+        // final Iterator iter = array.keyIterator();
+        JavaType arrayType = arrayExpr.getResultType();
+        boolean isBitArray = types.bitAssocArrayType
+            .isAssignableFrom(arrayType);
+        JavaType keyType = isBitArray ? schema.bitVectorType : schema
+            .getStringType();
+        JavaLocalVariable iterVar = VarBuilder.createLocalVar(tempScope, "iter",
+            types.iteratorType);
+        tempScope.addObject(iterVar);
+        iterVar.addModifier(JavaVariableModifier.FINAL);
+        iterVar.setInitializer(ExpressionBuilder.memberCall(arrayExpr,
+            "keyIterator"));
+        block.addMember(iterVar);
+        JavaVariableReference iterRef = new JavaVariableReference(iterVar);
+
+        // while (true) {
+        //     if (!iter.hasNext()) { index = <null/X>; status = 0; break; }
+        //     index = (K) iter.next();
+        //     stmt
+        // }
+        JavaBlock stmtBlock = new JavaBlock(schema);
+        JavaBlock endBlock = new JavaBlock(schema);
+        JavaExpression endIndexExpr;
+        if (isJunoString)
+        {
+            endIndexExpr = new JavaVariableReference(types.junoStringType
+                .getField("NULL"));
+        }
+        else if (schema.isBitVector(indexType))
+        {
+            endIndexExpr = convertRHS(new JavaVariableReference(
+                types.bitAssocArrayType.getField("NULL_KEY")),
+                schema.bitVectorType, indexType, false);
+        }
+        else
+        {
+            endIndexExpr = new JavaNullLiteral(schema);
+        }
+        endBlock.addMember(getIndexAssign(indexExpr, endIndexExpr,
+            isJunoString));
+        translateStatusAssign(statusVar, 0, endBlock);
+        endBlock.addMember(new JavaBreakStatement(schema));
+        stmtBlock.addMember(new JavaIfStatement(getNotExpr(ExpressionBuilder
+            .memberCall(iterRef, "hasNext")), endBlock));
+
+        JavaExpression keyExpr = new JavaCastExpression(keyType,
+            ExpressionBuilder.memberCall(iterRef, "next"));
+        if (!isJunoString)
+        {
+            keyExpr = convertRHS(keyExpr, keyType, indexType, false);
+        }
+        stmtBlock.addMember(getIndexAssign(indexExpr, keyExpr, isJunoString));
+
+        translateStatementInto(obj.getStatement(), stmtBlock, varInfoMap,
+            containingClass);
+
+        return new JavaWhileStatement(new JavaBooleanLiteral(schema, true),
+            stmtBlock);
+    }
+
+    private static VeraVariable getVar(VeraExpression expr)
+    {
+        if (expr instanceof VeraVariableReference)
+        {
+            return ((VeraVariableReference) expr).getVariable();
+        }
+        return null;
+    }
+
+    private static VeraVariable getLocalVar(VeraExpression expr)
+    {
+        VeraVariable var = getVar(expr);
+        return (var instanceof VeraLocalVariable) ? var : null;
+    }
+
+    /**
+     * Returns the arguments of a statement of the form
+     * <code>status = assoc_index(op, array, index)</code>, or null if the
+     * statement does not have that form.
+     */
+    private List<VeraExpression> getAssocIndexArgs(
+        VeraBlockMember member,
+        VeraVariable statusVar,
+        int op)
+    {
+        if (!(member instanceof VeraExpressionStatement)) return null;
+        VeraExpression expr = ((VeraExpressionStatement) member)
+            .getExpression();
+        if (!(expr instanceof VeraAssign)) return null;
+        VeraAssign assign = (VeraAssign) expr;
+        if (getLocalVar(assign.getOperand(0)) != statusVar) return null;
+        VeraExpression rhs = assign.getOperand(1);
+        if (!(rhs instanceof VeraFunctionInvocation)) return null;
+        VeraFunctionInvocation call = (VeraFunctionInvocation) rhs;
+        VeraExpression funcExpr = call.getFunction();
+        if (!(funcExpr instanceof VeraFunctionReference)) return null;
+        VeraFunction func = ((VeraFunctionReference) funcExpr).getFunction();
+        if (!builtinFuncMap.isBuiltinFunction(func)
+            || !func.getName().getCanonicalName().equals("assoc_index"))
+        {
+            return null;
+        }
+        List<VeraExpression> args = call.getArguments();
+        if (args.size() != 3 || !(args.get(0) instanceof VeraIntegerLiteral)
+            || ((VeraIntegerLiteral) args.get(0)).getValue() != op)
+        {
+            return null;
+        }
+        return args;
+    }
+
+    private JavaStatement getIndexAssign(
+        JavaExpression indexExpr,
+        JavaExpression valueExpr,
+        boolean isJunoString)
+    {
+        JavaExpression assignExpr = isJunoString ? ExpressionBuilder
+            .memberCall(indexExpr, "assign", valueExpr) : new JavaAssign(
+            schema, indexExpr, valueExpr);
+        return new JavaExpressionStatement(assignExpr);
+    }
+
+    private void translateStatusAssign(
+        VeraVariable statusVar,
+        int value,
+        JavaBlock tempBlock)
+    {
+        VeraSchema veraSchema = (VeraSchema) statusVar.getSchema();
+        VeraExpression veraExpr = new VeraAssign(new VeraVariableReference(
+            statusVar), new VeraIntegerLiteral(veraSchema, value));
+        ConvertedExpression exprInfo = translateExpr(veraExpr, tempScope,
+            containingClass, varInfoMap, returnVar, null, schema.voidType);
+        tempBlock.addMembers(exprInfo.getInitMembers());
+        tempBlock.addMember(new JavaExpressionStatement(exprInfo
+            .getResultExpr()));
+        tempBlock.addMembers(exprInfo.getUpdateMembers());
     }
 
     private boolean processForStmts(List veraStmts, JavaBlock tempBlock)
@@ -806,41 +1309,86 @@ final class BlockMemberTranslator
     {
         translatingSwitch = true;
 
-        // create temp variable containing randcase weights
-        JavaArrayType intArrayType = schema.getArrayType(schema.intType, 1);
-        JavaLocalVariable weightsVar = VarBuilder.createLocalVar(tempScope,
-            "weights", intArrayType);
-        tempScope.addObject(weightsVar);
-        weightsVar.addModifier(JavaVariableModifier.FINAL);
-        JavaArrayInitializer initExpr = new JavaArrayInitializer(intArrayType);
-        weightsVar.setInitializer(initExpr);
-
-        // create call to Vera.randcase()
-        JavaFunctionReference funcRef = new JavaFunctionReference(
-            types.junoType.getMethod("randcase",
-                new JavaType[] { intArrayType }));
-        JavaFunctionInvocation funcCall = new JavaFunctionInvocation(funcRef);
-        funcCall.addArgument(new JavaVariableReference(weightsVar));
+        final List cases = obj.getCaseList();
+        final int caseCount = cases.size();
+
+        // randcase with constant weights uses a static precomputed table
+        JavaExpression selectExpr = null;
+        JavaLocalVariable weightsVar = null;
+        final int[] constWeights = getConstantWeights(cases);
+        if (constWeights != null)
+        {
+            // Vera: randcase { 10: ...; 20: ...; }
+            // Java: switch (JUNO_RANDCASE.select())
+            final JavaMemberVariable tableVar = getRandCaseTableConstant(
+                containingClass, constWeights);
+            if (tableVar != null)
+            {
+                selectExpr = ExpressionBuilder.memberCall(
+                    new JavaVariableReference(tableVar), "select");
+            }
+        }
+        if (selectExpr == null)
+        {
+            // translate weights
+            final JavaExpression[] weightExprs = new JavaExpression[caseCount];
+            Iterator iter = cases.iterator();
+            int index = 0;
+            while (iter.hasNext())
+            {
+                VeraRandCase randCase = (VeraRandCase) iter.next();
+                ConvertedExpression weightInfo = translateExpr(randCase
+                    .getWeight(), schema.intType);
+                weightInfo.convertResultExpr(schema.intType, exprConv);
+                weightExprs[index++] = weightInfo.toBlockExpr(block, "weight");
+            }
+
+            if (caseCount >= 2 && caseCount <= 4)
+            {
+                // pass small numbers of weights directly to avoid allocating
+                // an array: Juno.randcase(w0, w1)
+                selectExpr = ExpressionBuilder.staticCall(types.junoType,
+                    "randcase", weightExprs, null);
+            }
+            else
+            {
+                // create temp variable containing randcase weights
+                JavaArrayType intArrayType = schema.getArrayType(
+                    schema.intType, 1);
+                weightsVar = VarBuilder.createLocalVar(tempScope, "weights",
+                    intArrayType);
+                tempScope.addObject(weightsVar);
+                weightsVar.addModifier(JavaVariableModifier.FINAL);
+                JavaArrayInitializer initExpr = new JavaArrayInitializer(
+                    intArrayType);
+                for (int i = 0; i < caseCount; ++i)
+                {
+                    initExpr.addElement(weightExprs[i]);
+                }
+                weightsVar.setInitializer(initExpr);
+
+                // create call to Vera.randcase()
+                JavaFunctionReference funcRef = new JavaFunctionReference(
+                    types.junoType.getMethod("randcase",
+                        new JavaType[] { intArrayType }));
+                JavaFunctionInvocation funcCall = new JavaFunctionInvocation(
+                    funcRef);
+                funcCall.addArgument(new JavaVariableReference(weightsVar));
+                selectExpr = funcCall;
+            }
+        }
 
         // create switch statement to decode randcase index
-        JavaSwitchStatement switchStmt = new JavaSwitchStatement(funcCall);
+        JavaSwitchStatement switchStmt = new JavaSwitchStatement(selectExpr);
         switchStmt.addAnnotations(obj.getAnnotations());
 
-        // process cases into array initializer and switch statement
-        List cases = obj.getCaseList();
+        // process cases into switch statement
         Iterator iter = cases.iterator();
         int index = 0;
         while (iter.hasNext())
         {
             VeraRandCase randCase = (VeraRandCase) iter.next();
 
-            // translate weight
-            ConvertedExpression weightInfo = translateExpr(
-                randCase.getWeight(), schema.intType);
-            weightInfo.convertResultExpr(schema.intType, exprConv);
-            JavaExpression weightExpr = weightInfo.toBlockExpr(block, "weight");
-            initExpr.addElement(weightExpr);
-
             // translate statement
             JavaStatement stmt = translateStatement(randCase.getStatement());
 
@@ -861,12 +1409,51 @@ final class BlockMemberTranslator
         }
 
         // add variable and switch to block (after any weight inits/updates)
-        block.addMember(weightsVar);
+        if (weightsVar != null)
+        {
+            block.addMember(weightsVar);
+        }
         block.addMember(switchStmt);
 
         translatingSwitch = false;
     }
 
+    private int[] getConstantWeights(List cases)
+    {
+        // returns null if any weight is not a known constant, or if the
+        // weights would fail at runtime, so that the error is still reported
+        // when the randcase is executed
+        final int[] weights = new int[cases.size()];
+        long sum = 0;
+        Iterator iter = cases.iterator();
+        int index = 0;
+        while (iter.hasNext())
+        {
+            VeraRandCase randCase = (VeraRandCase) iter.next();
+            VeraExpression weightExpr = randCase.getWeight();
+            if (!weightExpr.isConstant()) return null;
+            Object value = weightExpr.evaluateConstant();
+            final int weight;
+            if (value instanceof Integer)
+            {
+                weight = ((Integer) value).intValue();
+            }
+            else if (value instanceof BitVector
+                && !((BitVector) value).containsXZ())
+            {
+                weight = ((BitVector) value).intValue();
+            }
+            else
+            {
+                return null;
+            }
+            if (weight < 0) return null;
+            weights[index++] = weight;
+            sum += weight;
+        }
+        return (sum > 0 && sum <= Integer.MAX_VALUE) ? weights : null;
+    }
+
     public void visit(VeraRepeatStatement obj)
     {
         translatingLoop = true;
@@ -1204,7 +1791,7 @@ final class BlockMemberTranslator
         }
         JavaExpressionStatement stmt = new JavaExpressionStatement(syncExpr);
         stmt.addAnnotations(obj.getAnnotations());
-        block.addMember(stmt);
+        addBlockingStatement(stmt);
     }
 
     private JavaExpression getSyncExpr(VeraSyncTerm term, boolean wantEvent)
@@ -45,6 +45,11 @@ final class BuiltinFunctionTranslatorMap
         SimpleStaticTranslator veraStaticXlat = new SimpleStaticTranslator(
             types.junoType);
 
+        PrintfTranslator printfXlat = new PrintfTranslator(0);
+        PrintfTranslator fprintfXlat = new PrintfTranslator(1);
+        EventCallTranslator eventCallXlat = new EventCallTranslator(
+            veraStaticXlat);
+
         builtinFuncMap.put("alloc", veraStaticXlat);
         builtinFuncMap.put("assert", new AssertTranslator());
         builtinFuncMap.put("assoc_index", new AssocIndexTranslator());
@@ -59,7 +64,7 @@ final class BuiltinFunctionTranslatorMap
         builtinFuncMap.put("fflush", veraStaticXlat);
         builtinFuncMap.put("flag", veraStaticXlat);
         builtinFuncMap.put("fopen", veraStaticXlat);
-        builtinFuncMap.put("fprintf", veraStaticXlat);
+        builtinFuncMap.put("fprintf", fprintfXlat);
         builtinFuncMap.put("freadb", veraStaticXlat);
         builtinFuncMap.put("freadh", veraStaticXlat);
         builtinFuncMap.put("freadstr", veraStaticXlat);
@@ -75,11 +80,15 @@ final class BuiltinFunctionTranslatorMap
         builtinFuncMap.put("lock_file", veraStaticXlat);
         builtinFuncMap.put("mailbox_get", veraStaticXlat);
         builtinFuncMap.put("mailbox_put", veraStaticXlat);
+        // Juno extensions: declare as extern to use from Vera code
+        builtinFuncMap.put("mailbox_get_batch", veraStaticXlat);
+        builtinFuncMap.put("mailbox_put_batch", veraStaticXlat);
+        builtinFuncMap.put("mailbox_set_capacity", veraStaticXlat);
         builtinFuncMap.put("os_command", veraStaticXlat);
-        builtinFuncMap.put("printf", veraStaticXlat);
+        builtinFuncMap.put("printf", printfXlat);
         builtinFuncMap.put("prodget", null);
         builtinFuncMap.put("prodset", null);
-        builtinFuncMap.put("psprintf", veraStaticXlat);
+        builtinFuncMap.put("psprintf", printfXlat);
         builtinFuncMap.put("rand48", veraStaticXlat);
         builtinFuncMap.put("random", veraStaticXlat);
         builtinFuncMap.put("region_enter", veraStaticXlat);
@@ -94,10 +103,10 @@ final class BuiltinFunctionTranslatorMap
         builtinFuncMap.put("sscanf", veraStaticXlat);
         builtinFuncMap.put("stop", null);
         builtinFuncMap.put("suspend_thread", new SuspendThreadTranslator());
-        builtinFuncMap.put("sync", veraStaticXlat);
+        builtinFuncMap.put("sync", eventCallXlat);
         builtinFuncMap.put("timeout", null);
         builtinFuncMap.put("trace", null);
-        builtinFuncMap.put("trigger", veraStaticXlat);
+        builtinFuncMap.put("trigger", eventCallXlat);
         builtinFuncMap.put("unlock_file", veraStaticXlat);
         builtinFuncMap.put("urand48", veraStaticXlat);
         builtinFuncMap.put("urandom", veraStaticXlat);
@@ -322,8 +331,17 @@ final class BuiltinFunctionTranslatorMap
                     // assoc_index(DELETE, array, index) -> array.delete(index)
                     JavaExpression indexExpr = exprXlat.translateNestedExpr(
                         arg2, "index", formalIndexType);
-                    indexExpr = exprXlat.exprConv.toType(formalIndexType,
-                        indexExpr);
+                    // long-indexed arrays accept int and long indices
+                    JavaType indexType = indexExpr.getResultType();
+                    boolean primitiveIndex = exprXlat.types.longAssocArrayType
+                        .isAssignableFrom(arrayType)
+                        && (exprXlat.schema.isInt(indexType) || exprXlat.schema
+                            .isLong(indexType));
+                    if (!primitiveIndex)
+                    {
+                        indexExpr = exprXlat.exprConv.toType(formalIndexType,
+                            indexExpr);
+                    }
                     result = ExpressionBuilder.memberCall(arrayExpr,
                         op == Juno.CHECK ? "check" : "delete", indexExpr);
                 }
@@ -689,6 +707,87 @@ final class BuiltinFunctionTranslatorMap
         }
     }
 
+    /**
+     * Translates calls to sync and trigger. Calls with one event (or two
+     * events for sync) use the fixed-arity runtime overloads, which avoid
+     * allocating a varargs array; other calls are translated normally.
+     */
+    private class EventCallTranslator
+        implements BuiltinFunctionTranslator
+    {
+        private final BuiltinFunctionTranslator defaultXlat;
+
+        public EventCallTranslator(BuiltinFunctionTranslator defaultXlat)
+        {
+            this.defaultXlat = defaultXlat;
+        }
+
+        public void translate(
+            ExpressionTranslator exprXlat,
+            VeraFunction func,
+            JavaExpression obj,
+            List<VeraExpression> veraArgExprs)
+        {
+            // Vera: sync(ALL, e1, e2);
+            // Java: Juno.sync(Juno.ALL, e1, e2);
+            final String methodID = func.getName().getIdentifier();
+            final int argCount = veraArgExprs.size();
+            final boolean hasOp = argCount > 0
+                && !isEventArg(veraArgExprs.get(0));
+            final int eventCount = hasOp ? argCount - 1 : argCount;
+            final int maxEvents = methodID.equals("sync") ? 2 : 1;
+            if (eventCount < 1 || eventCount > maxEvents)
+            {
+                defaultXlat.translate(exprXlat, func, obj, veraArgExprs);
+                return;
+            }
+
+            final SchemaTypes types = exprXlat.types;
+            final JavaType[] argTypes = new JavaType[argCount];
+            final JavaExpression[] argExprs = new JavaExpression[argCount];
+            int argIndex = 0;
+            for (final VeraExpression veraExpr : veraArgExprs)
+            {
+                if (argIndex == 0 && hasOp)
+                {
+                    argTypes[argIndex] = exprXlat.schema.intType;
+                    argExprs[argIndex] = exprXlat.exprConv.toInt(exprXlat
+                        .translateNestedIntExpr(veraExpr, "op"));
+                }
+                else
+                {
+                    JavaExpression eventExpr = exprXlat.translateNestedExpr(
+                        veraExpr, "event", types.junoEventType);
+                    if (eventExpr.getResultType() instanceof JavaNullType)
+                    {
+                        // avoid ambiguous method invocation
+                        eventExpr = new JavaCastExpression(
+                            types.junoEventType, eventExpr);
+                    }
+                    argTypes[argIndex] = types.junoEventType;
+                    argExprs[argIndex] = eventExpr;
+                }
+                ++argIndex;
+            }
+            final JavaFunction method = types.junoType.getMethod(methodID,
+                argTypes);
+            final JavaFunctionInvocation callExpr = new JavaFunctionInvocation(
+                new JavaFunctionReference(method));
+            for (final JavaExpression argExpr : argExprs)
+            {
+                callExpr.addArgument(argExpr);
+            }
+            exprXlat.result.setResultExpr(callExpr);
+        }
+
+        private boolean isEventArg(VeraExpression veraExpr)
+        {
+            final VeraType type = veraExpr.getResultType();
+            return type instanceof VeraEventType
+                || type instanceof VeraNullType;
+        }
+    }
+
     /**
      * Translates calls to get_state.
      * Not implemented, but not generally necessary with Java.
@@ -772,6 +871,67 @@ final class BuiltinFunctionTranslatorMap
         }
     }
 
+    /**
+     * Translates calls to printf, fprintf, and psprintf to the Juno static
+     * method of the same name, using a pre-parsed format plan for literal
+     * format strings.
+     */
+    private class PrintfTranslator
+        implements BuiltinFunctionTranslator
+    {
+        private final int formatIndex;
+
+        public PrintfTranslator(int formatIndex)
+        {
+            this.formatIndex = formatIndex;
+        }
+
+        public void translate(
+            ExpressionTranslator exprXlat,
+            VeraFunction func,
+            JavaExpression obj,
+            List<VeraExpression> veraArgExprs)
+        {
+            String methodID = func.getName().getIdentifier();
+            exprXlat.translateCall(func, exprXlat.types.junoType, methodID,
+                obj, veraArgExprs);
+            usePrintfPlan(exprXlat, methodID, veraArgExprs, formatIndex);
+        }
+    }
+
+    /**
+     * Replaces the literal format argument of a translated Juno printf-style
+     * call with a static pre-parsed format plan constant.
+     */
+    static void usePrintfPlan(
+        ExpressionTranslator exprXlat,
+        String methodID,
+        List<VeraExpression> veraArgExprs,
+        int formatIndex)
+    {
+        // only literal (or constant define) formats are pre-parsed
+        if (veraArgExprs.size() <= formatIndex) return;
+        final VeraExpression veraFormatExpr = veraArgExprs.get(formatIndex);
+        if (!veraFormatExpr.isConstant()) return;
+        final Object format = veraFormatExpr.evaluateConstant();
+        if (!(format instanceof String)) return;
+        final JavaMemberVariable planVar = exprXlat.getFormatPlanConstant(
+            exprXlat.containingType, (String) format);
+        if (planVar == null) return;
+
+        // Vera: printf("format", ...)
+        // Java: Juno.printf(JUNO_FORMAT, ...)
+        final JavaFunctionInvocation callExpr = (JavaFunctionInvocation) exprXlat.result
+            .getResultExpr();
+        final List<JavaExpression> argExprs = callExpr.getArguments();
+        final JavaExpression[] planArgExprs = argExprs
+            .toArray(new JavaExpression[argExprs.size()]);
+        planArgExprs[formatIndex] = new JavaVariableReference(planVar);
+        final JavaExpression planCall = ExpressionBuilder.staticCall(
+            exprXlat.types.junoType, methodID, planArgExprs, null);
+        exprXlat.result.setResultExpr(planCall);
+    }
+
     /**
      * Translates calls to sprintf.
      */
@@ -803,6 +963,7 @@ final class BuiltinFunctionTranslatorMap
                 psprintfArgs.remove(0);
                 exprXlat.translateCall(psprintfFunc, exprXlat.types.junoType,
                     "psprintf", null, psprintfArgs);
+                usePrintfPlan(exprXlat, "psprintf", psprintfArgs, 0);
                 JavaExpression expr = exprXlat.result.getResultExpr();
                 expr = new JavaAssign(exprXlat.schema, resultArgExpr, expr);
                 exprXlat.result.setResultExpr(expr);
@@ -812,6 +973,7 @@ final class BuiltinFunctionTranslatorMap
                 // result argument should be JunoString
                 exprXlat.translateCall(func, exprXlat.types.junoType,
                     "sprintf", null, veraArgExprs);
+                usePrintfPlan(exprXlat, "sprintf", veraArgExprs, 1);
             }
         }
     }
@@ -869,7 +1031,11 @@ final class BuiltinFunctionTranslatorMap
                     exprXlat
                         .log("Warning: wait_var event not defined for variable: "
                             + veraExpr);
-                    eventRef = new JavaNullLiteral(exprXlat.schema);
+                    // cast avoids an ambiguous invocation of the
+                    // sync(int, JunoEvent) overload
+                    eventRef = new JavaCastExpression(
+                        exprXlat.types.junoEventType, new JavaNullLiteral(
+                            exprXlat.schema));
                 }
                 javaArgExprs[argIndex++] = eventRef;
             }
@@ -897,6 +1063,11 @@ final class BuiltinFunctionTranslatorMap
             JavaRawAbstractClass cls = (JavaRawAbstractClass) obj
                 .getResultType();
             String methodID = func.getName().getIdentifier();
+            if (methodID.equals("match")
+                && translateConstantMatch(exprXlat, cls, obj, veraArgExprs))
+            {
+                return;
+            }
             if (cls == exprXlat.types.junoStringType)
             {
                 exprXlat.translateCall(func, cls, methodID, obj, veraArgExprs);
@@ -966,5 +1137,40 @@ final class BuiltinFunctionTranslatorMap
                 }
             }
         }
+
+        private boolean translateConstantMatch(
+            ExpressionTranslator exprXlat,
+            JavaRawAbstractClass cls,
+            JavaExpression obj,
+            List<VeraExpression> veraArgExprs)
+        {
+            // only literal (or constant define) patterns are precompiled
+            assert (veraArgExprs.size() == 1);
+            final VeraExpression veraPatternExpr = veraArgExprs.get(0);
+            if (!veraPatternExpr.isConstant()) return false;
+            final Object regex = veraPatternExpr.evaluateConstant();
+            if (!(regex instanceof String)) return false;
+            final JavaMemberVariable patternVar = exprXlat.getPatternConstant(
+                exprXlat.containingType, (String) regex);
+            if (patternVar == null) return false;
+
+            // Vera: s.match("regex")
+            // Java: s.match(JUNO_PATTERN) or StringOp.match(s, JUNO_PATTERN)
+            final JavaVariableReference patternRef = new JavaVariableReference(
+                patternVar);
+            final JavaExpression matchCall;
+            if (cls == exprXlat.types.junoStringType)
+            {
+                matchCall = ExpressionBuilder.memberCall(obj, "match",
+                    patternRef);
+            }
+            else
+            {
+                matchCall = ExpressionBuilder.staticCall(
+                    exprXlat.types.stringOpType, "match", obj, patternRef);
+            }
+            exprXlat.result.setResultExpr(matchCall);
+            return true;
+        }
     }
 }
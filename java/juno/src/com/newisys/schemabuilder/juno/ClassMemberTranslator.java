@@ -132,11 +132,17 @@ final class ClassMemberTranslator
 
     public void visit(VeraMemberFunction obj)
     {
+        if (pruner != null && pruner.isPrunedFunction(obj)) return;
         translateMemberFunctionOrCtor(obj, cls);
     }
 
     public void visit(VeraMemberVariable obj)
     {
+        if (pruner != null && pruner.isPrunedVariable(obj))
+        {
+            log("Note: Pruning write-only field: " + obj.getName());
+            return;
+        }
         translateMemberVariable(obj, cls);
     }
 }
@@ -72,6 +72,7 @@ final class CompUnitMemberTranslator
 
     public void visit(VeraGlobalFunction obj)
     {
+        if (pruner != null && pruner.isPrunedFunction(obj)) return;
         translateGlobalFunction(obj, pkg);
     }
 
@@ -143,6 +143,22 @@ final class ConvertedExpression
         return new JavaVariableReference(var);
     }
 
+    public JavaVariableReference addHoistedTempFor(
+        String id,
+        JavaExpression expr)
+    {
+        // hoist the variable to the enclosing method body, if any, so that
+        // it is created once per call of the method
+        TempBlockScope hoistScope = tempScope.getHoistScope();
+        if (hoistScope == null) return null;
+        JavaLocalVariable var = VarBuilder.createLocalVar(hoistScope
+            .getHoistNameScope(), id, expr.getResultType());
+        var.setInitializer(expr);
+        var.addModifier(JavaVariableModifier.FINAL);
+        hoistScope.addHoistedMember(var);
+        return new JavaVariableReference(var);
+    }
+
     public boolean hasInitExprs()
     {
         return initExprs;
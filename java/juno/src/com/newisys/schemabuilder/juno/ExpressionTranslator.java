@@ -29,6 +29,7 @@ import com.newisys.langschema.java.*;
 import com.newisys.langschema.java.util.ExpressionBuilder;
 import com.newisys.langschema.vera.*;
 import com.newisys.schemaanalyzer.juno.FunctionAnalysis;
+import com.newisys.schemaanalyzer.juno.VariableAnalysis;
 import com.newisys.verilog.util.Bit;
 import com.newisys.verilog.util.BitVector;
 import com.newisys.verilog.util.BitVectorFormat;
@@ -738,7 +739,11 @@ final class ExpressionTranslator
             }
             else if (veraExpr instanceof VeraArrayAccess)
             {
-                // associative array access is not a Java LHS
+                // associative and flat array accesses are not a Java LHS
+                if (isFlatArrayAccess((VeraArrayAccess) veraExpr))
+                {
+                    return false;
+                }
                 Type type = veraExpr.getResultType();
                 return type instanceof VeraFixedArrayType
                     || type instanceof VeraDynamicArrayType;
@@ -773,6 +778,8 @@ final class ExpressionTranslator
     {
         JavaExpression rhs = null;
         JavaType rhsType = null;
+        final List<VeraExpression> appendOperands = (opcode == OP_NONE)
+            ? getSelfAppendOperands(veraLHS, veraRHS) : null;
 
         // attempt to use built-in operator if LHS translates to a Java LHS
         if (hasJavaLHS(veraLHS))
@@ -798,6 +805,27 @@ final class ExpressionTranslator
                     rhs));
                 return;
             }
+            else if (appendOperands != null
+                && lhsType == types.junoStringType)
+            {
+                // Vera: str = {str, a, b}
+                // Java: str.append(a, b)
+                final JavaArrayType stringArrType = schema.getArrayType(schema
+                    .getStringType(), 1);
+                final JavaFunction appendMethod = types.junoStringType
+                    .getMethod("append", new JavaType[] { stringArrType });
+                final JavaFunctionInvocation appendCall = new JavaFunctionInvocation(
+                    new JavaMemberAccess(lhs, appendMethod));
+                for (final VeraExpression veraExpr : appendOperands)
+                {
+                    JavaExpression javaExpr = translateNestedExpr(veraExpr,
+                        "str");
+                    appendCall.addArgument(exprConv.toJavaString(javaExpr,
+                        false));
+                }
+                result.setResultExpr(appendCall);
+                return;
+            }
             else
             {
                 // translate RHS using LHS type for promotion type
@@ -1102,11 +1130,11 @@ final class ExpressionTranslator
 
     public void visit(VeraArrayAccess obj)
     {
-        final LHSTranslator xlat = new ArrayLHSTranslator(this, result, obj,
-            true, false);
+        final ArrayLHSTranslator xlat = new ArrayLHSTranslator(this, result,
+            obj, true, false);
         // default access is read;
         // write contexts explicitly check for array access
-        JavaExpression readExpr = xlat.getReadExpression();
+        JavaExpression readExpr = xlat.getReadExpression(desiredResultType);
         readExpr.addAnnotations(obj.getAnnotations());
         result.setResultExpr(readExpr);
     }
@@ -1176,6 +1204,15 @@ final class ExpressionTranslator
         final JavaArrayType arrayType = (JavaArrayType) translateType(veraArrayType);
         final JavaType elemType = arrayType.getAccessType(1);
 
+        // load large constant tables from a resource if enabled
+        final JavaExpression tableExpr = getResourceTableExpr(containingType,
+            obj, arrayType);
+        if (tableExpr != null)
+        {
+            result.setResultExpr(tableExpr);
+            return;
+        }
+
         // create Java array initializer schema object
         final JavaArrayInitializer initExpr = new JavaArrayInitializer(
             arrayType);
@@ -1421,8 +1458,9 @@ final class ExpressionTranslator
         final List<JavaExpression> javaExprs = new LinkedList<JavaExpression>();
         if (obj.getResultType() instanceof VeraStringType)
         {
-            // string concatenation
-            for (final VeraExpression veraExpr : operands)
+            // string concatenation; nested string concatenations are
+            // flattened into a single presized concatenation
+            for (final VeraExpression veraExpr : getStringConcatOperands(obj))
             {
                 JavaExpression javaExpr = translateNestedExpr(veraExpr, "str");
                 javaExpr = exprConv.toJavaString(javaExpr, false);
@@ -1448,6 +1486,76 @@ final class ExpressionTranslator
         result.setResultExpr(resultExpr);
     }
 
+    private List<VeraExpression> getStringConcatOperands(VeraConcatenation obj)
+    {
+        final List<VeraExpression> operands = new LinkedList<VeraExpression>();
+        addStringConcatOperands(obj, operands);
+        return operands;
+    }
+
+    private void addStringConcatOperands(
+        VeraConcatenation obj,
+        List<VeraExpression> operands)
+    {
+        // {a, {b, c}} is equivalent to {a, b, c}, since null strings are
+        // ignored and an empty result is null in either case
+        for (final VeraExpression veraExpr : obj.getOperands())
+        {
+            if (veraExpr instanceof VeraConcatenation
+                && veraExpr.getResultType() instanceof VeraStringType)
+            {
+                addStringConcatOperands((VeraConcatenation) veraExpr,
+                    operands);
+            }
+            else
+            {
+                operands.add(veraExpr);
+            }
+        }
+    }
+
+    private List<VeraExpression> getSelfAppendOperands(
+        VeraExpression veraLHS,
+        VeraExpression veraRHS)
+    {
+        // str = {str, a, b} can append to str in place if it is a simple
+        // variable, and evaluating the other operands cannot modify it
+        if (!(veraLHS instanceof VeraVariableReference)
+            || !(veraRHS instanceof VeraConcatenation)
+            || !(veraRHS.getResultType() instanceof VeraStringType))
+        {
+            return null;
+        }
+        final VeraVariable veraVar = ((VeraVariableReference) veraLHS)
+            .getVariable();
+        final List<VeraExpression> operands = getStringConcatOperands(
+            (VeraConcatenation) veraRHS);
+        if (operands.size() < 2) return null;
+        final VeraExpression firstExpr = operands.remove(0);
+        if (!(firstExpr instanceof VeraVariableReference)
+            || ((VeraVariableReference) firstExpr).getVariable() != veraVar)
+        {
+            return null;
+        }
+        final VariableAnalysis varAnalysis = analyzer
+            .getVariableAnalysis(veraVar);
+        final boolean isPrivateLocal = veraVar instanceof VeraLocalVariable
+            && varAnalysis != null && !varAnalysis.isPassedByRef()
+            && !varAnalysis.isForkWrite();
+        if (!isPrivateLocal)
+        {
+            for (final VeraExpression veraExpr : operands)
+            {
+                if (!veraExpr.isConstant()
+                    && !(veraExpr instanceof VeraVariableReference))
+                {
+                    return null;
+                }
+            }
+        }
+        return operands;
+    }
+
     JavaExpression buildStringConcat(List<JavaExpression> javaExprs)
     {
         final JavaArrayType stringArrType = schema.getArrayType(schema
@@ -1794,6 +1902,16 @@ final class ExpressionTranslator
         JavaExpression funcExpr;
         if (obj != null)
         {
+            // instance methods translated as static do not dereference the
+            // object, so check explicitly that it is not null, as Vera does
+            if (method.hasModifier(JavaFunctionModifier.STATIC)
+                && !(obj instanceof JavaThisReference)
+                && !(obj instanceof JavaSuperReference))
+            {
+                obj = ExpressionBuilder.checkDowncast(ExpressionBuilder
+                    .staticCall(types.junoType, "checkNotNull", obj), obj
+                    .getResultType());
+            }
             funcExpr = new JavaMemberAccess(obj, method);
         }
         else
@@ -1940,7 +2058,8 @@ final class ExpressionTranslator
                 if (veraArg.isByRef() && !needsClone(javaArgType)
                     && veraExpr.isAssignable())
                 {
-                    javaArgType = new JavaRefType(javaArgType);
+                    javaArgType = new JavaRefType(javaArgType,
+                        isHolderVarRef(veraExpr));
                 }
 
                 javaArgTypes.add(javaArgType);
@@ -2102,14 +2221,32 @@ final class ExpressionTranslator
             JavaType formalTargetType = formalArgType;
             JavaType actualTargetType = actualArgType;
             boolean byRef = false;
+            boolean typedHolder = false;
             if (actualArgType instanceof JavaRefType)
             {
-                if (!(formalArgType instanceof JavaArrayType)) return -1;
-                JavaArrayType formalArrayType = (JavaArrayType) formalArgType;
-                if (formalArrayType.getIndexTypes().length != 1) return -1;
-                formalTargetType = formalArrayType.getElementType();
-                actualTargetType = ((JavaRefType) actualArgType).targetType;
+                JavaRefType refType = (JavaRefType) actualArgType;
+                JavaType holderTargetType = getTypedRefTarget(formalArgType);
+                if (holderTargetType != null)
+                {
+                    formalTargetType = holderTargetType;
+                    typedHolder = true;
+                }
+                else
+                {
+                    if (!(formalArgType instanceof JavaArrayType)) return -1;
+                    JavaArrayType formalArrayType = (JavaArrayType) formalArgType;
+                    if (formalArrayType.getIndexTypes().length != 1) return -1;
+                    formalTargetType = formalArrayType.getElementType();
+                }
+                actualTargetType = refType.targetType;
                 byRef = true;
+
+                // prefer typed holders for new references, but pass existing
+                // holder arrays directly
+                if (typedHolder == refType.holderVar)
+                {
+                    ++convCount;
+                }
             }
 
             if (!formalTargetType.isAssignableFrom(actualTargetType))
@@ -2119,6 +2256,10 @@ final class ExpressionTranslator
                         actualTargetType)))
                 {
                     ++convCount;
+
+                    // a converted typed holder would lose X/Z state, so rank
+                    // it behind an untyped holder array
+                    if (typedHolder) ++convCount;
                 }
                 else
                 {
@@ -2158,6 +2299,7 @@ final class ExpressionTranslator
         List<JavaFunctionArgument> javaArgs = javaFuncType.getArguments();
         Iterator<JavaFunctionArgument> javaArgIter = javaArgs
             .listIterator(javaArgExprs.size());
+        int argIndex = 0;
         while (veraArgIter.hasNext() && veraExprIter.hasNext())
         {
             VeraFunctionArgument veraArg = veraArgIter.next();
@@ -2168,6 +2310,12 @@ final class ExpressionTranslator
             JavaExpression javaExpr = null;
             if (veraArg.isByRef())
             {
+                // a reference holder can be reused across calls unless the
+                // called function may access it after returning
+                final VeraFunction veraFunc = veraArg.getFunction();
+                final boolean reuseHolder = veraFunc != null
+                    && !analyzer.isArgumentRetained(veraFunc, argIndex);
+
                 if (needsClone(javaArgType))
                 {
                     // translate expression normally
@@ -2176,7 +2324,14 @@ final class ExpressionTranslator
                 else if (javaArgType instanceof JavaArrayType)
                 {
                     // use reference holder to pass by-reference
-                    javaExpr = getRefHolderExprs(javaArg, javaArgType, veraExpr);
+                    javaExpr = getRefHolderExprs(javaArg, javaArgType,
+                        veraExpr, reuseHolder);
+                }
+                else if (getTypedRefTarget(javaArgType) != null)
+                {
+                    // use typed reference holder to pass by-reference
+                    javaExpr = getTypedRefHolderExprs(javaArg, javaArgType,
+                        veraExpr, reuseHolder);
                 }
                 else
                 {
@@ -2200,6 +2355,7 @@ final class ExpressionTranslator
                 javaExpr = convertRHS(javaExpr, javaExprType, javaArgType, true);
             }
             javaArgExprs.add(javaExpr);
+            ++argIndex;
         }
 
         // translate variable arguments
@@ -2312,10 +2468,77 @@ final class ExpressionTranslator
         }
     }
 
+    private boolean isHolderVarRef(VeraExpression veraExpr)
+    {
+        if (veraExpr instanceof VeraVariableReference && varInfoMap != null)
+        {
+            final VeraVariable veraVar = ((VeraVariableReference) veraExpr)
+                .getVariable();
+            final VarInfo info = varInfoMap.getInfo(veraVar);
+            return info != null && info.isHolderVar();
+        }
+        return false;
+    }
+
+    private JavaType getTypedRefTarget(JavaType type)
+    {
+        if (type == types.intRefType)
+        {
+            return schema.intType;
+        }
+        else if (type == types.bitVectorRefType)
+        {
+            return schema.bitVectorType;
+        }
+        return null;
+    }
+
+    private JavaExpression getTypedRefHolderExprs(
+        JavaFunctionArgument javaArg,
+        JavaType javaArgType,
+        VeraExpression veraExpr,
+        boolean reuseHolder)
+    {
+        // translate the actual argument
+        JavaType targetType = getTypedRefTarget(javaArgType);
+        LHSTranslator lhsXlat = translateLHS(veraExpr, targetType, true, true);
+        JavaType refType = lhsXlat.getResultType();
+        JavaExpression readExpr = exprConv.toType(targetType, lhsXlat
+            .getReadExpression());
+
+        // create reference holder variable, or reuse one created with the
+        // enclosing method
+        String argName = javaArg.getName().getIdentifier();
+        JavaRawClass holderType = (JavaRawClass) javaArgType;
+        JavaExpression holderRef = reuseHolder ? result.addHoistedTempFor(
+            argName + "_holder", ExpressionBuilder.newInstance(holderType))
+            : null;
+        if (holderRef != null)
+        {
+            result.addInitExpr(ExpressionBuilder.memberCall(holderRef, "set",
+                readExpr));
+        }
+        else
+        {
+            holderRef = result.addTempFor(argName + "_holder", ExpressionBuilder
+                .newInstance(holderType, readExpr), true);
+        }
+
+        // create expression to write back value in holder
+        JavaFunctionInvocation getExpr = ExpressionBuilder.memberCall(
+            holderRef, "get");
+        getExpr.setResultType(targetType);
+        JavaExpression valueExpr = exprConv.toType(refType, getExpr);
+        lhsXlat.getWriteExpression(valueExpr).mergeIntoUpdate(result);
+
+        return holderRef;
+    }
+
     private JavaExpression getRefHolderExprs(
         JavaFunctionArgument javaArg,
         JavaType javaArgType,
-        VeraExpression veraExpr)
+        VeraExpression veraExpr,
+        boolean reuseHolder)
     {
         // get type of argument array and its element type
         assert (javaArgType instanceof JavaArrayType);
@@ -2370,13 +2593,32 @@ final class ExpressionTranslator
                 holderType = schema.getArrayType(convRefType, 1);
             }
 
-            // create expression to initialize reference holder
-            JavaArrayInitializer initExpr = new JavaArrayInitializer(holderType);
-            initExpr.addElement(readExpr);
-
-            // create reference holder variable
+            // create reference holder variable, or reuse one created with
+            // the enclosing method
             String argName = javaArg.getName().getIdentifier();
-            holderRef = result.addTempFor(argName + "_holder", initExpr, true);
+            if (reuseHolder)
+            {
+                JavaArrayCreation newExpr = new JavaArrayCreation(holderType);
+                newExpr.addDimension(new JavaIntLiteral(schema, 1));
+                holderRef = result.addHoistedTempFor(argName + "_holder",
+                    newExpr);
+            }
+            if (holderRef != null)
+            {
+                JavaArrayAccess holderAccess = new JavaArrayAccess(holderRef);
+                holderAccess.addIndex(new JavaIntLiteral(schema, 0));
+                result.addInitExpr(new JavaAssign(schema, holderAccess,
+                    readExpr));
+            }
+            else
+            {
+                // create expression to initialize reference holder
+                JavaArrayInitializer initExpr = new JavaArrayInitializer(
+                    holderType);
+                initExpr.addElement(readExpr);
+                holderRef = result.addTempFor(argName + "_holder", initExpr,
+                    true);
+            }
 
             // create expression to write back value in holder
             JavaArrayAccess holderAccess = new JavaArrayAccess(holderRef);
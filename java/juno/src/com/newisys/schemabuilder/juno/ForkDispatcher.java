@@ -0,0 +1,163 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.schemabuilder.juno;
+
+import com.newisys.langschema.java.*;
+import com.newisys.langschema.java.util.ExpressionBuilder;
+
+/**
+ * Builds a single Runnable class per translated class that contains the
+ * bodies of all forked statements in that class, selected by an integer
+ * branch ID given at construction. Local variables referenced by a forked
+ * statement are passed in a capture array and copied into final locals at
+ * the start of the branch, which preserves the semantics of capturing them
+ * in an anonymous class.
+ * 
+ * @author Trevor Robinson
+ */
+final class ForkDispatcher
+{
+    private final JavaSchema schema;
+    private final SchemaTypes types;
+    private final JavaRawClass cls;
+    private final JavaMemberVariable capturesVar;
+    private final JavaSwitchStatement switchStmt;
+    private int nextBranchID;
+
+    public ForkDispatcher(
+        JavaSchema schema,
+        SchemaTypes types,
+        JavaRawClass outerClass,
+        String id,
+        boolean isStatic)
+    {
+        this.schema = schema;
+        this.types = types;
+
+        // create the nested class
+        cls = new JavaRawClass(schema, id, outerClass.getPackage(), outerClass);
+        cls.setVisibility(JavaVisibility.PRIVATE);
+        if (isStatic)
+        {
+            cls.addModifier(JavaTypeModifier.STATIC);
+        }
+        cls.addModifier(JavaTypeModifier.FINAL);
+        cls.setBaseClass(types.objectType);
+        cls.addBaseInterface(types.runnableType);
+        outerClass.addMember(cls);
+
+        // define branch and captures fields
+        final JavaMemberVariable branchVar = cls.newField("branch",
+            schema.intType);
+        branchVar.setVisibility(JavaVisibility.PRIVATE);
+        branchVar.addModifier(JavaVariableModifier.FINAL);
+        capturesVar = cls.newField("captures", types.objectArrayType);
+        capturesVar.setVisibility(JavaVisibility.PRIVATE);
+        capturesVar.addModifier(JavaVariableModifier.FINAL);
+
+        // define ctor: assigns branch and captures fields
+        {
+            final JavaConstructor ctor = cls.newConstructor();
+            final JavaFunctionType ctorType = ctor.getType();
+            final JavaFunctionArgument branchArg = new JavaFunctionArgument(
+                "branch", schema.intType);
+            ctorType.addArgument(branchArg);
+            final JavaFunctionArgument capturesArg = new JavaFunctionArgument(
+                "captures", types.objectArrayType);
+            ctorType.addArgument(capturesArg);
+            final JavaBlock ctorBody = new JavaBlock(schema);
+            ctorBody.addMember(new JavaExpressionStatement(new JavaAssign(
+                schema, new JavaMemberAccess(new JavaThisReference(cls),
+                    branchVar), new JavaVariableReference(branchArg))));
+            ctorBody.addMember(new JavaExpressionStatement(new JavaAssign(
+                schema, new JavaMemberAccess(new JavaThisReference(cls),
+                    capturesVar), new JavaVariableReference(capturesArg))));
+            ctor.setBody(ctorBody);
+        }
+
+        // implement Runnable.run(): switch on branch ID
+        final JavaFunction runMethod = cls.newMethod("run", schema.voidType);
+        runMethod.setVisibility(JavaVisibility.PUBLIC);
+        final JavaBlock runBody = new JavaBlock(schema);
+        switchStmt = new JavaSwitchStatement(new JavaVariableReference(
+            branchVar));
+        runBody.addMember(switchStmt);
+        runMethod.setBody(runBody);
+    }
+
+    public JavaRawClass getDispatcherClass()
+    {
+        return cls;
+    }
+
+    /**
+     * Returns an expression that unpacks the given element of the capture
+     * array as the given type.
+     */
+    public JavaExpression getCaptureExpr(int index, JavaType type)
+    {
+        // (Type) captures[index]
+        final JavaArrayAccess captureAccess = new JavaArrayAccess(
+            new JavaVariableReference(capturesVar));
+        captureAccess.addIndex(new JavaIntLiteral(schema, index));
+        return new JavaCastExpression(getReferenceType(type), captureAccess);
+    }
+
+    private JavaType getReferenceType(JavaType type)
+    {
+        // primitive captures are boxed in the capture array
+        if (schema.isInt(type))
+        {
+            return schema.integerWrapperType;
+        }
+        else if (schema.isLong(type))
+        {
+            return schema.longWrapperType;
+        }
+        else if (schema.isBoolean(type))
+        {
+            return types.booleanWrapperType;
+        }
+        return type;
+    }
+
+    /**
+     * Adds the given block as a new branch of the dispatcher and returns
+     * the ID of the branch.
+     */
+    public int addBranch(JavaBlock body)
+    {
+        final int branchID = nextBranchID++;
+        final JavaSwitchValueCase _case = switchStmt.newValueCase();
+        _case.addValue(new JavaIntLiteral(schema, branchID));
+        _case.addMember(body);
+        _case.addMember(new JavaBreakStatement(schema));
+        return branchID;
+    }
+
+    /**
+     * Returns an expression creating an instance of the dispatcher for the
+     * given branch with the given capture array.
+     */
+    public JavaExpression newInstance(int branchID, JavaExpression capturesExpr)
+    {
+        // new Dispatcher(branchID, capturesExpr)
+        return ExpressionBuilder.newInstance(cls, new JavaIntLiteral(schema,
+            branchID), capturesExpr);
+    }
+}
@@ -34,10 +34,19 @@ class JavaRefType
 
     final JavaType targetType;
 
+    // true if the referenced variable is already held in a holder array
+    final boolean holderVar;
+
     public JavaRefType(JavaType targetType)
+    {
+        this(targetType, false);
+    }
+
+    public JavaRefType(JavaType targetType, boolean holderVar)
     {
         super(targetType.getSchema());
         this.targetType = targetType;
+        this.holderVar = holderVar;
     }
 
     public JavaType toRealType()
@@ -18,6 +18,7 @@
 package com.newisys.schemabuilder.juno;
 
 import java.util.Iterator;
+import java.util.Map;
 
 import com.newisys.dv.ifgen.schema.IfgenSchema;
 import com.newisys.langschema.java.JavaFunction;
@@ -49,7 +50,9 @@ public final class JunoSchemaBuilder
     private final ExpressionConverter exprConv;
     private final ManualTranslationMap manXlatMap;
     private final FactoryTranslationMap factoryXlatMap;
+    private final TranslatorOptions options;
     private TranslatedObjectMap xlatObjMap;
+    private Map<String, byte[]> resources;
 
     public JunoSchemaBuilder(
         VeraSchema veraSchema,
@@ -69,6 +72,7 @@ public final class JunoSchemaBuilder
         this.exprConv = new ExpressionConverter(javaSchema, types);
         this.manXlatMap = new ManualTranslationMap();
         this.factoryXlatMap = new FactoryTranslationMap();
+        this.options = new TranslatorOptions();
     }
 
     public SchemaTypes getTypes()
@@ -81,6 +85,11 @@ public final class JunoSchemaBuilder
         return exprConv;
     }
 
+    public TranslatorOptions getOptions()
+    {
+        return options;
+    }
+
     public void addTranslatedClass(String name, JavaRawAbstractClass cls)
     {
         manXlatMap.addClass(name, cls);
@@ -112,9 +121,19 @@ public final class JunoSchemaBuilder
 
     public JoveSchema build()
     {
+        UnusedCodePruner pruner = null;
+        if (options.isPruneUnused())
+        {
+            log.println("Determining unused functions and variables");
+            log.incIndent();
+            pruner = new UnusedCodePruner(analyzer, factoryXlatMap, log);
+            pruner.analyze(veraSchema);
+            log.decIndent();
+        }
+
         SchemaMemberTranslator xlat = new SchemaMemberTranslator(javaSchema,
             ifSchema, analyzer, packageNamer, log, types, exprConv, manXlatMap,
-            factoryXlatMap);
+            factoryXlatMap, options, pruner);
         Iterator iter = veraSchema.getMembers().iterator();
         while (iter.hasNext())
         {
@@ -123,9 +142,23 @@ public final class JunoSchemaBuilder
         }
 
         xlatObjMap = xlat.xlatObjMap;
+        resources = xlat.tableResources;
+        if (pruner != null)
+        {
+            pruner.logSummary();
+        }
         return javaSchema;
     }
 
+    /**
+     * Returns the binary resources generated by the last build, such as
+     * constant tables, keyed by their path relative to the source root.
+     */
+    public Map<String, byte[]> getResources()
+    {
+        return resources;
+    }
+
     public JavaSchemaObject getTranslatedObject(VeraSchemaObject veraObject)
     {
         return xlatObjMap.getJavaObject(veraObject);
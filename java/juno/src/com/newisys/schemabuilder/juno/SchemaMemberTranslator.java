@@ -44,10 +44,12 @@ final class SchemaMemberTranslator
         SchemaTypes types,
         ExpressionConverter exprConv,
         ManualTranslationMap manXlatMap,
-        FactoryTranslationMap factoryXlatMap)
+        FactoryTranslationMap factoryXlatMap,
+        TranslatorOptions options,
+        UnusedCodePruner pruner)
     {
         super(schema, ifSchema, analyzer, packageNamer, log, types, exprConv,
-            manXlatMap, factoryXlatMap);
+            manXlatMap, factoryXlatMap, options, pruner);
     }
 
     public void visit(VeraCompilationUnit obj)
@@ -17,6 +17,9 @@
 
 package com.newisys.schemabuilder.juno;
 
+import java.util.Iterator;
+import java.util.regex.Pattern;
+
 import com.newisys.dv.ClockSignal;
 import com.newisys.dv.DV;
 import com.newisys.dv.DVApplication;
@@ -29,6 +32,7 @@ import com.newisys.dv.Signal;
 import com.newisys.dv.vlogdef.Defines;
 import com.newisys.eventsim.Event;
 import com.newisys.juno.runtime.*;
+import com.newisys.printf.VeraPrintfPlan;
 import com.newisys.langschema.java.JavaAnnotationType;
 import com.newisys.langschema.java.JavaArrayType;
 import com.newisys.langschema.java.JavaRawClass;
@@ -58,31 +62,44 @@ public final class SchemaTypes
     final JavaRawClass bitObjectAssocArrayType;
     final JavaRawClass bitOpType;
     final JavaRawClass bitRangeType;
+    final JavaRawClass bitVectorRefType;
     final JavaRawClass bitVectorOpType;
     final JavaRawClass booleanOpType;
+    final JavaRawClass booleanWrapperType;
     final JavaRawClass classType;
     final JavaArrayType classArrayType;
     final JavaRawInterface clockSignalType;
     final JavaAnnotationType constraintType;
+    final JavaRawClass constantTableType;
     final JavaRawClass definesType;
     final JavaRawClass dvAppType;
     final JavaRawClass dvSimType;
     final JavaRawClass dvType;
     final JavaRawClass edgeSetType;
     final JavaRawClass eventType;
+    final JavaRawClass flatIntArrayType;
+    final JavaRawClass flatLongArrayType;
+    final JavaRawClass functionProfileType;
     final JavaArrayType eventArrayType;
     final JavaRawInterface inOutSignalType;
     final JavaArrayType inOutSignalArrayType;
     final JavaRawInterface inputSignalType;
     final JavaRawClass intOpType;
+    final JavaRawClass intRefType;
+    final JavaRawInterface iteratorType;
     final JavaRawClass integerOpType;
     final JavaAnnotationType lengthType;
+    final JavaRawClass longAssocArrayType;
+    final JavaRawClass longObjectAssocArrayType;
     final JavaRawClass longWrapperOpType;
     final JavaRawClass mathType;
     final JavaRawClass objectType;
     final JavaArrayType objectArrayType;
     final JavaRawInterface outputSignalType;
+    final JavaRawClass patternType;
     final JavaRawClass portSignalWrapperType;
+    final JavaRawClass printfPlanType;
+    final JavaRawClass randCaseTableType;
     final JavaAnnotationType randType;
     final JavaAnnotationType randcType;
     final JavaAnnotationType randExcludeType;
@@ -119,10 +136,14 @@ public final class SchemaTypes
             .getName());
         bitRangeType = (JavaRawClass) schema
             .getTypeForSystemClass(BitRange.class.getName());
+        bitVectorRefType = (JavaRawClass) schema
+            .getTypeForSystemClass(BitVectorRef.class.getName());
         bitVectorOpType = (JavaRawClass) schema
             .getTypeForSystemClass(BitVectorOp.class.getName());
         booleanOpType = (JavaRawClass) schema
             .getTypeForSystemClass(BooleanOp.class.getName());
+        booleanWrapperType = (JavaRawClass) schema
+            .getTypeForSystemClass(Boolean.class.getName());
         classType = (JavaRawClass) schema.getTypeForSystemClass(Class.class
             .getName());
         classArrayType = schema.getArrayType(classType, 1);
@@ -130,6 +151,8 @@ public final class SchemaTypes
             .getTypeForSystemClass(ClockSignal.class.getName());
         constraintType = (JavaAnnotationType) schema
             .getTypeForSystemClass(Constraint.class.getName());
+        constantTableType = (JavaRawClass) schema
+            .getTypeForSystemClass(ConstantTable.class.getName());
         definesType = (JavaRawClass) schema.getTypeForSystemClass(Defines.class
             .getName());
         dvAppType = (JavaRawClass) schema
@@ -143,6 +166,12 @@ public final class SchemaTypes
         eventType = (JavaRawClass) schema.getTypeForSystemClass(Event.class
             .getName());
         eventArrayType = schema.getArrayType(eventType, 1);
+        flatIntArrayType = (JavaRawClass) schema
+            .getTypeForSystemClass(FlatIntArray.class.getName());
+        flatLongArrayType = (JavaRawClass) schema
+            .getTypeForSystemClass(FlatLongArray.class.getName());
+        functionProfileType = (JavaRawClass) schema
+            .getTypeForSystemClass(FunctionProfile.class.getName());
         inOutSignalType = (JavaRawInterface) schema
             .getTypeForSystemClass(InOutSignal.class.getName());
         inOutSignalArrayType = schema.getArrayType(inOutSignalType, 1);
@@ -150,10 +179,18 @@ public final class SchemaTypes
             .getTypeForSystemClass(InputSignal.class.getName());
         intOpType = (JavaRawClass) schema.getTypeForSystemClass(IntOp.class
             .getName());
+        intRefType = (JavaRawClass) schema.getTypeForSystemClass(IntRef.class
+            .getName());
+        iteratorType = (JavaRawInterface) schema
+            .getTypeForSystemClass(Iterator.class.getName());
         integerOpType = (JavaRawClass) schema
             .getTypeForSystemClass(IntegerOp.class.getName());
         lengthType = (JavaAnnotationType) schema
             .getTypeForSystemClass(Length.class.getName());
+        longAssocArrayType = (JavaRawClass) schema
+            .getTypeForSystemClass(LongAssocArray.class.getName());
+        longObjectAssocArrayType = (JavaRawClass) schema
+            .getTypeForSystemClass(LongObjectAssocArray.class.getName());
         longWrapperOpType = (JavaRawClass) schema
             .getTypeForSystemClass(LongWrapperOp.class.getName());
         mathType = (JavaRawClass) schema.getTypeForSystemClass(Math.class
@@ -162,8 +199,14 @@ public final class SchemaTypes
         objectArrayType = schema.getArrayType(objectType, 1);
         outputSignalType = (JavaRawInterface) schema
             .getTypeForSystemClass(OutputSignal.class.getName());
+        patternType = (JavaRawClass) schema.getTypeForSystemClass(Pattern.class
+            .getName());
         portSignalWrapperType = (JavaRawClass) schema
             .getTypeForSystemClass(PortSignalWrapper.class.getName());
+        printfPlanType = (JavaRawClass) schema
+            .getTypeForSystemClass(VeraPrintfPlan.class.getName());
+        randCaseTableType = (JavaRawClass) schema
+            .getTypeForSystemClass(RandCaseTable.class.getName());
         randType = (JavaAnnotationType) schema.getTypeForSystemClass(Rand.class
             .getName());
         randcType = (JavaAnnotationType) schema
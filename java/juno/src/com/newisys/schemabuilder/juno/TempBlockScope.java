@@ -22,12 +22,16 @@ import java.util.Iterator;
 import com.newisys.langschema.NameKind;
 import com.newisys.langschema.NamedObject;
 import com.newisys.langschema.Scope;
+import com.newisys.langschema.java.JavaBlock;
+import com.newisys.langschema.java.JavaBlockMember;
 import com.newisys.langschema.util.NameTable;
 
 /**
  * Scope implementation that maintains a name table and also delegates lookups
  * to a base scope (if any). Used to maintain temporary block scopes during
  * translation, so that temporary variables can be assigned unique names.
+ * The outermost scope of a method body can also declare variables hoisted
+ * out of nested blocks, such as reference holders reused across calls.
  * 
  * @author Trevor Robinson
  */
@@ -37,6 +41,13 @@ class TempBlockScope
     private final Scope baseScope;
     private final NameTable nameTable = new NameTable();
 
+    // block receiving hoisted variables, and a scope containing the names
+    // declared in nested blocks, which hoisted variables must not reuse;
+    // only set for the outermost scope of a method body
+    private JavaBlock hoistBlock;
+    private TempBlockScope nestedScope;
+    private int hoistCount;
+
     public TempBlockScope()
     {
         this.baseScope = null;
@@ -50,11 +61,89 @@ class TempBlockScope
     public void addObject(NamedObject obj)
     {
         nameTable.addObject(obj);
+        Scope cur = baseScope;
+        while (cur instanceof TempBlockScope)
+        {
+            final TempBlockScope outer = (TempBlockScope) cur;
+            if (outer.nestedScope != null)
+            {
+                outer.nestedScope.nameTable.addObject(obj);
+            }
+            cur = outer.baseScope;
+        }
     }
 
     public void removeObject(NamedObject obj)
     {
         nameTable.removeObject(obj);
+        Scope cur = baseScope;
+        while (cur instanceof TempBlockScope)
+        {
+            final TempBlockScope outer = (TempBlockScope) cur;
+            if (outer.nestedScope != null)
+            {
+                outer.nestedScope.nameTable.removeObject(obj);
+            }
+            cur = outer.baseScope;
+        }
+    }
+
+    /**
+     * Marks this scope as the outermost scope of the given method body, so
+     * that variables can be hoisted into it.
+     *
+     * @param block the method body
+     */
+    public void setHoistBlock(JavaBlock block)
+    {
+        hoistBlock = block;
+        nestedScope = new TempBlockScope(this);
+    }
+
+    /**
+     * Returns the nearest enclosing scope (possibly this scope) that accepts
+     * hoisted variables.
+     *
+     * @return the hoisting scope, or null if there is none
+     */
+    public TempBlockScope getHoistScope()
+    {
+        Scope cur = this;
+        while (cur instanceof TempBlockScope)
+        {
+            final TempBlockScope scope = (TempBlockScope) cur;
+            if (scope.hoistBlock != null) return scope;
+            cur = scope.baseScope;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a scope that can be used to choose a name for a hoisted
+     * variable that does not collide with any variable of the method body.
+     *
+     * @return the scope of all names declared in the method body
+     */
+    public Scope getHoistNameScope()
+    {
+        assert (nestedScope != null);
+        return nestedScope;
+    }
+
+    /**
+     * Declares the given hoisted variable at the start of the method body,
+     * following any previously hoisted variables.
+     *
+     * @param member the variable declaration
+     */
+    public void addHoistedMember(JavaBlockMember member)
+    {
+        assert (hoistBlock != null);
+        hoistBlock.addMemberAt(member, hoistCount++);
+        if (member instanceof NamedObject)
+        {
+            addObject((NamedObject) member);
+        }
     }
 
     public Iterator< ? extends NamedObject> lookupObjects(
@@ -18,15 +18,18 @@
 package com.newisys.schemabuilder.juno;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import com.newisys.dv.ifgen.IfgenJavaTranslator;
 import com.newisys.dv.ifgen.IfgenTranslatorException;
@@ -54,6 +57,7 @@ import com.newisys.util.MathUtils;
 import com.newisys.util.logging.IndentLogger;
 import com.newisys.verilog.EdgeSet;
 import com.newisys.verilog.util.Bit;
+import com.newisys.verilog.util.BitVector;
 
 /**
  * Base class for the various modules of the translator. Used to share common
@@ -63,6 +67,10 @@ import com.newisys.verilog.util.Bit;
  */
 class TranslatorModule
 {
+    // constant array initializers with at least this many elements are
+    // loaded from a binary resource when resource tables are enabled
+    private static final int MIN_RESOURCE_TABLE_SIZE = 256;
+
     protected final JoveSchema schema;
     protected final IfgenSchema ifSchema;
     protected final VeraSchemaAnalyzer analyzer;
@@ -76,8 +84,14 @@ class TranslatorModule
     protected final TranslatedObjectMap xlatObjMap;
     protected final IfgenJavaTranslator ifgenXlat;
     protected final VerilogImporter vlogImporter;
+    protected final TranslatorOptions options;
+    protected final UnusedCodePruner pruner;
 
     private final Map<Container, JavaRawClass> globalClasses;
+    private final Map<JavaRawAbstractClass, ForkDispatcher> forkDispatchers;
+    private final Map<JavaRawAbstractClass, ForkDispatcher> staticForkDispatchers;
+    private final Map<JavaRawClass, Map<String, JavaMemberVariable>> sharedConstants;
+    final Map<String, byte[]> tableResources;
 
     public TranslatorModule(
         JoveSchema schema,
@@ -88,7 +102,9 @@ class TranslatorModule
         SchemaTypes types,
         ExpressionConverter exprConv,
         ManualTranslationMap manXlatMap,
-        FactoryTranslationMap factoryXlatMap)
+        FactoryTranslationMap factoryXlatMap,
+        TranslatorOptions options,
+        UnusedCodePruner pruner)
     {
         this.schema = schema;
         this.ifSchema = ifSchema;
@@ -103,8 +119,14 @@ class TranslatorModule
         this.xlatObjMap = new TranslatedObjectMap();
         this.ifgenXlat = new IfgenJavaTranslator(schema);
         this.vlogImporter = new VerilogImporter(schema, packageNamer, types);
+        this.options = options;
+        this.pruner = pruner;
 
         this.globalClasses = new HashMap<Container, JavaRawClass>();
+        this.forkDispatchers = new HashMap<JavaRawAbstractClass, ForkDispatcher>();
+        this.staticForkDispatchers = new HashMap<JavaRawAbstractClass, ForkDispatcher>();
+        this.sharedConstants = new HashMap<JavaRawClass, Map<String, JavaMemberVariable>>();
+        this.tableResources = new LinkedHashMap<String, byte[]>();
     }
 
     public TranslatorModule(TranslatorModule other)
@@ -122,8 +144,14 @@ class TranslatorModule
         this.xlatObjMap = other.xlatObjMap;
         this.ifgenXlat = other.ifgenXlat;
         this.vlogImporter = other.vlogImporter;
+        this.options = other.options;
+        this.pruner = other.pruner;
 
         this.globalClasses = other.globalClasses;
+        this.forkDispatchers = other.forkDispatchers;
+        this.staticForkDispatchers = other.staticForkDispatchers;
+        this.sharedConstants = other.sharedConstants;
+        this.tableResources = other.tableResources;
     }
 
     protected void logEnter(String msg)
@@ -261,6 +289,21 @@ class TranslatorModule
             {
                 cls.addModifier(JavaTypeModifier.ABSTRACT);
             }
+            else
+            {
+                // mark leaf classes as final to allow devirtualization
+                // (classes instantiated through a factory may be extended
+                // by the factory implementation, so they are left alone)
+                final ClassAnalysis clsAnalysis = analyzer
+                    .getClassAnalysis(obj);
+                if (clsAnalysis != null && !clsAnalysis.isSubclassed()
+                    && factoryXlatMap.getFactory(obj.getName()
+                        .getCanonicalName()) == null)
+                {
+                    log("Note: Marking leaf class '" + id + "' as final");
+                    cls.addModifier(JavaTypeModifier.FINAL);
+                }
+            }
 
             // set the base class
             final VeraClass veraBase = obj.getBaseClass();
@@ -896,11 +939,40 @@ class TranslatorModule
             cls.addMember(func);
             xlatObjMap.addJavaObject(obj, func);
 
+            // methods of classes extended by a testbench factory may be
+            // overridden by the factory implementation
+            final boolean factoryExtended = isFactoryExtended((VeraClass) obj
+                .getStructuredType());
+
             // translate non-virtual functions as final
             if (!obj.isVirtual())
             {
                 func.addModifier(JavaFunctionModifier.FINAL);
             }
+            else if (!obj.isPureVirtual() && !factoryExtended
+                && funcAnalysis != null
+                && funcAnalysis.getDirectOverrides().isEmpty())
+            {
+                // virtual functions that are never overridden can also be
+                // final, which allows calls to be bound monomorphically
+                log("Note: Marking non-overridden virtual function '" + id
+                    + "' as final");
+                func.addModifier(JavaFunctionModifier.FINAL);
+            }
+
+            // functions that never reference the instance and are not
+            // involved in any overriding can be translated as static methods
+            if (!obj.isPureVirtual() && !factoryExtended
+                && obj.getBody() != null && funcAnalysis != null
+                && !funcAnalysis.isReferencesInstance()
+                && funcAnalysis.getOverridden() == null
+                && funcAnalysis.getDirectOverrides().isEmpty()
+                && !funcAnalysis.isNonVirtualOverride() && methods.isEmpty())
+            {
+                log("Note: Member function '" + id
+                    + "' does not reference instance; marking as static");
+                func.addModifier(JavaFunctionModifier.STATIC);
+            }
 
             // translate function body
             if (obj.isPureVirtual())
@@ -930,6 +1002,29 @@ class TranslatorModule
         }
     }
 
+    /**
+     * Returns whether the given class or any of its subclasses is created
+     * through a testbench factory, whose implementation may extend it.
+     */
+    private boolean isFactoryExtended(VeraClass cls)
+    {
+        if (!(cls instanceof VeraUserClass)) return false;
+        if (factoryXlatMap.getFactory(cls.getName().getCanonicalName()) != null)
+        {
+            return true;
+        }
+        final ClassAnalysis clsAnalysis = analyzer
+            .getClassAnalysis((VeraUserClass) cls);
+        if (clsAnalysis != null)
+        {
+            for (final VeraUserClass subcls : clsAnalysis.getDirectSubclasses())
+            {
+                if (isFactoryExtended(subcls)) return true;
+            }
+        }
+        return false;
+    }
+
     protected static JavaType[] getArgTypes(JavaFunctionType funcType)
     {
         final List<JavaFunctionArgument> args = funcType.getArguments();
@@ -1114,10 +1209,128 @@ class TranslatorModule
     {
         // true for types that have value/copy semantics in Vera,
         // but have mutable reference semantics in Java
-        return type instanceof JoveFixedArrayType
+        return type instanceof JoveFixedArrayType || isFlatArrayType(type)
             || exprConv.isAssocArray(type) || type == types.junoStringType;
     }
 
+    protected boolean isFlatArrayType(JavaType type)
+    {
+        return type == types.flatIntArrayType
+            || type == types.flatLongArrayType;
+    }
+
+    protected JavaRawClass getFlatArrayType(VeraVariable veraVar)
+    {
+        // only uninitialized, non-random, multi-dimensional fields, globals
+        // and locals are candidates for flat storage; a one-dimensional array
+        // gains no locality from flattening, and its elements would be boxed
+        // on every read that cannot use a primitive
+        final VeraType veraType = veraVar.getType();
+        if (!(veraType instanceof VeraFixedArrayType)
+            || ((VeraFixedArrayType) veraType).getDimensions().length < 2
+            || !(veraVar instanceof VeraMemberVariable
+                || veraVar instanceof VeraGlobalVariable
+                || veraVar instanceof VeraLocalVariable)
+            || veraVar.hasModifier(VeraVariableModifier.RAND)
+            || veraVar.hasModifier(VeraVariableModifier.RANDC)
+            || veraVar.getInitializer() != null)
+        {
+            return null;
+        }
+
+        // the analysis must show that the array is only used an element at a
+        // time, and is not aliased or waited on
+        final VariableAnalysis varAnalysis = analyzer
+            .getVariableAnalysis(veraVar);
+        if (varAnalysis == null || varAnalysis.isArrayNonElementAccess()
+            || varAnalysis.isPassedByRef() || varAnalysis.isWaitVar()
+            || varAnalysis.isWaitVarAlias())
+        {
+            return null;
+        }
+
+        // integer X values are whole-element nulls, which the X bitset of a
+        // flat array represents exactly; bit vector elements must be 2-state
+        // and fit in a long
+        final VeraType elemType = ((VeraFixedArrayType) veraType)
+            .getElementType();
+        if (elemType instanceof VeraIntegerType)
+        {
+            return types.flatIntArrayType;
+        }
+        else if (elemType instanceof VeraFixedBitVectorType
+            && varAnalysis.isNotAssignedXZ())
+        {
+            final int size = ((VeraFixedBitVectorType) elemType).getSize();
+            if (size <= 32) return types.flatIntArrayType;
+            if (size <= 64) return types.flatLongArrayType;
+        }
+        return null;
+    }
+
+    protected boolean isFlatArrayAccess(VeraArrayAccess veraAccess)
+    {
+        final VeraExpression veraArrayExpr = veraAccess.getArray();
+        VeraVariable veraVar = null;
+        if (veraArrayExpr instanceof VeraVariableReference)
+        {
+            veraVar = ((VeraVariableReference) veraArrayExpr).getVariable();
+        }
+        else if (veraArrayExpr instanceof VeraMemberAccess)
+        {
+            final StructuredTypeMember member = ((VeraMemberAccess) veraArrayExpr)
+                .getMember();
+            if (member instanceof VeraVariable)
+            {
+                veraVar = (VeraVariable) member;
+            }
+        }
+        return veraVar != null && getFlatArrayType(veraVar) != null;
+    }
+
+    private JavaType translateVarType(
+        VeraVariable veraVar,
+        VariableAnalysis varAnalysis)
+    {
+        final JavaType flatType = getFlatArrayType(veraVar);
+        if (flatType != null)
+        {
+            log("Note: Using flat primitive storage for fixed array '"
+                + veraVar.getName() + "'");
+            return flatType;
+        }
+        return translateType(veraVar.getType(), varAnalysis == null
+            || !varAnalysis.isNotAssignedXZ(), varAnalysis == null
+            || varAnalysis.isNeedStatefulString());
+    }
+
+    private JavaExpression getInitValue(
+        VeraVariable veraVar,
+        JavaType type,
+        boolean required,
+        boolean needFactory)
+    {
+        if (isFlatArrayType(type))
+        {
+            // new FlatIntArray(width, dim1, dim2, ...)
+            final VeraFixedArrayType veraType = (VeraFixedArrayType) veraVar
+                .getType();
+            final VeraType elemType = veraType.getElementType();
+            final int width = (elemType instanceof VeraFixedBitVectorType)
+                ? ((VeraFixedBitVectorType) elemType).getSize() : 32;
+            final int[] dimensions = veraType.getDimensions();
+            final JavaExpression[] args = new JavaExpression[1 + dimensions.length];
+            args[0] = new JavaIntLiteral(schema, width);
+            for (int i = 0; i < dimensions.length; ++i)
+            {
+                args[i + 1] = new JavaIntLiteral(schema, dimensions[i]);
+            }
+            return ExpressionBuilder.newInstance((JavaRawClass) type, args,
+                null);
+        }
+        return getInitValue(type, required, needFactory);
+    }
+
     protected boolean needHolderVar(
         JavaType javaType,
         VeraVariable veraVar,
@@ -1156,6 +1369,13 @@ class TranslatorModule
         JavaBlock block = new JavaBlock(schema);
         final TempBlockScope tempScope = new TempBlockScope(funcType);
 
+        // hoist reusable temporaries to the start of the method body; the
+        // explicit constructor call must remain first in constructors
+        if (!(member instanceof JavaConstructor))
+        {
+            tempScope.setHoistBlock(block);
+        }
+
         // get the analysis for this block
         final BlockAnalysis analysis = analyzer.getBlockAnalysis(veraBlock);
 
@@ -1274,6 +1494,9 @@ class TranslatorModule
         // create thread context if necessary
         block = checkThreadContext(block, analysis);
 
+        // record calls in profile if enabled
+        block = checkProfile(block, veraFunc, cls);
+
         return block;
     }
 
@@ -1330,6 +1553,320 @@ class TranslatorModule
         return block;
     }
 
+    protected JavaBlock checkProfile(
+        JavaBlock block,
+        VeraFunction veraFunc,
+        JavaRawAbstractClass cls)
+    {
+        // constructors are not profiled, since a superclass constructor call
+        // must be the first statement
+        if (!options.isProfile() || veraFunc == null) return block;
+        if (veraFunc instanceof VeraMemberFunction
+            && ((VeraMemberFunction) veraFunc).isConstructor())
+        {
+            return block;
+        }
+
+        final String name = veraFunc.getName().getCanonicalName();
+        final JavaMemberVariable profileVar = getSharedConstant(cls,
+            "JUNO_PROFILE", types.functionProfileType, name, ExpressionBuilder
+                .staticCall(types.functionProfileType, "register",
+                    new JavaStringLiteral(schema, name)));
+        if (profileVar == null) return block;
+
+        // block ->
+        // JUNO_PROFILE.enter();
+        // try { <block> }
+        // finally { JUNO_PROFILE.exit(); }
+        JavaBlock profileBlock = new JavaBlock(schema);
+
+        profileBlock.addMember(new JavaExpressionStatement(ExpressionBuilder
+            .memberCall(new JavaVariableReference(profileVar), "enter")));
+
+        JavaTryStatement tryStmt = new JavaTryStatement(block);
+        profileBlock.addMember(tryStmt);
+
+        JavaBlock finallyBlock = new JavaBlock(schema);
+        finallyBlock.addMember(new JavaExpressionStatement(ExpressionBuilder
+            .memberCall(new JavaVariableReference(profileVar), "exit")));
+        tryStmt.setFinallyBlock(finallyBlock);
+
+        return profileBlock;
+    }
+
+    protected ForkDispatcher getForkDispatcher(
+        JavaRawAbstractClass containingClass,
+        JavaClassMember assocMember)
+    {
+        // forks in static methods require a static nested dispatcher class;
+        // forks nested within a dispatcher branch reuse that dispatcher
+        final boolean isStatic = assocMember instanceof JavaFunction
+            && ((JavaFunction) assocMember).getModifiers().contains(
+                JavaFunctionModifier.STATIC);
+        final Map<JavaRawAbstractClass, ForkDispatcher> dispatcherMap = isStatic
+            ? staticForkDispatchers : forkDispatchers;
+        ForkDispatcher dispatcher = dispatcherMap.get(containingClass);
+        if (dispatcher == null)
+        {
+            final String id = isStatic ? "JunoStaticForks" : "JunoForks";
+            dispatcher = new ForkDispatcher(schema, types,
+                (JavaRawClass) containingClass, id, isStatic);
+            dispatcherMap.put(containingClass, dispatcher);
+            dispatcherMap.put(dispatcher.getDispatcherClass(), dispatcher);
+        }
+        return dispatcher;
+    }
+
+    protected JavaMemberVariable getPatternConstant(
+        JavaStructuredType containingType,
+        String regex)
+    {
+        // invalid patterns are left to report their status at runtime
+        try
+        {
+            Pattern.compile(regex);
+        }
+        catch (PatternSyntaxException e)
+        {
+            log("Warning: Invalid regular expression \"" + regex + "\" in "
+                + containingType.getName());
+            return null;
+        }
+
+        // private static final Pattern JUNO_PATTERN = Pattern.compile(...);
+        return getSharedConstant(containingType, "JUNO_PATTERN",
+            types.patternType, regex, ExpressionBuilder.staticCall(
+                types.patternType, "compile", new JavaStringLiteral(schema,
+                    regex)));
+    }
+
+    protected JavaMemberVariable getFormatPlanConstant(
+        JavaStructuredType containingType,
+        String format)
+    {
+        // private static final VeraPrintfPlan JUNO_FORMAT =
+        //     new VeraPrintfPlan(...);
+        return getSharedConstant(containingType, "JUNO_FORMAT",
+            types.printfPlanType, format, ExpressionBuilder.newInstance(
+                types.printfPlanType, new JavaStringLiteral(schema, format)));
+    }
+
+    protected JavaMemberVariable getRandCaseTableConstant(
+        JavaStructuredType containingType,
+        int[] weights)
+    {
+        final JavaArrayType intArrayType = schema.getArrayType(schema.intType,
+            1);
+        final JavaArrayInitializer weightsInit = new JavaArrayInitializer(
+            intArrayType);
+        final StringBuffer key = new StringBuffer();
+        for (int i = 0; i < weights.length; ++i)
+        {
+            weightsInit.addElement(new JavaIntLiteral(schema, weights[i]));
+            if (i > 0) key.append(',');
+            key.append(weights[i]);
+        }
+        final JavaArrayCreation weightsExpr = new JavaArrayCreation(
+            intArrayType);
+        weightsExpr.setInitializer(weightsInit);
+
+        // private static final RandCaseTable JUNO_RANDCASE =
+        //     new RandCaseTable(new int[] { ... });
+        return getSharedConstant(containingType, "JUNO_RANDCASE",
+            types.randCaseTableType, key.toString(), ExpressionBuilder
+                .newInstance(types.randCaseTableType, weightsExpr));
+    }
+
+    private JavaMemberVariable getSharedConstant(
+        JavaStructuredType containingType,
+        String id,
+        JavaRawClass type,
+        String value,
+        JavaExpression initExpr)
+    {
+        final JavaRawClass cls = getTopLevelClass(containingType);
+        if (cls == null) return null;
+
+        // share a single constant for identical values within a class
+        Map<String, JavaMemberVariable> classConstants = sharedConstants
+            .get(cls);
+        if (classConstants == null)
+        {
+            classConstants = new HashMap<String, JavaMemberVariable>();
+            sharedConstants.put(cls, classConstants);
+        }
+        final String key = id + ":" + value;
+        JavaMemberVariable var = classConstants.get(key);
+        if (var == null)
+        {
+            var = VarBuilder.createMemberVar(cls, id, type);
+            var.setVisibility(JavaVisibility.PRIVATE);
+            var.addModifier(JavaVariableModifier.STATIC);
+            var.addModifier(JavaVariableModifier.FINAL);
+            var.setInitializer(initExpr);
+            // declare before any other members, so that the constant is
+            // initialized before any static initializer that may use it
+            final List members = cls.getMembers();
+            if (members.isEmpty())
+            {
+                cls.addMember(var);
+            }
+            else
+            {
+                cls.addMemberBefore(var,
+                    (JavaStructuredTypeMember) members.get(0));
+            }
+            classConstants.put(key, var);
+        }
+        return var;
+    }
+
+    private JavaRawClass getTopLevelClass(JavaStructuredType containingType)
+    {
+        // static members must be declared in the top-level class, since
+        // anonymous and inner classes cannot contain them
+        JavaStructuredType outerType = containingType;
+        while (outerType.getStructuredType() != null)
+        {
+            outerType = outerType.getStructuredType();
+        }
+        return (outerType instanceof JavaRawClass) ? (JavaRawClass) outerType
+            : null;
+    }
+
+    protected JavaExpression getResourceTableExpr(
+        JavaStructuredType containingType,
+        VeraArrayInitializer veraInit,
+        JavaArrayType arrayType)
+    {
+        // only large initializers of integer or 2-state bit vector constants
+        // (up to 64 bits wide) are candidates
+        final List<VeraExpression> elements = veraInit.getElements();
+        if (!options.isResourceTables()
+            || elements.size() < MIN_RESOURCE_TABLE_SIZE)
+        {
+            return null;
+        }
+        final JavaType elemType = arrayType.getAccessType(1);
+        final VeraType veraElemType = ((VeraArrayType) veraInit
+            .getResultType()).getElementType();
+        final String loaderName;
+        final int width;
+        final boolean isBitVector;
+        if (elemType == schema.intType)
+        {
+            loaderName = "loadIntArray";
+            width = 32;
+            isBitVector = false;
+        }
+        else if (elemType == schema.integerWrapperType)
+        {
+            loaderName = "loadIntegerArray";
+            width = 32;
+            isBitVector = false;
+        }
+        else if (schema.isBitVector(elemType)
+            && veraElemType instanceof VeraFixedBitVectorType)
+        {
+            loaderName = "loadBitVectorArray";
+            width = ((VeraFixedBitVectorType) veraElemType).getSize();
+            isBitVector = true;
+            if (width > 64) return null;
+        }
+        else
+        {
+            return null;
+        }
+        final long[] values = new long[elements.size()];
+        int index = 0;
+        for (final VeraExpression elemExpr : elements)
+        {
+            if (!elemExpr.isConstant()) return null;
+            final Object value = elemExpr.evaluateConstant();
+            if (value instanceof Integer)
+            {
+                // integer constants wider than 32 bits are sign-extended
+                final int intValue = ((Integer) value).intValue();
+                if (isBitVector && width > 32 && intValue < 0) return null;
+                values[index++] = intValue;
+            }
+            else if (value instanceof BitVector
+                && !((BitVector) value).containsXZ())
+            {
+                values[index++] = ((BitVector) value).longValue();
+            }
+            else
+            {
+                return null;
+            }
+        }
+        final JavaRawClass cls = getTopLevelClass(containingType);
+        if (cls == null) return null;
+
+        // encode the table as described by ConstantTable:
+        // count, width, then 32-bit or 64-bit elements (big-endian)
+        final boolean isLong = width > 32;
+        final ByteBuffer buf = ByteBuffer.allocate(8 + values.length
+            * (isLong ? 8 : 4));
+        buf.putInt(values.length);
+        buf.putInt(width);
+        final long mask = (width < 64) ? (1L << width) - 1 : -1L;
+        for (int i = 0; i < values.length; ++i)
+        {
+            final long value = values[i] & mask;
+            if (isLong)
+            {
+                buf.putLong(value);
+            }
+            else
+            {
+                buf.putInt((int) value);
+            }
+        }
+
+        // choose a resource name unique within the package
+        final JavaPackage pkg = cls.getPackage();
+        final String pkgPath = (pkg != null) ? pkg.getName()
+            .getCanonicalName().replace('.', '/') + "/" : "";
+        final String clsID = cls.getName().getIdentifier();
+        int tableID = 0;
+        String resName;
+        do
+        {
+            resName = clsID + "_table" + tableID++ + ".bin";
+        }
+        while (tableResources.containsKey(pkgPath + resName));
+        tableResources.put(pkgPath + resName, buf.array());
+
+        // private static final class JunoTableN
+        // {
+        //     static final int[] TABLE = ConstantTable.loadIntArray(
+        //         JunoTableN.class, "Foo_tableN.bin");
+        // }
+        final JavaRawClass holderCls = new JavaRawClass(schema, "JunoTable"
+            + (tableID - 1), pkg, cls);
+        holderCls.setVisibility(JavaVisibility.PRIVATE);
+        holderCls.addModifier(JavaTypeModifier.STATIC);
+        holderCls.addModifier(JavaTypeModifier.FINAL);
+        holderCls.setBaseClass(types.objectType);
+        cls.addMember(holderCls);
+        final JavaMemberVariable tableVar = VarBuilder.createMemberVar(
+            holderCls, "TABLE", arrayType);
+        tableVar.addModifier(JavaVariableModifier.STATIC);
+        tableVar.addModifier(JavaVariableModifier.FINAL);
+        tableVar.setInitializer(ExpressionBuilder.staticCall(
+            types.constantTableType, loaderName, new JavaExpression[] {
+                new JavaTypeLiteral(holderCls),
+                new JavaStringLiteral(schema, resName) }, null));
+        holderCls.addMember(tableVar);
+        log("Note: Loading " + values.length + "-element constant table in "
+            + clsID + " from resource " + resName);
+
+        // the table is shared, so each initialization gets its own copy:
+        // (int[]) JunoTableN.TABLE.clone()
+        return getCloneExpr(new JavaVariableReference(tableVar));
+    }
+
     // cls and assocMember are only required for static variables
     protected JavaVariable translateLocalVariable(
         VeraLocalVariable obj,
@@ -1345,6 +1882,12 @@ class TranslatorModule
 
         // get the analysis for this variable
         final VariableAnalysis varAnalysis = analyzer.getVariableAnalysis(obj);
+        if (!isReturnVar && pruner != null && pruner.isPrunedVariable(obj))
+        {
+            log("Note: Pruning write-only local '" + id + "' in "
+                + describeClassMember(assocMember));
+            return null;
+        }
         if (!isReturnVar && varAnalysis != null && !varAnalysis.isReadAccess())
         {
             // suppress translation of unreferenced variables
@@ -1372,10 +1915,7 @@ class TranslatorModule
         // create variable
         JavaVariable var;
         id = fixID(id);
-        VeraType veraType = obj.getType();
-        JavaType type = translateType(veraType, varAnalysis == null
-            || !varAnalysis.isNotAssignedXZ(), varAnalysis == null
-            || varAnalysis.isNeedStatefulString());
+        JavaType type = translateVarType(obj, varAnalysis);
         VeraExpression veraInitExpr = obj.getInitializer();
         if (obj.hasModifier(VeraVariableModifier.STATIC))
         {
@@ -1404,7 +1944,7 @@ class TranslatorModule
             }
             else
             {
-                initExpr = getInitValue(type, false, false);
+                initExpr = getInitValue(obj, type, false, false);
             }
             var.setInitializer(initExpr);
 
@@ -1440,7 +1980,8 @@ class TranslatorModule
                 }
                 else
                 {
-                    arrayInit.addElement(getInitValue(type, true, false));
+                    arrayInit.addElement(getInitValue(obj, type, true,
+                        false));
                     localVar.setInitializer(arrayInit);
                     block.addMember(localVar);
                 }
@@ -1508,8 +2049,8 @@ class TranslatorModule
                 {
                     if (needInit)
                     {
-                        localVar
-                            .setInitializer(getInitValue(type, true, false));
+                        localVar.setInitializer(getInitValue(obj, type,
+                            true, false));
                     }
                     block.addMember(localVar);
                 }
@@ -1621,9 +2162,7 @@ class TranslatorModule
         final VariableAnalysis varAnalysis = analyzer.getVariableAnalysis(obj);
 
         // translate variable type
-        final JavaType type = translateType(obj.getType(), varAnalysis == null
-            || !varAnalysis.isNotAssignedXZ(), varAnalysis == null
-            || varAnalysis.isNeedStatefulString());
+        final JavaType type = translateVarType(obj, varAnalysis);
 
         // get containing class for variable
         final JavaRawClass cls = getClassForGlobal(obj, pkg);
@@ -1645,7 +2184,7 @@ class TranslatorModule
         xlatObjMap.addJavaObject(obj, var);
 
         // set initializer expression if necessary
-        var.setInitializer(getInitValue(type, false, false));
+        var.setInitializer(getInitValue(obj, type, false, false));
 
         // create wait_var event if necessary
         checkWaitVarMember(obj, var, varAnalysis, cls, null);
@@ -1756,10 +2295,7 @@ class TranslatorModule
 
             // create the Java variable
             id = fixID(id);
-            final VeraType veraType = obj.getType();
-            final JavaType type = translateType(veraType, varAnalysis == null
-                || !varAnalysis.isNotAssignedXZ(), varAnalysis == null
-                || varAnalysis.isNeedStatefulString());
+            final JavaType type = translateVarType(obj, varAnalysis);
             var = new JavaMemberVariable(id, type);
             var.addAnnotations(obj.getAnnotations());
             var.setVisibility(vis);
@@ -1837,7 +2373,8 @@ class TranslatorModule
             }
             else if (needInit)
             {
-                JavaExpression initExpr = getInitValue(type, false, false);
+                JavaExpression initExpr = getInitValue(obj, type, false,
+                    false);
                 var.setInitializer(initExpr);
             }
 
@@ -3213,27 +3750,21 @@ class TranslatorModule
                 .staticCall(types.junoType, "equals", newValue, oldValue));
         }
 
-        JavaExpression triggerCall = getTriggerCall(updateEvent);
+        JavaExpression notifyCall = getNotifyChangeCall(updateEvent);
         JavaBlock triggerBlock = new JavaBlock(schema);
-        triggerBlock.addMember(new JavaExpressionStatement(triggerCall));
+        triggerBlock.addMember(new JavaExpressionStatement(notifyCall));
 
         JavaIfStatement checkStmt = new JavaIfStatement(changedExpr,
             triggerBlock);
         result.addUpdateMember(checkStmt);
     }
 
-    private JavaExpression getTriggerCall(JavaExpression eventExpr)
+    private JavaExpression getNotifyChangeCall(JavaExpression eventExpr)
     {
-        JavaArrayType veraEventArrayType = schema.getArrayType(
-            types.junoEventType, 1);
-        JavaArrayInitializer eventsInitExpr = new JavaArrayInitializer(
-            veraEventArrayType);
-        eventsInitExpr.addElement(eventExpr);
-        JavaArrayCreation eventsExpr = new JavaArrayCreation(veraEventArrayType);
-        eventsExpr.setInitializer(eventsInitExpr);
-        JavaExpression triggerCall = ExpressionBuilder.staticCall(
-            types.junoType, "trigger", eventsExpr);
-        return triggerCall;
+        // Juno.notifyChange(event) coalesces repeated changes within a time
+        // step into a single notification
+        return ExpressionBuilder.staticCall(types.junoType, "notifyChange",
+            eventExpr);
     }
 
     protected JavaClassMember translateExpressionDefine(
@@ -0,0 +1,86 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.schemabuilder.juno;
+
+/**
+ * Options controlling optional translation strategies of the Juno translator.
+ * 
+ * @author Trevor Robinson
+ */
+public final class TranslatorOptions
+{
+    private boolean forkDispatch;
+    private boolean pruneUnused;
+    private boolean resourceTables;
+    private boolean profile;
+
+    public boolean isForkDispatch()
+    {
+        return forkDispatch;
+    }
+
+    public void setForkDispatch(boolean forkDispatch)
+    {
+        this.forkDispatch = forkDispatch;
+    }
+
+    /**
+     * Returns whether functions that are unreachable from the testbench entry
+     * points and variables that are never read are omitted from the
+     * translation. This is only safe if no other Java code refers to them.
+     */
+    public boolean isPruneUnused()
+    {
+        return pruneUnused;
+    }
+
+    public void setPruneUnused(boolean pruneUnused)
+    {
+        this.pruneUnused = pruneUnused;
+    }
+
+    /**
+     * Returns whether large constant array initializers are written as binary
+     * resources that are loaded when first used, rather than as array
+     * initializer bytecode. The resources must be packaged with the compiled
+     * classes.
+     */
+    public boolean isResourceTables()
+    {
+        return resourceTables;
+    }
+
+    public void setResourceTables(boolean resourceTables)
+    {
+        this.resourceTables = resourceTables;
+    }
+
+    /**
+     * Returns whether translated functions and tasks record their calls in
+     * a FunctionProfile, for reporting by vera_report_profile.
+     */
+    public boolean isProfile()
+    {
+        return profile;
+    }
+
+    public void setProfile(boolean profile)
+    {
+        this.profile = profile;
+    }
+}
@@ -97,7 +97,15 @@ final class TypeTranslator
         else
         {
             assert (indexTypes[0] instanceof VeraBitVectorType);
-            baseClass = module.types.bitObjectAssocArrayType;
+            if (((VeraBitVectorType) indexTypes[0]).getSize() <= 64)
+            {
+                // indices fit in a long; use primitive-keyed array
+                baseClass = module.types.longObjectAssocArrayType;
+            }
+            else
+            {
+                baseClass = module.types.bitObjectAssocArrayType;
+            }
         }
         return new JoveAssocArrayType(baseClass, elemType);
     }
@@ -0,0 +1,294 @@
+/*
+ * Juno - OpenVera (TM) to Jove Translator
+ * Copyright (C) 2005 Newisys, Inc. or its licensors, as applicable.
+ * VERA and OpenVera are trademarks or registered trademarks of Synopsys, Inc.
+ *
+ * Licensed under the Open Software License version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You should
+ * have received a copy of the License along with this software; if not, you
+ * may obtain a copy of the License at
+ *
+ * http://opensource.org/licenses/osl-2.0.php
+ *
+ * This software is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.newisys.schemabuilder.juno;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import com.newisys.langschema.vera.*;
+import com.newisys.schemaanalyzer.juno.BlockAnalysis;
+import com.newisys.schemaanalyzer.juno.FunctionAnalysis;
+import com.newisys.schemaanalyzer.juno.VariableAnalysis;
+import com.newisys.schemaanalyzer.juno.VeraSchemaAnalyzer;
+import com.newisys.util.logging.IndentLogger;
+
+/**
+ * Whole-program pass that determines which functions and variables can be
+ * omitted from the translation. A function is kept if it is reachable from
+ * a program block, a testbench factory class, an exported shell task, a
+ * constructor, or an initializer or constraint, either by a direct call or
+ * through virtual dispatch. A local variable or field is pruned if it is
+ * never read and is only written by plain assignment statements; those
+ * statements are reduced to their right-hand side if it has side effects.
+ * <P>
+ * Pruning is only safe if the generated classes are not accessed by other
+ * Java code, so it is enabled by {@link TranslatorOptions#isPruneUnused}.
+ * 
+ * @author Trevor Robinson
+ */
+final class UnusedCodePruner
+{
+    private final VeraSchemaAnalyzer analyzer;
+    private final FactoryTranslationMap factoryXlatMap;
+    private final IndentLogger log;
+
+    private final Set<VeraFunction> liveFuncs = new HashSet<VeraFunction>();
+    private final LinkedList<VeraFunction> pendingFuncs = new LinkedList<VeraFunction>();
+    private final Set<VeraFunction> prunedFuncs = new HashSet<VeraFunction>();
+    private final Set<VeraVariable> returnVars = new HashSet<VeraVariable>();
+    private final Map<VeraVariable, Boolean> prunedVars = new HashMap<VeraVariable, Boolean>();
+    private boolean complete = true;
+
+    public UnusedCodePruner(
+        VeraSchemaAnalyzer analyzer,
+        FactoryTranslationMap factoryXlatMap,
+        IndentLogger log)
+    {
+        this.analyzer = analyzer;
+        this.factoryXlatMap = factoryXlatMap;
+        this.log = log;
+    }
+
+    public void analyze(VeraSchema schema)
+    {
+        // collect all functions with bodies and mark entry points
+        final LinkedList<VeraFunction> funcs = new LinkedList<VeraFunction>();
+        for (final Object schemaMember : schema.getMembers())
+        {
+            if (!(schemaMember instanceof VeraCompilationUnit)) continue;
+            final VeraCompilationUnit compUnit = (VeraCompilationUnit) schemaMember;
+            for (final VeraCompilationUnitMember member : compUnit.getMembers())
+            {
+                if (member instanceof VeraGlobalFunction)
+                {
+                    addFunction((VeraFunction) member, funcs, false);
+                }
+                else if (member instanceof VeraUserClass)
+                {
+                    addClass((VeraUserClass) member, funcs);
+                }
+                else if (member instanceof VeraProgram)
+                {
+                    final VeraProgram program = (VeraProgram) member;
+                    markCalls(analyzer.getBlockAnalysis(program.getBlock()));
+                    for (final VeraCompilationUnitMember shellMember : program
+                        .getShellMembers())
+                    {
+                        if (shellMember instanceof VeraFunction)
+                        {
+                            markLive((VeraFunction) shellMember);
+                        }
+                    }
+                }
+            }
+        }
+        for (final VeraFunction func : analyzer.getUnscopedCalls())
+        {
+            markLive(func);
+        }
+
+        // propagate liveness through calls and virtual dispatch
+        while (!pendingFuncs.isEmpty())
+        {
+            final VeraFunction func = pendingFuncs.removeFirst();
+            if (func.getBody() != null)
+            {
+                markCalls(analyzer.getBlockAnalysis(func.getBody()));
+            }
+            final FunctionAnalysis funcAnalysis = analyzer
+                .getFunctionAnalysis(func);
+            if (funcAnalysis != null)
+            {
+                final FunctionAnalysis overridden = funcAnalysis
+                    .getOverridden();
+                if (overridden != null)
+                {
+                    markLive(overridden.getFunction());
+                }
+                for (final FunctionAnalysis override : funcAnalysis
+                    .getDirectOverrides())
+                {
+                    markLive(override.getFunction());
+                }
+            }
+        }
+
+        if (!complete)
+        {
+            log.println("Warning: Call analysis is incomplete; "
+                + "not pruning unreferenced functions");
+            return;
+        }
+
+        for (final VeraFunction func : funcs)
+        {
+            if (!liveFuncs.contains(func))
+            {
+                log.println("Note: Pruning unreferenced function '"
+                    + getDescription(func) + "'");
+                prunedFuncs.add(func);
+            }
+        }
+    }
+
+    private void addClass(VeraUserClass cls, LinkedList<VeraFunction> funcs)
+    {
+        // all methods of classes created through a testbench factory may be
+        // called by the factory implementation
+        final boolean factoryClass = factoryXlatMap.getFactory(cls.getName()
+            .getCanonicalName()) != null;
+        for (final Object member : cls.getMembers())
+        {
+            if (member instanceof VeraMemberFunction)
+            {
+                final VeraMemberFunction func = (VeraMemberFunction) member;
+                final String id = func.getName().getIdentifier();
+                addFunction(func, funcs, factoryClass || func.isConstructor()
+                    || id.equals("pre_randomize")
+                    || id.equals("post_randomize"));
+            }
+        }
+    }
+
+    private void addFunction(
+        VeraFunction func,
+        LinkedList<VeraFunction> funcs,
+        boolean entryPoint)
+    {
+        final VeraLocalVariable returnVar = func.getReturnVar();
+        if (returnVar != null) returnVars.add(returnVar);
+
+        // functions without bodies are declarations and are always kept
+        if (func.getBody() == null || entryPoint)
+        {
+            markLive(func);
+        }
+        else
+        {
+            funcs.add(func);
+        }
+    }
+
+    private void markCalls(BlockAnalysis blockAnalysis)
+    {
+        if (blockAnalysis == null)
+        {
+            complete = false;
+            return;
+        }
+        for (final VeraFunction func : blockAnalysis.getCalledFunctions())
+        {
+            markLive(func);
+        }
+    }
+
+    private void markLive(VeraFunction func)
+    {
+        if (liveFuncs.add(func))
+        {
+            pendingFuncs.add(func);
+        }
+    }
+
+    private static String getDescription(VeraFunction func)
+    {
+        if (func instanceof VeraMemberFunction)
+        {
+            return ((VeraMemberFunction) func).getStructuredType().getName()
+                + "." + func.getName();
+        }
+        return func.getName().toString();
+    }
+
+    /**
+     * Returns whether the given function should be omitted from the
+     * translation.
+     */
+    public boolean isPrunedFunction(VeraFunction func)
+    {
+        return prunedFuncs.contains(func);
+    }
+
+    /**
+     * Returns whether the given local variable or field should be omitted
+     * from the translation, along with its assignments.
+     */
+    public boolean isPrunedVariable(VeraVariable var)
+    {
+        Boolean pruned = prunedVars.get(var);
+        if (pruned == null)
+        {
+            pruned = Boolean.valueOf(checkPrunedVariable(var));
+            prunedVars.put(var, pruned);
+        }
+        return pruned.booleanValue();
+    }
+
+    private boolean checkPrunedVariable(VeraVariable var)
+    {
+        if (!(var instanceof VeraLocalVariable || var instanceof VeraMemberVariable)
+            || returnVars.contains(var))
+        {
+            return false;
+        }
+
+        // random variables are read by the constraint solver
+        if (var.hasModifier(VeraVariableModifier.RAND)
+            || var.hasModifier(VeraVariableModifier.RANDC))
+        {
+            return false;
+        }
+
+        // only variables that are written but never read are pruned;
+        // unreferenced variables are already suppressed by the translator
+        final VariableAnalysis varAnalysis = analyzer.getVariableAnalysis(var);
+        if (varAnalysis == null || varAnalysis.isReadAccess()
+            || !varAnalysis.isWriteAccess()
+            || !varAnalysis.isOnlyStatementAssigned())
+        {
+            return false;
+        }
+        if (varAnalysis.isPassedByRef() || varAnalysis.isForkRead()
+            || varAnalysis.isForkWrite() || varAnalysis.isWaitVar()
+            || varAnalysis.isWaitVarAlias())
+        {
+            return false;
+        }
+
+        // initializers are not reduced, so they must be free of side effects
+        return var.getInitializer() == null
+            || !varAnalysis.isWriteSideEffects();
+    }
+
+    /**
+     * Logs a summary of the pruned functions and variables.
+     */
+    public void logSummary()
+    {
+        int varCount = 0;
+        for (final Boolean pruned : prunedVars.values())
+        {
+            if (pruned.booleanValue()) ++varCount;
+        }
+        log.println("Pruned " + prunedFuncs.size() + " functions and "
+            + varCount + " write-only variables");
+    }
+}